@@ -4,45 +4,241 @@ import com.mojang.brigadier.Command;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import luisafk.mclocalapi.events.ChatEvents;
+import luisafk.mclocalapi.events.EventBus;
+import luisafk.mclocalapi.events.HealthEventProducer;
+import luisafk.mclocalapi.events.PositionEventProducer;
+import luisafk.mclocalapi.events.ScreenEventProducer;
+import luisafk.mclocalapi.events.WorldEventProducer;
+import luisafk.mclocalapi.game.GameProvider;
+import luisafk.mclocalapi.game.HeadlessGameProvider;
+import luisafk.mclocalapi.game.MinecraftGameProvider;
+import luisafk.mclocalapi.metrics.Metrics;
+import luisafk.mclocalapi.recording.RecordingStore;
+import luisafk.mclocalapi.recording.SessionRecorder;
+import luisafk.mclocalapi.rest.AdmissionControl;
+import luisafk.mclocalapi.rest.EntityStreams;
+import luisafk.mclocalapi.rest.PlayerPositionStreams;
 import luisafk.mclocalapi.rest.RestApiProvider;
-import luisafk.mclocalapi.rest.SseConnection;
+import luisafk.mclocalapi.rest.SseHub;
+import luisafk.mclocalapi.scheduler.ClientTaskScheduler;
+import luisafk.mclocalapi.scheduler.CommandPipeline;
+import luisafk.mclocalapi.scheduler.TickGovernor;
+import luisafk.mclocalapi.state.GameStatePublisher;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import luisafk.mclocalapi.state.PositionHistory;
+import luisafk.mclocalapi.transport.NioHttpServer;
+import luisafk.mclocalapi.ws.WebSocketServer;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommands;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
 import net.fabricmc.loader.api.FabricLoader;
-import net.fabricmc.loader.api.Version;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.Component;
-import net.minecraft.world.phys.Vec3;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class MCLocalAPIClient implements ClientModInitializer {
 
-    public static final MCLocalAPIConfig config =
-        MCLocalAPIConfig.createAndLoad();
+    /**
+     * Set with {@code -Dmc-local-api.headless=true} to use the API's classes
+     * in a plain JVM (e.g. the JMH benchmarks): Minecraft and Fabric are left
+     * alone, {@link #mc} and {@link #fabricLoader} are {@code null},
+     * {@link #game} is a {@link HeadlessGameProvider} and the config keeps
+     * its defaults.
+     */
+    public static final boolean headless = Boolean.getBoolean(
+        "mc-local-api.headless"
+    );
 
-    public static final Minecraft mc = Minecraft.getInstance();
-    public static final FabricLoader fabricLoader = FabricLoader.getInstance();
+    public static final MCLocalAPIConfig config = headless
+        ? new MCLocalAPIConfig()
+        : MCLocalAPIConfig.createAndLoad();
+
+    public static final Minecraft mc = headless ? null : Minecraft.getInstance();
+    public static final FabricLoader fabricLoader = headless
+        ? null
+        : FabricLoader.getInstance();
+
+    /** What the API reads from and does to the game, instead of {@link #mc}. */
+    public static final GameProvider game = headless
+        ? new HeadlessGameProvider()
+        : new MinecraftGameProvider(mc, fabricLoader);
 
     public static final Logger logger = LoggerFactory.getLogger("mc-local-api");
-    public static final Version modVersion = fabricLoader
-        .getModContainer("mc-local-api")
-        .get()
-        .getMetadata()
-        .getVersion();
+    public static final String modVersion = headless
+        ? "dev"
+        : fabricLoader
+              .getModContainer("mc-local-api")
+              .get()
+              .getMetadata()
+              .getVersion()
+              .getFriendlyString();
 
     private HttpServer server;
+    private ExecutorService serverExecutor;
+    private NioHttpServer unixSocketServer;
+
+    public static final Metrics metrics = new Metrics();
+    public static final AdmissionControl admission = new AdmissionControl();
+
+    public static final SseHub posSseHub = new SseHub("position");
+    public static final PlayerPositionStreams positionStreams =
+        new PlayerPositionStreams(posSseHub);
+
+    public static final SseHub entitiesSseHub = new SseHub("entities");
+    public static final EntityStreams entityStreams = new EntityStreams(
+        entitiesSseHub
+    );
+
+    public static final EventBus eventBus = new EventBus();
+    public static final SseHub eventsSseHub = new SseHub("events");
+
+    public static final WebSocketServer webSocketServer =
+        new WebSocketServer();
+
+    public static final GameStatePublisher gameState =
+        new GameStatePublisher();
+    public static final PositionHistory positionHistory =
+        new PositionHistory();
+    public static final SessionRecorder sessionRecorder = new SessionRecorder(
+        new RecordingStore(
+            headless
+                ? Path.of(System.getProperty("java.io.tmpdir"), "mc-local-api")
+                : fabricLoader.getConfigDir().resolve("mc-local-api/recordings")
+        )
+    );
+
+    public static final ClientTaskScheduler clientTasks =
+        new ClientTaskScheduler();
+
+    public static final CommandPipeline commandPipeline =
+        new CommandPipeline();
 
-    Vec3 lastPos;
-    String lastWorld;
+    public static final TickGovernor tickGovernor = new TickGovernor();
 
-    public static final List<SseConnection> posSseClients =
-        new CopyOnWriteArrayList<>();
+    static {
+        eventBus.register(new PositionEventProducer());
+        eventBus.register(new WorldEventProducer());
+        eventBus.register(new ScreenEventProducer());
+        eventBus.register(new HealthEventProducer());
+
+        metrics.gauge(
+            "stream_clients",
+            "Open stream connections.",
+            posSseHub::getSubscriberCount,
+            "stream",
+            "position"
+        );
+        metrics.gauge(
+            "stream_clients",
+            "Open stream connections.",
+            eventsSseHub::getSubscriberCount,
+            "stream",
+            "events"
+        );
+        metrics.gauge(
+            "stream_clients",
+            "Open stream connections.",
+            entitiesSseHub::getSubscriberCount,
+            "stream",
+            "entities"
+        );
+        metrics.gauge(
+            "stream_clients",
+            "Open stream connections.",
+            webSocketServer::getConnectionCount,
+            "stream",
+            "websocket"
+        );
+        metrics.gauge(
+            "event_subscriptions",
+            "Event bus subscriptions, from /events and /ws.",
+            eventBus::getSubscriptionCount
+        );
+        metrics.gauge(
+            "queue_depth",
+            "Items waiting in a queue.",
+            posSseHub::getQueuedFrames,
+            "queue",
+            "stream_position"
+        );
+        metrics.gauge(
+            "queue_depth",
+            "Items waiting in a queue.",
+            eventsSseHub::getQueuedFrames,
+            "queue",
+            "stream_events"
+        );
+        metrics.gauge(
+            "queue_depth",
+            "Items waiting in a queue.",
+            entitiesSseHub::getQueuedFrames,
+            "queue",
+            "stream_entities"
+        );
+        metrics.gauge(
+            "queue_depth",
+            "Items waiting in a queue.",
+            webSocketServer::getQueuedFrames,
+            "queue",
+            "stream_websocket"
+        );
+        metrics.gauge(
+            "queue_depth",
+            "Items waiting in a queue.",
+            clientTasks::getQueueDepth,
+            "queue",
+            "client_tasks"
+        );
+        metrics.gauge(
+            "queue_depth",
+            "Items waiting in a queue.",
+            commandPipeline::getQueueDepth,
+            "queue",
+            "chat_batch"
+        );
+        metrics.gauge(
+            "governor_level",
+            "The tick budget governor's degradation level, 0 for none.",
+            () -> tickGovernor.level().ordinal()
+        );
+        metrics.gauge(
+            "http_requests_in_flight",
+            "Requests admitted and not yet responded to.",
+            admission::getInFlight
+        );
+        metrics.counter(
+            "http_requests_rejected_total",
+            "Requests answered with 429, by the limit they hit.",
+            admission::getRejectedInFlight,
+            "limit",
+            "in_flight"
+        );
+        metrics.counter(
+            "http_requests_rejected_total",
+            "Requests answered with 429, by the limit they hit.",
+            admission::getRejectedRate,
+            "limit",
+            "client_rate"
+        );
+        metrics.counter(
+            "http_requests_rejected_total",
+            "Requests answered with 429, by the limit they hit.",
+            admission::getRejectedStreams,
+            "limit",
+            "streams"
+        );
+    }
 
     @Override
     public void onInitializeClient() {
@@ -79,57 +275,68 @@ public class MCLocalAPIClient implements ClientModInitializer {
             }
         );
 
-        ClientTickEvents.START_CLIENT_TICK.register(mc -> {
-            if (mc.player == null) {
-                if (config.closePlayerPositionStreams) {
-                    posSseClients.forEach(SseConnection::close);
-                    posSseClients.clear();
-                }
-                return;
-            }
+        ClientReceiveMessageEvents.CHAT.register(
+            (message, signedMessage, sender, params, receptionTimestamp) ->
+                ChatEvents.publish(eventBus, "chat", message, false)
+        );
+        ClientReceiveMessageEvents.GAME.register((message, overlay) ->
+            ChatEvents.publish(eventBus, "game", message, overlay)
+        );
 
-            Vec3 pos = mc.player.position();
-            String world = mc.level.dimension().identifier().toString();
-
-            boolean didPositionChange =
-                lastPos == null ||
-                lastPos.distanceTo(pos) >
-                    config.playerPositionStreamDistanceThreshold;
-            boolean didWorldChange =
-                lastWorld == null || !lastWorld.equals(world);
-
-            if (didPositionChange) {
-                lastPos = pos;
-
-                posSseClients.forEach(sse -> {
-                    try {
-                        sse.sendEvent(pos.toString());
-                    } catch (Exception e) {
-                        logger.error(
-                            "Error sending position update to SSE client",
-                            e
-                        );
-                        sse.close();
-                    }
-                });
-            }
+        ClientTickEvents.START_CLIENT_TICK.register(mc -> tick());
+    }
 
-            if (didWorldChange) {
-                lastWorld = world;
-
-                posSseClients.forEach(sse -> {
-                    try {
-                        sse.sendEvent("changeworld", world);
-                    } catch (Exception e) {
-                        logger.error(
-                            "Error sending world update to SSE client",
-                            e
-                        );
-                        sse.close();
-                    }
-                });
-            }
-        });
+    /**
+     * Everything the API does once per client tick. Must be called on the
+     * client thread, or by whatever stands in for it when {@link #headless}.
+     */
+    public static void tick() {
+        long start = System.nanoTime();
+        GameStateSnapshot state = gameState.capture(
+            game,
+            tickGovernor.shouldCaptureFully()
+        );
+        clientTasks.drain(tickGovernor.clientTasksThisTick());
+        commandPipeline.tick(game);
+
+        boolean tickStreams = tickGovernor.shouldTickStreams();
+        if (tickStreams) {
+            eventBus.tick(state);
+        }
+
+        if (!state.hasPlayer() && config.closePlayerPositionStreams) {
+            posSseHub.closeAll();
+        }
+        if (tickStreams) {
+            positionStreams.tick(state);
+            entityStreams.tick(game, state);
+        }
+        positionHistory.record(state, config.positionHistoryCapacity);
+        sessionRecorder.record(state);
+
+        long overhead = System.nanoTime() - start;
+        metrics.tickOverhead().record(overhead);
+        tickGovernor.record(overhead, game.frameNanos());
+    }
+
+    /**
+     * Turns Nagle's algorithm off for the JDK HTTP server, which otherwise
+     * holds every response on a kept-alive connection for the client's
+     * delayed ACK (~40 ms). Call before creating a server.
+     *
+     * <p>The setting is a JVM-wide system property, so it also applies to
+     * other mods' servers built on the JDK's, and the JDK reads it only once,
+     * when the first of them is created: if another mod started one first,
+     * this has no effect until the game restarts. An explicit
+     * {@code -Dsun.net.httpserver.nodelay} is left alone.
+     */
+    public static void enableTcpNoDelay() {
+        if (
+            config.serverTcpNoDelay &&
+            System.getProperty("sun.net.httpserver.nodelay") == null
+        ) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
     }
 
     private boolean startServer() {
@@ -140,10 +347,25 @@ public class MCLocalAPIClient implements ClientModInitializer {
         }
 
         try {
-            server = HttpServer.create(new InetSocketAddress(config.port), 0);
-            new RestApiProvider(server).defineRoutes();
+            enableTcpNoDelay();
+            server = HttpServer.create(
+                new InetSocketAddress(config.port),
+                config.serverBacklog
+            );
+            serverExecutor = createServerExecutor();
+            server.setExecutor(serverExecutor);
+            RestApiProvider api = new RestApiProvider(server);
+            api.defineRoutes();
             server.start();
+            startWebSocketServer(api);
+            unixSocketServer = startUnixSocketServer(api, serverExecutor);
         } catch (IOException e) {
+            server = null;
+            if (serverExecutor != null) {
+                serverExecutor.shutdownNow();
+                serverExecutor = null;
+            }
+
             logger.error(
                 "Failed to start MC Local API server on port {}: {}",
                 config.port,
@@ -186,12 +408,109 @@ public class MCLocalAPIClient implements ClientModInitializer {
             );
         }
 
-        posSseClients.forEach(SseConnection::close);
-        posSseClients.clear();
+        posSseHub.closeAll();
+        eventsSseHub.closeAll();
+        entitiesSseHub.closeAll();
+        webSocketServer.stop();
+        if (unixSocketServer != null) {
+            unixSocketServer.stop();
+            unixSocketServer = null;
+        }
 
         server.stop(0);
         server = null;
 
+        serverExecutor.shutdownNow();
+        serverExecutor = null;
+
         logger.info("MC Local API server stopped");
     }
+
+    /**
+     * The WebSocket endpoint has a listener of its own. Failing to bind it
+     * only disables WebSockets; the HTTP server keeps running.
+     */
+    private static void startWebSocketServer(RestApiProvider api) {
+        if (!config.enableEndpointWebSocket) {
+            return;
+        }
+
+        try {
+            webSocketServer.start(api, config.webSocketPort);
+            logger.info(
+                "MC Local API WebSocket endpoint started on port {}",
+                config.webSocketPort
+            );
+        } catch (IOException e) {
+            logger.error(
+                "Failed to start MC Local API WebSocket endpoint on port {}: {}",
+                config.webSocketPort,
+                e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Serves the same routes on a Unix domain socket, if enabled, with
+     * handlers run on {@code executor}. Like the WebSocket listener, failing
+     * to bind only disables it. Returns the server, or {@code null}.
+     */
+    public static NioHttpServer startUnixSocketServer(
+        RestApiProvider api,
+        Executor executor
+    ) {
+        if (!config.enableUnixSocket) {
+            return null;
+        }
+
+        Path path;
+        if (!config.unixSocketPath.isBlank()) {
+            path = Path.of(config.unixSocketPath);
+        } else if (headless) {
+            path = Path.of(
+                System.getProperty("java.io.tmpdir"),
+                "mc-local-api.sock"
+            );
+        } else {
+            path = fabricLoader.getConfigDir().resolve("mc-local-api/api.sock");
+        }
+
+        NioHttpServer unixSocketServer = new NioHttpServer(api, executor);
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            unixSocketServer.start(
+                UnixDomainSocketAddress.of(path),
+                config.serverBacklog
+            );
+        } catch (IOException | RuntimeException e) {
+            logger.error(
+                "Failed to start MC Local API Unix socket at {}: {}",
+                path,
+                e.getMessage()
+            );
+            return null;
+        }
+
+        logger.info("MC Local API Unix socket started at {}", path);
+        return unixSocketServer;
+    }
+
+    /**
+     * Creates the executor HTTP exchanges are dispatched on. Without one, the
+     * JDK server runs every handler on its single dispatcher thread.
+     */
+    private static ExecutorService createServerExecutor() {
+        return switch (config.serverExecutor) {
+            case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("mc-local-api-request-", 0).factory()
+            );
+            case PLATFORM_POOL -> Executors.newFixedThreadPool(
+                config.serverPoolSize,
+                Thread.ofPlatform()
+                    .daemon()
+                    .name("mc-local-api-request-", 0)
+                    .factory()
+            );
+        };
+    }
 }
@@ -1,14 +1,18 @@
 package luisafk.mclocalapi;
 
+import dev.isxander.yacl3.api.NameableEnum;
 import dev.isxander.yacl3.config.v2.api.ConfigClassHandler;
 import dev.isxander.yacl3.config.v2.api.SerialEntry;
 import dev.isxander.yacl3.config.v2.api.autogen.AutoGen;
 import dev.isxander.yacl3.config.v2.api.autogen.DoubleField;
+import dev.isxander.yacl3.config.v2.api.autogen.EnumCycler;
 import dev.isxander.yacl3.config.v2.api.autogen.IntField;
+import dev.isxander.yacl3.config.v2.api.autogen.StringField;
 import dev.isxander.yacl3.config.v2.api.autogen.TickBox;
 import dev.isxander.yacl3.config.v2.api.serializer.GsonConfigSerializerBuilder;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.network.chat.Component;
 import net.minecraft.resources.Identifier;
 
 /**
@@ -22,29 +26,54 @@ public class MCLocalAPIConfig {
 
     private static final String CATEGORY = "general";
     private static final String GROUP_SERVER = "server";
+    private static final String GROUP_CHAT = "chat";
     private static final String GROUP_PLAYER_POSITION = "playerPosition";
+    private static final String GROUP_RECORDING = "recording";
     private static final String GROUP_ENDPOINTS = "endpoints";
 
-    public static final ConfigClassHandler<MCLocalAPIConfig> HANDLER =
-        ConfigClassHandler.createBuilder(MCLocalAPIConfig.class)
-            .id(Identifier.fromNamespaceAndPath("mc-local-api", "config"))
-            .serializer(config ->
-                GsonConfigSerializerBuilder.create(config)
-                    .setPath(
-                        FabricLoader.getInstance()
-                            .getConfigDir()
-                            .resolve("mc-local-api.json5")
-                    )
-                    .setJson5(true)
-                    .build()
-            )
-            .build();
+    /**
+     * Built on first use rather than with the class, so that a config can be
+     * created with its defaults outside Fabric (see
+     * {@link MCLocalAPIClient#headless}).
+     */
+    private static final class Holder {
+
+        static final ConfigClassHandler<MCLocalAPIConfig> HANDLER =
+            ConfigClassHandler.createBuilder(MCLocalAPIConfig.class)
+                .id(Identifier.fromNamespaceAndPath("mc-local-api", "config"))
+                .serializer(config ->
+                    GsonConfigSerializerBuilder.create(config)
+                        .setPath(
+                            FabricLoader.getInstance()
+                                .getConfigDir()
+                                .resolve("mc-local-api.json5")
+                        )
+                        .setJson5(true)
+                        .build()
+                )
+                .build();
+    }
 
     @SerialEntry
     @AutoGen(category = CATEGORY, group = GROUP_SERVER)
     @IntField(min = 1025, max = 65535)
     public int port = 25566;
 
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1025, max = 65535)
+    public int webSocketPort = 25567;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @TickBox
+    public boolean enableUnixSocket = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @StringField
+    public String unixSocketPath = "";
+
     @SerialEntry
     @AutoGen(category = CATEGORY, group = GROUP_SERVER)
     @TickBox
@@ -55,6 +84,121 @@ public class MCLocalAPIConfig {
     @TickBox
     public boolean enableCors = true;
 
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @EnumCycler
+    public ServerExecutor serverExecutor = ServerExecutor.VIRTUAL_THREADS;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 256)
+    public int serverPoolSize = 8;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 65536)
+    public int clientTaskQueueCapacity = 256;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 1024)
+    public int clientTasksPerTick = 16;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 50, max = 60000)
+    public int clientTaskTimeoutMillis = 5000;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @TickBox
+    public boolean enableResponseCompression = true;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 0, max = 1048576)
+    public int compressionThresholdBytes = 1024;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 0, max = 4096)
+    public int serverBacklog = 64;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @TickBox
+    public boolean serverTcpNoDelay = true;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 65536)
+    public int maxInFlightRequests = 256;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @DoubleField(min = 0.0, max = 100000.0)
+    public double requestsPerSecondPerClient = 0;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 100000)
+    public int requestBurstPerClient = 100;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @TickBox
+    public boolean enableTickGovernor = true;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @DoubleField(min = 0.1, max = 100.0)
+    public double tickBudgetPercent = 5;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 65536)
+    public int maxBlockQuerySections = 4096;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 4096)
+    public int blockSectionsPerTick = 64;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @DoubleField(min = 1.0, max = 512.0)
+    public double maxEntityStreamRadius = 128;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 4096)
+    public int entityStreamPositionsPerBlock = 8;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_SERVER)
+    @IntField(min = 1, max = 4096)
+    public int maxEntityStreamClients = 16;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_CHAT)
+    @DoubleField(min = 0.01, max = 20.0)
+    public double batchSendRatePerTick = 0.25;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_CHAT)
+    @IntField(min = 1, max = 100)
+    public int batchSendBurst = 4;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_CHAT)
+    @IntField(min = 1, max = 100000)
+    public int batchQueueCapacity = 1000;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_CHAT)
+    @IntField(min = 1000, max = 3600000)
+    public int batchItemTimeoutMillis = 300000;
+
     @SerialEntry
     @AutoGen(category = CATEGORY, group = GROUP_PLAYER_POSITION)
     @TickBox
@@ -65,6 +209,52 @@ public class MCLocalAPIConfig {
     @DoubleField(min = 0.0)
     public double playerPositionStreamDistanceThreshold = 1;
 
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_PLAYER_POSITION)
+    @IntField(min = 1, max = 4096)
+    public int playerPositionStreamQueueCapacity = 64;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_PLAYER_POSITION)
+    @IntField(min = 1, max = 4096)
+    public int maxPlayerPositionStreamClients = 64;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_PLAYER_POSITION)
+    @EnumCycler
+    public StreamOverflowPolicy playerPositionStreamOverflowPolicy =
+        StreamOverflowPolicy.COALESCE_LATEST;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_PLAYER_POSITION)
+    @IntField(min = 1, max = 300)
+    public int streamHeartbeatIntervalSeconds = 15;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_PLAYER_POSITION)
+    @IntField(min = 0, max = 1728000)
+    public int positionHistoryCapacity = 72000;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_RECORDING)
+    @TickBox
+    public boolean enableSessionRecording = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_RECORDING)
+    @IntField(min = 1200, max = 1728000)
+    public int recordingSegmentRecords = 72000;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_RECORDING)
+    @IntField(min = 1, max = 1000)
+    public int recordingMaxCount = 20;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_RECORDING)
+    @IntField(min = 16, max = 1048576)
+    public int recordingMaxTotalMegabytes = 1024;
+
     @SerialEntry
     @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
     @TickBox
@@ -90,11 +280,36 @@ public class MCLocalAPIConfig {
     @TickBox
     public boolean enableEndpointPlayerPositionStream = false;
 
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointPlayerPositionHistory = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointPlayerState = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointEvents = false;
+
     @SerialEntry
     @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
     @TickBox
     public boolean enableEndpointPlayerWorld = false;
 
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointWorldBlocks = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointEntitiesStream = false;
+
     @SerialEntry
     @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
     @TickBox
@@ -105,18 +320,82 @@ public class MCLocalAPIConfig {
     @TickBox
     public boolean enableEndpointXaeroWaypointSets = false;
 
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointXaeroWaypoints = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointWebSocket = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointRecordings = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointMetrics = false;
+
+    @SerialEntry
+    @AutoGen(category = CATEGORY, group = GROUP_ENDPOINTS)
+    @TickBox
+    public boolean enableEndpointGovernor = false;
+
+    /**
+     * How HTTP exchanges are dispatched. Either way, handlers never run on the
+     * server's own dispatcher thread, so a slow handler can't stall accepts.
+     */
+    public enum ServerExecutor implements NameableEnum {
+        /** One virtual thread per exchange. */
+        VIRTUAL_THREADS,
+        /** A fixed pool of {@link #serverPoolSize} platform threads. */
+        PLATFORM_POOL;
+
+        @Override
+        public Component getDisplayName() {
+            return Component.translatable(
+                "mc-local-api.serverExecutor." + name().toLowerCase()
+            );
+        }
+    }
+
+    /**
+     * What happens when a stream subscriber falls so far behind that its queue
+     * is full. Clients can override the default per stream with
+     * {@code ?overflow=}.
+     */
+    public enum StreamOverflowPolicy implements NameableEnum {
+        /** Replace the queued event of the same type with the new one. */
+        COALESCE_LATEST,
+        /** Discard the oldest queued event. */
+        DROP_OLDEST,
+        /** Close the subscriber's connection. */
+        DISCONNECT;
+
+        @Override
+        public Component getDisplayName() {
+            return Component.translatable(
+                "mc-local-api.streamOverflowPolicy." + name().toLowerCase()
+            );
+        }
+    }
+
     /**
      * Loads the config from disk (creating defaults if absent) and returns the
      * handler-managed instance. The instance is mutated in place across
      * load/save, so it's safe to hold this reference for the mod's lifetime.
      */
     public static MCLocalAPIConfig createAndLoad() {
-        HANDLER.load();
-        return HANDLER.instance();
+        Holder.HANDLER.load();
+        return Holder.HANDLER.instance();
     }
 
     /** Builds the YACL settings screen (used by the ModMenu integration). */
     public static Screen createScreen(Screen parent) {
-        return HANDLER.generateGui().generateScreen(parent);
+        return Holder.HANDLER.generateGui().generateScreen(parent);
     }
 }
@@ -0,0 +1,79 @@
+package luisafk.mclocalapi.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Growable big-endian byte buffer shared by the binary formats. */
+abstract class BinaryWriter implements StructuredWriter {
+
+    private byte[] buf = new byte[128];
+    private int len;
+
+    @Override
+    public StructuredWriter endMap() {
+        return this;
+    }
+
+    @Override
+    public StructuredWriter endArray() {
+        return this;
+    }
+
+    @Override
+    public StructuredWriter key(String key) {
+        return string(key);
+    }
+
+    @Override
+    public StructuredWriter reset() {
+        len = 0;
+        return this;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    final void u8(int b) {
+        ensure(1);
+        buf[len++] = (byte) b;
+    }
+
+    final void u16(int v) {
+        ensure(2);
+        buf[len++] = (byte) (v >>> 8);
+        buf[len++] = (byte) v;
+    }
+
+    final void u32(long v) {
+        ensure(4);
+        buf[len++] = (byte) (v >>> 24);
+        buf[len++] = (byte) (v >>> 16);
+        buf[len++] = (byte) (v >>> 8);
+        buf[len++] = (byte) v;
+    }
+
+    final void u64(long v) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[len++] = (byte) (v >>> shift);
+        }
+    }
+
+    final void bytes(byte[] b) {
+        ensure(b.length);
+        System.arraycopy(b, 0, buf, len, b.length);
+        len += b.length;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package luisafk.mclocalapi.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import luisafk.mclocalapi.game.BlockRegion;
+import luisafk.mclocalapi.game.BlockSection;
+
+/**
+ * The {@code /world/blocks} format: a header, then one record per loaded
+ * section, each a palette of block states and bit-packed indices into it,
+ * much like the game's own section encoding, then an end marker. A body
+ * without the marker was cut short. Little-endian:
+ *
+ * <pre>
+ * header (25 bytes)
+ *   u8  version (1)
+ *   i32 minX, i32 minY, i32 minZ, i32 maxX, i32 maxY, i32 maxZ
+ *       (the requested box, in blocks, inclusive)
+ *
+ * section
+ *   u8  1
+ *   i32 sectionX, i32 sectionY, i32 sectionZ (block coordinates / 16)
+ *   u16 palette length n
+ *   n * (u16 length, UTF-8 state, e.g. minecraft:oak_log[axis=y])
+ *   u8  bits per index b (0 if n = 1, when every block is the same)
+ *   ceil(4096 / floor(64 / b)) * u64 packed indices
+ *
+ * end (1 byte)
+ *   u8  0
+ * </pre>
+ *
+ * <p>Block {@code (x, y, z)} of a section has index {@code (y * 16 + z) *
+ * 16 + x}. Indices are packed {@code floor(64 / b)} to a word, starting
+ * from the low bits, and never span two words. Sections are whole even if
+ * the box cuts through them; unloaded ones are left out.
+ */
+public final class BlockSectionCodec {
+
+    public static final String CONTENT_TYPE =
+        "application/vnd.mc-local-api.blocks";
+    public static final int HEADER_BYTES = 25;
+
+    private static final int VERSION = 1;
+    private static final int BLOCKS = 16 * 16 * 16;
+    private static final byte TAG_END = 0;
+    private static final byte TAG_SECTION = 1;
+
+    private BlockSectionCodec() {}
+
+    public static byte[] header(BlockRegion region) {
+        return ByteBuffer.allocate(HEADER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .put((byte) VERSION)
+            .putInt(region.minX())
+            .putInt(region.minY())
+            .putInt(region.minZ())
+            .putInt(region.maxX())
+            .putInt(region.maxY())
+            .putInt(region.maxZ())
+            .array();
+    }
+
+    public static byte[] end() {
+        return new byte[] { TAG_END };
+    }
+
+    public static <S> byte[] section(
+        int sectionX,
+        int sectionY,
+        int sectionZ,
+        BlockSection<S> section
+    ) {
+        Map<S, Integer> ids = new HashMap<>();
+        List<byte[]> palette = new ArrayList<>();
+        int paletteBytes = 0;
+        short[] indices = new short[BLOCKS];
+
+        int i = 0;
+        for (int y = 0; y < BlockSection.SIZE; y++) {
+            for (int z = 0; z < BlockSection.SIZE; z++) {
+                for (int x = 0; x < BlockSection.SIZE; x++) {
+                    S state = section.get(x, y, z);
+                    Integer id = ids.get(state);
+                    if (id == null) {
+                        id = palette.size();
+                        ids.put(state, id);
+                        byte[] name = section
+                            .name(state)
+                            .getBytes(StandardCharsets.UTF_8);
+                        palette.add(name);
+                        paletteBytes += 2 + name.length;
+                    }
+                    indices[i++] = (short) (int) id;
+                }
+            }
+        }
+
+        int bits = palette.size() == 1
+            ? 0
+            : 32 - Integer.numberOfLeadingZeros(palette.size() - 1);
+        int perWord = bits == 0 ? 0 : 64 / bits;
+        int words = bits == 0 ? 0 : (BLOCKS + perWord - 1) / perWord;
+
+        ByteBuffer out = ByteBuffer.allocate(
+            1 + 12 + 2 + paletteBytes + 1 + words * 8
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(TAG_SECTION);
+        out.putInt(sectionX).putInt(sectionY).putInt(sectionZ);
+        out.putShort((short) palette.size());
+        for (byte[] name : palette) {
+            out.putShort((short) name.length).put(name);
+        }
+        out.put((byte) bits);
+
+        for (int word = 0; word < words; word++) {
+            long packed = 0;
+            int start = word * perWord;
+            int end = Math.min(start + perWord, BLOCKS);
+            for (int j = start; j < end; j++) {
+                packed |= (long) indices[j] << ((j - start) * bits);
+            }
+            out.putLong(packed);
+        }
+
+        return out.array();
+    }
+}
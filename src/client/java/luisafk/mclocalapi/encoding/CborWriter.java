@@ -0,0 +1,84 @@
+package luisafk.mclocalapi.encoding;
+
+/**
+ * RFC 8949 CBOR with definite lengths. Floating-point values are always
+ * written as 64-bit doubles.
+ */
+public final class CborWriter extends BinaryWriter {
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+
+    @Override
+    public CborWriter beginMap(int entries) {
+        head(MAP, entries);
+        return this;
+    }
+
+    @Override
+    public CborWriter beginArray(int elements) {
+        head(ARRAY, elements);
+        return this;
+    }
+
+    @Override
+    public CborWriter string(String value) {
+        byte[] bytes = utf8(value);
+        head(TEXT, bytes.length);
+        bytes(bytes);
+        return this;
+    }
+
+    @Override
+    public CborWriter integer(long value) {
+        if (value >= 0) {
+            head(UNSIGNED, value);
+        } else {
+            // -1 - n, which can't overflow
+            head(NEGATIVE, ~value);
+        }
+        return this;
+    }
+
+    @Override
+    public CborWriter number(double value) {
+        u8(0xfb);
+        u64(Double.doubleToLongBits(value));
+        return this;
+    }
+
+    @Override
+    public CborWriter bool(boolean value) {
+        u8(value ? 0xf5 : 0xf4);
+        return this;
+    }
+
+    @Override
+    public CborWriter nullValue() {
+        u8(0xf6);
+        return this;
+    }
+
+    /** Major type and argument, in the shortest form. */
+    private void head(int majorType, long argument) {
+        int mt = majorType << 5;
+        if (argument < 24) {
+            u8(mt | (int) argument);
+        } else if (argument < 0x100) {
+            u8(mt | 24);
+            u8((int) argument);
+        } else if (argument < 0x10000) {
+            u8(mt | 25);
+            u16((int) argument);
+        } else if (argument < 0x100000000L) {
+            u8(mt | 26);
+            u32(argument);
+        } else {
+            u8(mt | 27);
+            u64(argument);
+        }
+    }
+}
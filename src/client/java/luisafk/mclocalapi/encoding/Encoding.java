@@ -0,0 +1,112 @@
+package luisafk.mclocalapi.encoding;
+
+import java.util.Locale;
+
+/** Response formats besides each endpoint's default, chosen by Accept. */
+public enum Encoding {
+    JSON("json", "application/json; charset=UTF-8"),
+    CBOR("cbor", "application/cbor"),
+    MSGPACK("msgpack", "application/msgpack"),
+    /** The fixed-width layouts documented on {@link GameStateCodec}. */
+    BINARY("binary", "application/vnd.mc-local-api.binary");
+
+    private final String id;
+    private final String contentType;
+
+    Encoding(String id, String contentType) {
+        this.id = id;
+        this.contentType = contentType;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /** Whether {@link #newWriter()} is supported. */
+    public boolean isStructured() {
+        return this != BINARY;
+    }
+
+    public StructuredWriter newWriter() {
+        return switch (this) {
+            case JSON -> new JsonWriter();
+            case CBOR -> new CborWriter();
+            case MSGPACK -> new MsgPackWriter();
+            case BINARY -> throw new UnsupportedOperationException(
+                "binary has fixed layouts only"
+            );
+        };
+    }
+
+    public static Encoding fromId(String id) {
+        for (Encoding encoding : values()) {
+            if (encoding.id.equals(id)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the most preferred supported type from an {@code Accept} header.
+     * Returns {@code null} if the endpoint's default should be used: no
+     * header, a wildcard or text type preferred, or nothing recognised.
+     */
+    public static Encoding negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+
+        Encoding best = null;
+        double bestQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] params = range.split(";");
+            String type = params[0].trim().toLowerCase(Locale.ROOT);
+
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            // Ties go to whichever was listed first
+            if (quality <= bestQuality) {
+                continue;
+            }
+
+            Encoding encoding = forMediaType(type);
+            if (encoding != null || isDefaultType(type)) {
+                best = encoding;
+                bestQuality = quality;
+            }
+        }
+
+        return best;
+    }
+
+    private static Encoding forMediaType(String type) {
+        return switch (type) {
+            case "application/json" -> JSON;
+            case "application/cbor" -> CBOR;
+            case "application/msgpack",
+                "application/x-msgpack",
+                "application/vnd.msgpack" -> MSGPACK;
+            case "application/vnd.mc-local-api.binary" -> BINARY;
+            default -> null;
+        };
+    }
+
+    private static boolean isDefaultType(String type) {
+        return type.equals("*/*") || type.startsWith("text/");
+    }
+}
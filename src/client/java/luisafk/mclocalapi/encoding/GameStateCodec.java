@@ -0,0 +1,233 @@
+package luisafk.mclocalapi.encoding;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Hand-written encoders for positions and {@link GameStateSnapshot}s.
+ *
+ * <p>The structured forms use the same keys as the JSON endpoints. The
+ * {@link Encoding#BINARY} layouts are fixed-width and little-endian:
+ *
+ * <pre>
+ * position (24 bytes)
+ *   f64 x, f64 y, f64 z
+ *
+ * world
+ *   u16 length, UTF-8 dimension ID
+ *
+ * state (89 bytes + strings)
+ *   i64 tick, i64 capturedAt (epoch millis)
+ *   u8  flags: 1 = hasPlayer, 2 = onGround, 4 = screen open
+ *   f64 x, f64 y, f64 z
+ *   f32 yaw, f32 pitch
+ *   f64 velocityX, f64 velocityY, f64 velocityZ
+ *   f32 health, f32 maxHealth
+ *   i32 foodLevel, i32 experienceLevel
+ *   u16 length, UTF-8 dimension (length 0 without a player)
+ *   u16 length, UTF-8 screenTitle (length 0 without a screen)
+ * </pre>
+ */
+public final class GameStateCodec {
+
+    public static final int BINARY_POSITION_BYTES = 24;
+    public static final int BINARY_STATE_FIXED_BYTES = 89;
+
+    private static final int FLAG_HAS_PLAYER = 1;
+    private static final int FLAG_ON_GROUND = 2;
+    private static final int FLAG_SCREEN_OPEN = 4;
+
+    private GameStateCodec() {}
+
+    /** {@code {"x":..,"y":..,"z":..}} */
+    public static StructuredWriter writePosition(
+        StructuredWriter out,
+        double x,
+        double y,
+        double z
+    ) {
+        return out
+            .beginMap(3)
+            .key("x")
+            .number(x)
+            .key("y")
+            .number(y)
+            .key("z")
+            .number(z)
+            .endMap();
+    }
+
+    /** {@code {"dimension":..}} */
+    public static StructuredWriter writeWorld(
+        StructuredWriter out,
+        String dimension
+    ) {
+        return out.beginMap(1).key("dimension").nullableString(dimension).endMap();
+    }
+
+    /** Every snapshot field, in declaration order like {@code /player/state}. */
+    public static StructuredWriter writeState(
+        StructuredWriter out,
+        GameStateSnapshot state
+    ) {
+        return out
+            .beginMap(18)
+            .key("tick")
+            .integer(state.tick())
+            .key("capturedAt")
+            .integer(state.capturedAt())
+            .key("hasPlayer")
+            .bool(state.hasPlayer())
+            .key("x")
+            .number(state.x())
+            .key("y")
+            .number(state.y())
+            .key("z")
+            .number(state.z())
+            .key("yaw")
+            .number(state.yaw())
+            .key("pitch")
+            .number(state.pitch())
+            .key("velocityX")
+            .number(state.velocityX())
+            .key("velocityY")
+            .number(state.velocityY())
+            .key("velocityZ")
+            .number(state.velocityZ())
+            .key("onGround")
+            .bool(state.onGround())
+            .key("dimension")
+            .nullableString(state.dimension())
+            .key("screenTitle")
+            .nullableString(state.screenTitle())
+            .key("health")
+            .number(state.health())
+            .key("maxHealth")
+            .number(state.maxHealth())
+            .key("foodLevel")
+            .integer(state.foodLevel())
+            .key("experienceLevel")
+            .integer(state.experienceLevel())
+            .endMap();
+    }
+
+    public static byte[] binaryPosition(double x, double y, double z) {
+        return ByteBuffer.allocate(BINARY_POSITION_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putDouble(x)
+            .putDouble(y)
+            .putDouble(z)
+            .array();
+    }
+
+    public static byte[] binaryWorld(String dimension) {
+        byte[] name = utf8(dimension);
+        ByteBuffer buf = ByteBuffer.allocate(2 + name.length).order(
+            ByteOrder.LITTLE_ENDIAN
+        );
+        putString(buf, name);
+        return buf.array();
+    }
+
+    public static byte[] binaryState(GameStateSnapshot state) {
+        byte[] dimension = utf8(state.dimension());
+        byte[] screenTitle = utf8(state.screenTitle());
+
+        ByteBuffer buf = ByteBuffer.allocate(
+            BINARY_STATE_FIXED_BYTES + 4 + dimension.length + screenTitle.length
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        putStateFixed(buf, state);
+        putString(buf, dimension);
+        putString(buf, screenTitle);
+        return buf.array();
+    }
+
+    /**
+     * Writes the fixed-width part of the binary state layout (everything but
+     * the two strings). {@code buf} must be little-endian.
+     */
+    public static ByteBuffer putStateFixed(
+        ByteBuffer buf,
+        GameStateSnapshot state
+    ) {
+        int flags = 0;
+        if (state.hasPlayer()) {
+            flags |= FLAG_HAS_PLAYER;
+        }
+        if (state.onGround()) {
+            flags |= FLAG_ON_GROUND;
+        }
+        if (state.screenTitle() != null) {
+            flags |= FLAG_SCREEN_OPEN;
+        }
+
+        return buf
+            .putLong(state.tick())
+            .putLong(state.capturedAt())
+            .put((byte) flags)
+            .putDouble(state.x())
+            .putDouble(state.y())
+            .putDouble(state.z())
+            .putFloat(state.yaw())
+            .putFloat(state.pitch())
+            .putDouble(state.velocityX())
+            .putDouble(state.velocityY())
+            .putDouble(state.velocityZ())
+            .putFloat(state.health())
+            .putFloat(state.maxHealth())
+            .putInt(state.foodLevel())
+            .putInt(state.experienceLevel());
+    }
+
+    /**
+     * Reads what {@link #putStateFixed} wrote. The screen title isn't part of
+     * it, so an open screen comes back with an empty title.
+     */
+    public static GameStateSnapshot getStateFixed(
+        ByteBuffer buf,
+        String dimension
+    ) {
+        long tick = buf.getLong();
+        long capturedAt = buf.getLong();
+        int flags = buf.get();
+        return new GameStateSnapshot(
+            tick,
+            capturedAt,
+            (flags & FLAG_HAS_PLAYER) != 0,
+            buf.getDouble(),
+            buf.getDouble(),
+            buf.getDouble(),
+            buf.getFloat(),
+            buf.getFloat(),
+            buf.getDouble(),
+            buf.getDouble(),
+            buf.getDouble(),
+            (flags & FLAG_ON_GROUND) != 0,
+            (flags & FLAG_HAS_PLAYER) != 0 ? dimension : null,
+            (flags & FLAG_SCREEN_OPEN) != 0 ? "" : null,
+            buf.getFloat(),
+            buf.getFloat(),
+            buf.getInt(),
+            buf.getInt()
+        );
+    }
+
+    /** UTF-8, truncated to what a {@code u16} length can describe. */
+    private static byte[] utf8(String s) {
+        if (s == null) {
+            return new byte[0];
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            return Arrays.copyOf(bytes, 0xffff);
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+}
@@ -0,0 +1,132 @@
+package luisafk.mclocalapi.encoding;
+
+import luisafk.mclocalapi.rest.SseFrameEncoder;
+
+/**
+ * JSON output through {@link SseFrameEncoder}, so numbers and strings come
+ * out exactly as they do on the SSE streams. Nesting is limited to 64
+ * levels.
+ */
+public final class JsonWriter implements StructuredWriter {
+
+    private final SseFrameEncoder out = new SseFrameEncoder();
+
+    /** Bit {@code n} set: the container at depth {@code n} has an element. */
+    private long nonEmpty;
+    private int depth;
+    private boolean afterKey;
+
+    public JsonWriter() {
+        out.reset();
+    }
+
+    @Override
+    public JsonWriter beginMap(int entries) {
+        return open('{');
+    }
+
+    @Override
+    public JsonWriter endMap() {
+        return close('}');
+    }
+
+    @Override
+    public JsonWriter beginArray(int elements) {
+        return open('[');
+    }
+
+    @Override
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    @Override
+    public JsonWriter key(String key) {
+        separate();
+        out.key(key);
+        afterKey = true;
+        return this;
+    }
+
+    @Override
+    public JsonWriter string(String value) {
+        beforeValue();
+        out.string(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter integer(long value) {
+        beforeValue();
+        out.number(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter number(double value) {
+        beforeValue();
+        out.number(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter bool(boolean value) {
+        beforeValue();
+        out.bool(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() {
+        beforeValue();
+        out.nullValue();
+        return this;
+    }
+
+    @Override
+    public JsonWriter reset() {
+        out.reset();
+        nonEmpty = 0;
+        depth = 0;
+        afterKey = false;
+        return this;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private JsonWriter open(char c) {
+        beforeValue();
+        out.raw(c);
+        depth++;
+        nonEmpty &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(char c) {
+        out.raw(c);
+        depth--;
+        return this;
+    }
+
+    private void beforeValue() {
+        if (afterKey) {
+            afterKey = false;
+        } else {
+            separate();
+        }
+    }
+
+    private void separate() {
+        if (depth == 0) {
+            return;
+        }
+        long bit = 1L << depth;
+        if ((nonEmpty & bit) != 0) {
+            out.raw(',');
+        }
+        nonEmpty |= bit;
+    }
+}
@@ -0,0 +1,96 @@
+package luisafk.mclocalapi.encoding;
+
+/**
+ * MessagePack, using the smallest integer, string and container forms.
+ * Floating-point values are always written as float 64.
+ */
+public final class MsgPackWriter extends BinaryWriter {
+
+    @Override
+    public MsgPackWriter beginMap(int entries) {
+        if (entries < 16) {
+            u8(0x80 | entries);
+        } else if (entries < 0x10000) {
+            u8(0xde);
+            u16(entries);
+        } else {
+            u8(0xdf);
+            u32(entries);
+        }
+        return this;
+    }
+
+    @Override
+    public MsgPackWriter beginArray(int elements) {
+        if (elements < 16) {
+            u8(0x90 | elements);
+        } else if (elements < 0x10000) {
+            u8(0xdc);
+            u16(elements);
+        } else {
+            u8(0xdd);
+            u32(elements);
+        }
+        return this;
+    }
+
+    @Override
+    public MsgPackWriter string(String value) {
+        byte[] bytes = utf8(value);
+        int n = bytes.length;
+        if (n < 32) {
+            u8(0xa0 | n);
+        } else if (n < 0x100) {
+            u8(0xd9);
+            u8(n);
+        } else if (n < 0x10000) {
+            u8(0xda);
+            u16(n);
+        } else {
+            u8(0xdb);
+            u32(n);
+        }
+        bytes(bytes);
+        return this;
+    }
+
+    @Override
+    public MsgPackWriter integer(long value) {
+        if (value >= -32 && value <= 127) {
+            // positive / negative fixint
+            u8((int) value & 0xff);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            u8(0xd0);
+            u8((int) value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            u8(0xd1);
+            u16((int) value);
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            u8(0xd2);
+            u32(value);
+        } else {
+            u8(0xd3);
+            u64(value);
+        }
+        return this;
+    }
+
+    @Override
+    public MsgPackWriter number(double value) {
+        u8(0xcb);
+        u64(Double.doubleToLongBits(value));
+        return this;
+    }
+
+    @Override
+    public MsgPackWriter bool(boolean value) {
+        u8(value ? 0xc3 : 0xc2);
+        return this;
+    }
+
+    @Override
+    public MsgPackWriter nullValue() {
+        u8(0xc0);
+        return this;
+    }
+}
@@ -0,0 +1,44 @@
+package luisafk.mclocalapi.encoding;
+
+/**
+ * Writes one document of maps, arrays and scalars in a particular wire
+ * format. Encoders are written against this once and get JSON, CBOR and
+ * MessagePack output from the same code, so the formats can't drift apart.
+ *
+ * <p>Map and array sizes are declared up front because the binary formats
+ * put them in the header; inside a map, call {@link #key} before each value.
+ * Instances are reusable after {@link #reset()} but not thread-safe.
+ */
+public interface StructuredWriter {
+    StructuredWriter beginMap(int entries);
+
+    StructuredWriter endMap();
+
+    StructuredWriter beginArray(int elements);
+
+    StructuredWriter endArray();
+
+    /** Keys must be plain ASCII without characters that need escaping. */
+    StructuredWriter key(String key);
+
+    StructuredWriter string(String value);
+
+    /** Writes {@code null} for a {@code null} value. */
+    default StructuredWriter nullableString(String value) {
+        return value == null ? nullValue() : string(value);
+    }
+
+    StructuredWriter integer(long value);
+
+    StructuredWriter number(double value);
+
+    StructuredWriter bool(boolean value);
+
+    StructuredWriter nullValue();
+
+    /** Discards everything written so far. */
+    StructuredWriter reset();
+
+    /** Copies out the document written since the last {@link #reset()}. */
+    byte[] toByteArray();
+}
@@ -0,0 +1,39 @@
+package luisafk.mclocalapi.events;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * Chat arrives through Fabric callbacks rather than per-tick state, so it is
+ * pushed onto the bus instead of polled. Nothing is captured while nobody is
+ * subscribed to {@link EventTopic#CHAT}.
+ */
+public final class ChatEvents {
+
+    private ChatEvents() {}
+
+    /** Client thread only. */
+    public static void publish(
+        EventBus bus,
+        String type,
+        Component message,
+        boolean overlay
+    ) {
+        if (!bus.isActive(EventTopic.CHAT)) {
+            return;
+        }
+
+        // Components aren't safe to read off the client thread
+        String text = message.getString();
+        bus.emit(EventTopic.CHAT, out ->
+            out
+                .beginMap(3)
+                .key("type")
+                .string(type)
+                .key("overlay")
+                .bool(overlay)
+                .key("text")
+                .string(text)
+                .endMap()
+        );
+    }
+}
@@ -0,0 +1,147 @@
+package luisafk.mclocalapi.events;
+
+import java.nio.charset.StandardCharsets;
+import luisafk.mclocalapi.encoding.Encoding;
+import luisafk.mclocalapi.encoding.StructuredWriter;
+import luisafk.mclocalapi.rest.SseFrame;
+import luisafk.mclocalapi.ws.WebSocketFrames;
+
+/**
+ * One event on the {@link EventBus}. Its payload is encoded the first time a
+ * subscriber needs a given format, and the resulting frames are shared by
+ * every subscriber on that transport. Encoding only happens on the bus's
+ * dispatcher thread.
+ */
+public final class Event {
+
+    private final EventTopic topic;
+    private final long tick;
+    private final EventPayload payload;
+    private final double x;
+    private final double y;
+    private final double z;
+
+    private byte[] json;
+    private SseFrame sseFrame;
+    private byte[] webSocketText;
+    private final byte[][] webSocketBinary =
+        new byte[Encoding.values().length][];
+
+    Event(
+        EventTopic topic,
+        long tick,
+        EventPayload payload,
+        double x,
+        double y,
+        double z
+    ) {
+        this.topic = topic;
+        this.tick = tick;
+        this.payload = payload;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public EventTopic getTopic() {
+        return topic;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /** Whether the event has a location (see {@link #getX()} etc.). */
+    public boolean hasPosition() {
+        return !Double.isNaN(x);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    /** {@code id: <tick>}, {@code event: <topic>}, {@code data: <json>}. */
+    public SseFrame sseFrame() {
+        if (sseFrame == null) {
+            sseFrame = SseFrame.event(topic.id(), tick, json());
+        }
+        return sseFrame;
+    }
+
+    /**
+     * {@code {"op":"event","topic":..,"tick":..,"data":..}} in one frame.
+     * JSON goes in a text frame unless {@code binary} is set; the other
+     * encodings always use binary frames.
+     */
+    public byte[] webSocketFrame(Encoding encoding, boolean binary) {
+        if (encoding == Encoding.JSON && !binary) {
+            if (webSocketText == null) {
+                webSocketText = WebSocketFrames.encode(
+                    WebSocketFrames.OPCODE_TEXT,
+                    jsonEnvelope()
+                );
+            }
+            return webSocketText;
+        }
+
+        int i = encoding.ordinal();
+        if (webSocketBinary[i] == null) {
+            webSocketBinary[i] = WebSocketFrames.encode(
+                WebSocketFrames.OPCODE_BINARY,
+                encoding == Encoding.JSON
+                    ? jsonEnvelope()
+                    : envelope(encoding.newWriter())
+            );
+        }
+        return webSocketBinary[i];
+    }
+
+    private byte[] json() {
+        if (json == null) {
+            StructuredWriter out = Encoding.JSON.newWriter();
+            payload.write(out);
+            json = out.toByteArray();
+        }
+        return json;
+    }
+
+    /** Splices the cached JSON data into the envelope. */
+    private byte[] jsonEnvelope() {
+        byte[] data = json();
+        byte[] head = (
+            "{\"op\":\"event\",\"topic\":\"" +
+            topic.id() +
+            "\",\"tick\":" +
+            tick +
+            ",\"data\":"
+        ).getBytes(StandardCharsets.UTF_8);
+
+        byte[] envelope = new byte[head.length + data.length + 1];
+        System.arraycopy(head, 0, envelope, 0, head.length);
+        System.arraycopy(data, 0, envelope, head.length, data.length);
+        envelope[envelope.length - 1] = '}';
+        return envelope;
+    }
+
+    private byte[] envelope(StructuredWriter out) {
+        out
+            .beginMap(4)
+            .key("op")
+            .string("event")
+            .key("topic")
+            .string(topic.id())
+            .key("tick")
+            .integer(tick)
+            .key("data");
+        payload.write(out);
+        return out.endMap().toByteArray();
+    }
+}
@@ -0,0 +1,161 @@
+package luisafk.mclocalapi.events;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Routes game events to SSE and WebSocket subscribers by topic.
+ *
+ * <p>Producers run on the client thread, and only for topics that currently
+ * have a subscriber. They queue a payload of plain values; a dispatcher
+ * thread applies every subscription's filter and hands the event to its
+ * sink, which encodes it once per format in use. The client thread never
+ * touches a subscriber or an encoder.
+ */
+public class EventBus {
+
+    private final List<EventProducer> producers = new ArrayList<>();
+    private final AtomicIntegerArray topicSubscribers =
+        new AtomicIntegerArray(EventTopic.values().length);
+    private final boolean[] wasActive = new boolean[EventTopic.values().length];
+    private final List<EventSubscription> subscriptions =
+        new CopyOnWriteArrayList<>();
+    private final Queue<Event> inbound = new ConcurrentLinkedQueue<>();
+
+    /** Client thread only. */
+    private long tick;
+    private volatile Thread dispatcher;
+
+    /** Client thread only, during start-up. */
+    public void register(EventProducer producer) {
+        producers.add(producer);
+    }
+
+    public boolean isActive(EventTopic topic) {
+        return topicSubscribers.get(topic.ordinal()) > 0;
+    }
+
+    /** Polls the producers of every active topic. Client thread only. */
+    public void tick(GameStateSnapshot state) {
+        tick = state.tick();
+
+        for (EventProducer producer : producers) {
+            int i = producer.topic().ordinal();
+            boolean active = isActive(producer.topic());
+            if (active && !wasActive[i]) {
+                producer.reset();
+            }
+            wasActive[i] = active;
+
+            if (active) {
+                producer.poll(state, this);
+            }
+        }
+    }
+
+    public void emit(EventTopic topic, EventPayload payload) {
+        emit(topic, payload, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /** Emits an event at a location, for bounding box filters. */
+    public void emit(
+        EventTopic topic,
+        EventPayload payload,
+        double x,
+        double y,
+        double z
+    ) {
+        if (!isActive(topic)) {
+            return;
+        }
+
+        inbound.add(new Event(topic, tick, payload, x, y, z));
+
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Subscribes {@code sink} to {@code topics}. The sink is called on the
+     * dispatcher thread and must only enqueue.
+     */
+    public EventSubscription subscribe(
+        Set<EventTopic> topics,
+        EventFilter filter,
+        Consumer<Event> sink
+    ) {
+        EventSubscription subscription = new EventSubscription(
+            this,
+            filter,
+            sink
+        );
+        subscriptions.add(subscription);
+        updateTopics(subscription, topics);
+        ensureDispatcher();
+        return subscription;
+    }
+
+    public void unsubscribe(EventSubscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            updateTopics(subscription, EnumSet.noneOf(EventTopic.class));
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    synchronized void updateTopics(
+        EventSubscription subscription,
+        Set<EventTopic> topics
+    ) {
+        Set<EventTopic> old = subscription.swapTopics(topics);
+        for (EventTopic topic : old) {
+            topicSubscribers.decrementAndGet(topic.ordinal());
+        }
+        for (EventTopic topic : subscription.getTopics()) {
+            topicSubscribers.incrementAndGet(topic.ordinal());
+        }
+    }
+
+    private synchronized void ensureDispatcher() {
+        if (dispatcher != null) {
+            return;
+        }
+
+        dispatcher = Thread.ofPlatform()
+            .daemon()
+            .name("mc-local-api-events-dispatcher")
+            .start(this::dispatchLoop);
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            Event event;
+            while ((event = inbound.poll()) != null) {
+                for (EventSubscription subscription : subscriptions) {
+                    try {
+                        subscription.deliver(event);
+                    } catch (Exception e) {
+                        logger.error("Error delivering event", e);
+                    }
+                }
+            }
+
+            LockSupport.park(this);
+        }
+    }
+}
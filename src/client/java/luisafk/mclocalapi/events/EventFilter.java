@@ -0,0 +1,99 @@
+package luisafk.mclocalapi.events;
+
+/**
+ * Server-side filtering for an {@link EventSubscription}. Events without a
+ * position always pass the bounding box.
+ *
+ * @param minIntervalMillis minimum time between two delivered events of the
+ *                          same topic; 0 delivers everything
+ */
+public record EventFilter(
+    double minX,
+    double minY,
+    double minZ,
+    double maxX,
+    double maxY,
+    double maxZ,
+    long minIntervalMillis
+) {
+    public static final EventFilter NONE = new EventFilter(
+        Double.NEGATIVE_INFINITY,
+        Double.NEGATIVE_INFINITY,
+        Double.NEGATIVE_INFINITY,
+        Double.POSITIVE_INFINITY,
+        Double.POSITIVE_INFINITY,
+        Double.POSITIVE_INFINITY,
+        0
+    );
+
+    /**
+     * Parses the {@code bbox} and {@code minIntervalMs} parameters, either of
+     * which may be {@code null}. A bounding box is {@code x1,z1,x2,z2} (any
+     * height) or {@code x1,y1,z1,x2,y2,z2}.
+     *
+     * @throws IllegalArgumentException if either is malformed
+     */
+    public static EventFilter parse(String bbox, String minIntervalMs) {
+        long minInterval = 0;
+        if (minIntervalMs != null) {
+            minInterval = Long.parseLong(minIntervalMs);
+            if (minInterval < 0) {
+                throw new IllegalArgumentException("minIntervalMs < 0");
+            }
+        }
+
+        if (bbox == null) {
+            return new EventFilter(
+                NONE.minX,
+                NONE.minY,
+                NONE.minZ,
+                NONE.maxX,
+                NONE.maxY,
+                NONE.maxZ,
+                minInterval
+            );
+        }
+
+        String[] parts = bbox.split(",");
+        double[] v = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            v[i] = Double.parseDouble(parts[i].trim());
+        }
+
+        return switch (v.length) {
+            case 4 -> new EventFilter(
+                Math.min(v[0], v[2]),
+                Double.NEGATIVE_INFINITY,
+                Math.min(v[1], v[3]),
+                Math.max(v[0], v[2]),
+                Double.POSITIVE_INFINITY,
+                Math.max(v[1], v[3]),
+                minInterval
+            );
+            case 6 -> new EventFilter(
+                Math.min(v[0], v[3]),
+                Math.min(v[1], v[4]),
+                Math.min(v[2], v[5]),
+                Math.max(v[0], v[3]),
+                Math.max(v[1], v[4]),
+                Math.max(v[2], v[5]),
+                minInterval
+            );
+            default -> throw new IllegalArgumentException(
+                "bbox must have 4 or 6 numbers"
+            );
+        };
+    }
+
+    boolean contains(Event event) {
+        return (
+            !event.hasPosition() ||
+            (event.getX() >= minX &&
+                event.getX() <= maxX &&
+                event.getY() >= minY &&
+                event.getY() <= maxY &&
+                event.getZ() >= minZ &&
+                event.getZ() <= maxZ)
+        );
+    }
+}
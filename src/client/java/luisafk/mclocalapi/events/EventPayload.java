@@ -0,0 +1,13 @@
+package luisafk.mclocalapi.events;
+
+import luisafk.mclocalapi.encoding.StructuredWriter;
+
+/**
+ * An event's data, captured on the client thread as plain values and
+ * written out on the dispatcher thread once per encoding that is actually
+ * subscribed.
+ */
+@FunctionalInterface
+public interface EventPayload {
+    void write(StructuredWriter out);
+}
@@ -0,0 +1,24 @@
+package luisafk.mclocalapi.events;
+
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Turns per-tick game state into events for one topic. The bus only polls a
+ * producer while its topic has subscribers, so change detection and encoding
+ * cost nothing for topics nobody consumes.
+ */
+public interface EventProducer {
+    EventTopic topic();
+
+    /**
+     * Called once per tick on the client thread while the topic is active.
+     * Emit events through {@code bus}.
+     */
+    void poll(GameStateSnapshot state, EventBus bus);
+
+    /**
+     * Called when the topic becomes active again after having had no
+     * subscribers, so stale change-detection state is dropped.
+     */
+    default void reset() {}
+}
@@ -0,0 +1,64 @@
+package luisafk.mclocalapi.events;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A subscriber's topics, filter and sink. The sink is called on the bus's
+ * dispatcher thread and must not block (typically it only enqueues).
+ */
+public final class EventSubscription {
+
+    private final EventBus bus;
+    private final EventFilter filter;
+    private final Consumer<Event> sink;
+    private final long[] lastDelivered = new long[EventTopic.values().length];
+    private volatile Set<EventTopic> topics = EnumSet.noneOf(EventTopic.class);
+
+    EventSubscription(EventBus bus, EventFilter filter, Consumer<Event> sink) {
+        this.bus = bus;
+        this.filter = filter;
+        this.sink = sink;
+    }
+
+    public Set<EventTopic> getTopics() {
+        return topics;
+    }
+
+    /** Replaces the subscribed topics, keeping the bus's counts in step. */
+    public void setTopics(Set<EventTopic> newTopics) {
+        bus.updateTopics(this, newTopics);
+    }
+
+    /** Only called by the bus, under its lock. */
+    Set<EventTopic> swapTopics(Set<EventTopic> newTopics) {
+        Set<EventTopic> old = topics;
+        topics = newTopics.isEmpty()
+            ? EnumSet.noneOf(EventTopic.class)
+            : EnumSet.copyOf(newTopics);
+        return old;
+    }
+
+    /** Dispatcher thread only. */
+    void deliver(Event event) {
+        EventTopic topic = event.getTopic();
+        if (!topics.contains(topic) || !filter.contains(event)) {
+            return;
+        }
+
+        if (filter.minIntervalMillis() > 0) {
+            long now = System.currentTimeMillis();
+            int i = topic.ordinal();
+            if (
+                lastDelivered[i] != 0 &&
+                now - lastDelivered[i] < filter.minIntervalMillis()
+            ) {
+                return;
+            }
+            lastDelivered[i] = now;
+        }
+
+        sink.accept(event);
+    }
+}
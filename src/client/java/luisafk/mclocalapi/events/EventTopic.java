@@ -0,0 +1,31 @@
+package luisafk.mclocalapi.events;
+
+/** Kinds of live events clients can subscribe to. */
+public enum EventTopic {
+    /** Player position, subject to the stream distance threshold. */
+    POSITION,
+    /** The player changed dimension. */
+    WORLD,
+    /** A screen opened, closed or changed title. */
+    SCREEN,
+    /** Chat and game messages received by the client. */
+    CHAT,
+    /** Health, max health or food level changed. */
+    HEALTH;
+
+    private final String id = name().toLowerCase();
+
+    /** Name used in URLs and on the wire. */
+    public String id() {
+        return id;
+    }
+
+    public static EventTopic fromId(String id) {
+        for (EventTopic topic : values()) {
+            if (topic.id.equals(id)) {
+                return topic;
+            }
+        }
+        return null;
+    }
+}
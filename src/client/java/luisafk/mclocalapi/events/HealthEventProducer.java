@@ -0,0 +1,66 @@
+package luisafk.mclocalapi.events;
+
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * {@code {"health":..,"maxHealth":..,"food":..}} whenever any of them
+ * changes.
+ */
+public class HealthEventProducer implements EventProducer {
+
+    private float lastHealth;
+    private float lastMaxHealth;
+    private int lastFood;
+    private boolean hasLast;
+
+    @Override
+    public EventTopic topic() {
+        return EventTopic.HEALTH;
+    }
+
+    @Override
+    public void poll(GameStateSnapshot state, EventBus bus) {
+        if (!state.hasPlayer()) {
+            return;
+        }
+
+        if (
+            hasLast &&
+            state.health() == lastHealth &&
+            state.maxHealth() == lastMaxHealth &&
+            state.foodLevel() == lastFood
+        ) {
+            return;
+        }
+
+        float health = state.health();
+        float maxHealth = state.maxHealth();
+        int food = state.foodLevel();
+        lastHealth = health;
+        lastMaxHealth = maxHealth;
+        lastFood = food;
+        hasLast = true;
+
+        bus.emit(
+            EventTopic.HEALTH,
+            out ->
+                out
+                    .beginMap(3)
+                    .key("health")
+                    .number(health)
+                    .key("maxHealth")
+                    .number(maxHealth)
+                    .key("food")
+                    .integer(food)
+                    .endMap(),
+            state.x(),
+            state.y(),
+            state.z()
+        );
+    }
+
+    @Override
+    public void reset() {
+        hasLast = false;
+    }
+}
@@ -0,0 +1,59 @@
+package luisafk.mclocalapi.events;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import luisafk.mclocalapi.encoding.GameStateCodec;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * {@code {"x":..,"y":..,"z":..}} whenever the player has moved further than
+ * {@code playerPositionStreamDistanceThreshold}.
+ */
+public class PositionEventProducer implements EventProducer {
+
+    private double lastX;
+    private double lastY;
+    private double lastZ;
+    private boolean hasLast;
+
+    @Override
+    public EventTopic topic() {
+        return EventTopic.POSITION;
+    }
+
+    @Override
+    public void poll(GameStateSnapshot state, EventBus bus) {
+        if (!state.hasPlayer()) {
+            return;
+        }
+
+        double dx = state.x() - lastX;
+        double dy = state.y() - lastY;
+        double dz = state.z() - lastZ;
+        double threshold = config.playerPositionStreamDistanceThreshold;
+        if (hasLast && dx * dx + dy * dy + dz * dz <= threshold * threshold) {
+            return;
+        }
+
+        lastX = state.x();
+        lastY = state.y();
+        lastZ = state.z();
+        hasLast = true;
+
+        double x = state.x();
+        double y = state.y();
+        double z = state.z();
+        bus.emit(
+            EventTopic.POSITION,
+            out -> GameStateCodec.writePosition(out, x, y, z),
+            x,
+            y,
+            z
+        );
+    }
+
+    @Override
+    public void reset() {
+        hasLast = false;
+    }
+}
@@ -0,0 +1,42 @@
+package luisafk.mclocalapi.events;
+
+import java.util.Objects;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/** {@code {"open":..,"title":..}} whenever a screen opens, closes or changes. */
+public class ScreenEventProducer implements EventProducer {
+
+    private String lastTitle;
+    private boolean hasLast;
+
+    @Override
+    public EventTopic topic() {
+        return EventTopic.SCREEN;
+    }
+
+    @Override
+    public void poll(GameStateSnapshot state, EventBus bus) {
+        String title = state.screenTitle();
+        if (hasLast && Objects.equals(title, lastTitle)) {
+            return;
+        }
+
+        lastTitle = title;
+        hasLast = true;
+
+        bus.emit(EventTopic.SCREEN, out ->
+            out
+                .beginMap(2)
+                .key("open")
+                .bool(title != null)
+                .key("title")
+                .nullableString(title)
+                .endMap()
+        );
+    }
+
+    @Override
+    public void reset() {
+        hasLast = false;
+    }
+}
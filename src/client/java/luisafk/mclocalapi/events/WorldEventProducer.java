@@ -0,0 +1,37 @@
+package luisafk.mclocalapi.events;
+
+import java.util.Objects;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/** The dimension ID as a JSON string whenever it changes. */
+public class WorldEventProducer implements EventProducer {
+
+    private String lastWorld;
+
+    @Override
+    public EventTopic topic() {
+        return EventTopic.WORLD;
+    }
+
+    @Override
+    public void poll(GameStateSnapshot state, EventBus bus) {
+        if (!state.hasPlayer() || Objects.equals(state.dimension(), lastWorld)) {
+            return;
+        }
+
+        String world = state.dimension();
+        lastWorld = world;
+        bus.emit(
+            EventTopic.WORLD,
+            out -> out.string(world),
+            state.x(),
+            state.y(),
+            state.z()
+        );
+    }
+
+    @Override
+    public void reset() {
+        lastWorld = null;
+    }
+}
@@ -0,0 +1,90 @@
+package luisafk.mclocalapi.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A box of blocks, inclusive on both ends, and the sections it touches.
+ * Section coordinates are block coordinates divided by 16, rounding down.
+ * Sections above or below any possible world aren't counted as touched.
+ */
+public record BlockRegion(
+    int minX,
+    int minY,
+    int minZ,
+    int maxX,
+    int maxY,
+    int maxZ
+) {
+    public record SectionPos(int x, int y, int z) {}
+
+    /** The lowest section of any world; dimensions start at y >= -2032. */
+    public static final int MIN_WORLD_SECTION_Y = -2032 >> 4;
+    /** The highest section of any world; dimensions end at y <= 2031. */
+    public static final int MAX_WORLD_SECTION_Y = 2031 >> 4;
+
+    public BlockRegion {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            throw new IllegalArgumentException("min must not exceed max");
+        }
+    }
+
+    public int minSectionX() {
+        return minX >> 4;
+    }
+
+    public int minSectionY() {
+        return Math.max(minY >> 4, MIN_WORLD_SECTION_Y);
+    }
+
+    public int minSectionZ() {
+        return minZ >> 4;
+    }
+
+    public int maxSectionX() {
+        return maxX >> 4;
+    }
+
+    public int maxSectionY() {
+        return Math.min(maxY >> 4, MAX_WORLD_SECTION_Y);
+    }
+
+    public int maxSectionZ() {
+        return maxZ >> 4;
+    }
+
+    /**
+     * How many sections the box touches, loaded or not, or
+     * {@link Long#MAX_VALUE} if that doesn't fit in a {@code long}.
+     */
+    public long sectionCount() {
+        long spanX = (long) maxSectionX() - minSectionX() + 1;
+        long spanY = Math.max(0, (long) maxSectionY() - minSectionY() + 1);
+        long spanZ = (long) maxSectionZ() - minSectionZ() + 1;
+        try {
+            return Math.multiplyExact(spanX * spanY, spanZ);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Every section the box touches, a column at a time, bottom up. Check
+     * {@link #sectionCount()} first; this is only for boxes of sensible size.
+     */
+    public List<SectionPos> sections() {
+        long count = sectionCount();
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException(count + " sections is too many");
+        }
+        List<SectionPos> sections = new ArrayList<>((int) count);
+        for (int x = minSectionX(); x <= maxSectionX(); x++) {
+            for (int z = minSectionZ(); z <= maxSectionZ(); z++) {
+                for (int y = minSectionY(); y <= maxSectionY(); y++) {
+                    sections.add(new SectionPos(x, y, z));
+                }
+            }
+        }
+        return sections;
+    }
+}
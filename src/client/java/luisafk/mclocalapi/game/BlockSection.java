@@ -0,0 +1,19 @@
+package luisafk.mclocalapi.game;
+
+/**
+ * A copy of one 16×16×16 section of blocks, taken on the client thread and
+ * safe to read from any other. {@code S} is the game's block state type;
+ * states are compared with {@code equals}.
+ */
+public interface BlockSection<S> {
+    int SIZE = 16;
+
+    /** The state at local coordinates, each from 0 to 15. */
+    S get(int x, int y, int z);
+
+    /**
+     * A state as its block ID and properties, like the {@code /setblock}
+     * syntax: {@code minecraft:oak_log[axis=y]}.
+     */
+    String name(S state);
+}
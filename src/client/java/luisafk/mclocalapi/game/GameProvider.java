@@ -0,0 +1,66 @@
+package luisafk.mclocalapi.game;
+
+import java.util.List;
+import java.util.Map;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Everything the API reads from or does to the game, so that it can run
+ * against the live client ({@link MinecraftGameProvider}) or a stand-in
+ * ({@link HeadlessGameProvider}). Methods marked "client thread" must only be
+ * called from the thread that ticks the game.
+ */
+public interface GameProvider {
+    /** This tick's state. Client thread. */
+    GameStateSnapshot capture(long tick, long now);
+
+    /**
+     * A cheaper {@link #capture} that only reads the player's movement and
+     * dimension, copying the other fields from {@code previous}. Client
+     * thread.
+     */
+    default GameStateSnapshot captureMovement(
+        long tick,
+        long now,
+        GameStateSnapshot previous
+    ) {
+        return capture(tick, now);
+    }
+
+    /** Recent time between rendered frames. */
+    long frameNanos();
+
+    /** Whether chat can be sent right now. Client thread. */
+    boolean canSendChat();
+
+    /** Client thread, and only when {@link #canSendChat()}. */
+    void sendCommand(String command);
+
+    /** Client thread, and only when {@link #canSendChat()}. */
+    void sendChat(String message);
+
+    /** The game and its version, e.g. {@code Minecraft 26.2}. */
+    String name();
+
+    /** A longer form of {@link #name()}, for the root endpoint. */
+    String description();
+
+    /** Loaded mods' IDs and versions. */
+    Map<String, String> mods();
+
+    /** The current world's waypoints, or {@code null} if there are none. */
+    WaypointStore waypoints();
+
+    /**
+     * Copies the section at section coordinates, or returns {@code null} if
+     * its chunk isn't loaded or it's outside the world's height. Client
+     * thread.
+     */
+    BlockSection<?> copySection(int x, int y, int z);
+
+    /**
+     * Entities other than the player within {@code radius} blocks of it on
+     * each axis, or none if there is no player. Client thread.
+     */
+    List<NearbyEntity> nearbyEntities(double radius);
+}
@@ -0,0 +1,349 @@
+package luisafk.mclocalapi.game;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * A stand-in for the game, for running the API without Minecraft. A player
+ * walks in a circle, moving to the next dimension every
+ * {@code ticksPerDimension} ticks, slowly losing health as they go. Each
+ * dimension has its own waypoints, scattered around the origin from a fixed
+ * seed. Chunks within {@code LOADED_CHUNK_RADIUS} of the player are loaded,
+ * with flat, layered terrain. Mobs wander near the path, each despawning
+ * now and then and spawning again with a new ID, and two other players
+ * circle the player. Chat is counted and logged at debug level.
+ */
+public class HeadlessGameProvider implements GameProvider {
+
+    private static final String[] DIMENSIONS = {
+        "minecraft:overworld",
+        "minecraft:the_nether",
+        "minecraft:the_end",
+    };
+    private static final double RADIUS = 200;
+    /** Walking speed, in blocks per tick. */
+    private static final double SPEED = 0.2;
+
+    private static final int LOADED_CHUNK_RADIUS = 8;
+    private static final int MIN_SECTION_Y = -4;
+    private static final int MAX_SECTION_Y = 19;
+
+    private static final String[] MOB_TYPES = {
+        "minecraft:zombie",
+        "minecraft:skeleton",
+        "minecraft:creeper",
+        "minecraft:spider",
+        "minecraft:cow",
+        "minecraft:sheep",
+    };
+    private static final int MOBS = 256;
+    /** Ticks between a mob's spawns, of which it's alive for three quarters. */
+    private static final int MOB_LIFETIME = 1600;
+    private static final int OTHER_PLAYERS = 2;
+    private static final double OTHER_PLAYER_DISTANCE = 16;
+
+    private final int waypointsPerDimension;
+    private final long ticksPerDimension;
+    private final Map<String, SyntheticWaypointStore> waypoints =
+        new ConcurrentHashMap<>();
+    private final LongAdder chatSent = new LongAdder();
+
+    private volatile String dimension = DIMENSIONS[0];
+    private volatile int chunkX;
+    private volatile int chunkZ;
+    private volatile long tick;
+    private volatile double playerX;
+    private volatile double playerZ;
+
+    public HeadlessGameProvider() {
+        this(1000, 6000);
+    }
+
+    public HeadlessGameProvider(
+        int waypointsPerDimension,
+        long ticksPerDimension
+    ) {
+        this.waypointsPerDimension = waypointsPerDimension;
+        this.ticksPerDimension = Math.max(1, ticksPerDimension);
+    }
+
+    @Override
+    public GameStateSnapshot capture(long tick, long now) {
+        dimension = DIMENSIONS[
+            (int) ((tick / ticksPerDimension) % DIMENSIONS.length)
+        ];
+
+        double angle = (tick * SPEED) / RADIUS;
+        double heading = angle + Math.PI / 2;
+        double velocityX = Math.cos(heading) * SPEED;
+        double velocityZ = Math.sin(heading) * SPEED;
+        double x = Math.cos(angle) * RADIUS;
+        double z = Math.sin(angle) * RADIUS;
+        chunkX = (int) Math.floor(x) >> 4;
+        chunkZ = (int) Math.floor(z) >> 4;
+        this.tick = tick;
+        playerX = x;
+        playerZ = z;
+
+        return new GameStateSnapshot(
+            tick,
+            now,
+            true,
+            x,
+            64,
+            z,
+            // Minecraft's yaw is 0 facing +Z and grows clockwise
+            (float) Math.toDegrees(Math.atan2(-velocityX, velocityZ)),
+            0,
+            velocityX,
+            0,
+            velocityZ,
+            true,
+            dimension,
+            null,
+            20 - (tick / 200) % 20,
+            20,
+            20,
+            (int) (tick / 1200)
+        );
+    }
+
+    /** Nothing is rendered; this is a steady 60 fps. */
+    @Override
+    public long frameNanos() {
+        return 1_000_000_000L / 60;
+    }
+
+    @Override
+    public boolean canSendChat() {
+        return true;
+    }
+
+    @Override
+    public void sendCommand(String command) {
+        chatSent.increment();
+        logger.debug("Headless command: /{}", command);
+    }
+
+    @Override
+    public void sendChat(String message) {
+        chatSent.increment();
+        logger.debug("Headless chat: {}", message);
+    }
+
+    /** Commands and messages sent so far. */
+    public long getChatSent() {
+        return chatSent.sum();
+    }
+
+    @Override
+    public String name() {
+        return "headless";
+    }
+
+    @Override
+    public String description() {
+        return "a headless stand-in";
+    }
+
+    @Override
+    public Map<String, String> mods() {
+        return Map.of("mc-local-api", "dev");
+    }
+
+    @Override
+    public WaypointStore waypoints() {
+        return waypoints.computeIfAbsent(dimension, id ->
+            new SyntheticWaypointStore(id.hashCode(), waypointsPerDimension)
+        );
+    }
+
+    @Override
+    public BlockSection<?> copySection(int x, int y, int z) {
+        if (
+            y < MIN_SECTION_Y ||
+            y > MAX_SECTION_Y ||
+            Math.abs(x - chunkX) > LOADED_CHUNK_RADIUS ||
+            Math.abs(z - chunkZ) > LOADED_CHUNK_RADIUS
+        ) {
+            return null;
+        }
+        return new SyntheticSection(x << 4, y << 4, z << 4);
+    }
+
+    @Override
+    public List<NearbyEntity> nearbyEntities(double radius) {
+        long tick = this.tick;
+        double x = playerX;
+        double z = playerZ;
+        List<NearbyEntity> nearby = new ArrayList<>();
+
+        if (radius >= OTHER_PLAYER_DISTANCE) {
+            for (int i = 0; i < OTHER_PLAYERS; i++) {
+                double angle =
+                    tick * 0.05 + (i * 2 * Math.PI) / OTHER_PLAYERS;
+                nearby.add(
+                    new NearbyEntity(
+                        i + 1,
+                        "minecraft:player",
+                        x + Math.cos(angle) * OTHER_PLAYER_DISTANCE,
+                        64,
+                        z + Math.sin(angle) * OTHER_PLAYER_DISTANCE
+                    )
+                );
+            }
+        }
+
+        for (int i = 0; i < MOBS; i++) {
+            long age = tick + i * 37L;
+            long generation = age / MOB_LIFETIME;
+            if (age % MOB_LIFETIME >= (MOB_LIFETIME * 3) / 4) {
+                continue;
+            }
+
+            // Spread along the player's circle, wandering in small ones
+            double anchor = (i * 2 * Math.PI) / MOBS;
+            double offset = ((i % 7) - 3) * 4;
+            double wander = age * 0.02 + i;
+            double mobX =
+                Math.cos(anchor) * (RADIUS + offset) + Math.cos(wander) * 3;
+            double mobZ =
+                Math.sin(anchor) * (RADIUS + offset) + Math.sin(wander) * 3;
+            if (
+                Math.abs(mobX - x) > radius || Math.abs(mobZ - z) > radius
+            ) {
+                continue;
+            }
+
+            nearby.add(
+                new NearbyEntity(
+                    (int) (OTHER_PLAYERS + 1 + generation * MOBS + i),
+                    MOB_TYPES[i % MOB_TYPES.length],
+                    mobX,
+                    64,
+                    mobZ
+                )
+            );
+        }
+        return nearby;
+    }
+
+    /**
+     * Terrain is a function of position, so a copy is just its origin.
+     * Grass at y = 64 over dirt, stone with scattered iron ore, deepslate
+     * below 0 and bedrock at the bottom.
+     */
+    private record SyntheticSection(int originX, int originY, int originZ)
+        implements BlockSection<String> {
+        @Override
+        public String get(int x, int y, int z) {
+            int blockY = originY + y;
+            if (blockY > 64) {
+                return "minecraft:air";
+            } else if (blockY == 64) {
+                return "minecraft:grass_block[snowy=false]";
+            } else if (blockY >= 60) {
+                return "minecraft:dirt";
+            } else if (blockY == MIN_SECTION_Y * 16) {
+                return "minecraft:bedrock";
+            }
+
+            long hash =
+                (originX + x) * 73_856_093L ^
+                blockY * 19_349_663L ^
+                (originZ + z) * 83_492_791L;
+            if (Math.floorMod(hash, 97) == 0) {
+                return "minecraft:iron_ore";
+            }
+            return blockY < 0
+                ? "minecraft:deepslate[axis=y]"
+                : "minecraft:stone";
+        }
+
+        @Override
+        public String name(String state) {
+            return state;
+        }
+    }
+
+    /**
+     * Sets are copy-on-write and only added to, so readers never need a
+     * lock; the fingerprint is a modification count.
+     */
+    private static final class SyntheticWaypointStore implements WaypointStore {
+
+        private static final String[] SYMBOLS = { "H", "B", "M", "F", "X" };
+
+        private final List<SyntheticSet> sets = new CopyOnWriteArrayList<>();
+        private final AtomicLong modifications = new AtomicLong();
+
+        SyntheticWaypointStore(long seed, int count) {
+            Random random = new Random(seed);
+            List<Waypoint> waypoints = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                waypoints.add(
+                    new Waypoint(
+                        "Waypoint " + i,
+                        SYMBOLS[random.nextInt(SYMBOLS.length)],
+                        random.nextInt(-5000, 5000),
+                        random.nextInt(-60, 256),
+                        random.nextInt(-5000, 5000),
+                        random.nextInt(16),
+                        random.nextInt(10) == 0
+                    )
+                );
+            }
+            sets.add(
+                new SyntheticSet("gui.xaero_default", List.copyOf(waypoints))
+            );
+        }
+
+        @Override
+        public Iterable<SyntheticSet> sets() {
+            return sets;
+        }
+
+        @Override
+        public synchronized Object addSet(String name) {
+            for (SyntheticSet set : sets) {
+                if (set.name().equals(name)) {
+                    return set;
+                }
+            }
+
+            SyntheticSet set = new SyntheticSet(name, List.of());
+            sets.add(set);
+            modifications.incrementAndGet();
+            return set;
+        }
+
+        @Override
+        public Object describeSets() {
+            return List.copyOf(sets);
+        }
+
+        @Override
+        public Object fingerprint() {
+            return modifications.get();
+        }
+    }
+
+    private record SyntheticSet(
+        String name,
+        List<WaypointStore.Waypoint> waypoints
+    ) implements WaypointStore.Set {
+        @Override
+        public int size() {
+            return waypoints.size();
+        }
+    }
+}
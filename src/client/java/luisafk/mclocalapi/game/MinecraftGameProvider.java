@@ -0,0 +1,230 @@
+package luisafk.mclocalapi.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import luisafk.mclocalapi.xaero.XaeroWaypointStore;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.SharedConstants;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.commands.arguments.blocks.BlockStateParser;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.phys.Vec3;
+
+/** The live client, with Xaero's Minimap for waypoints. */
+public class MinecraftGameProvider implements GameProvider {
+
+    private final Minecraft mc;
+    private final FabricLoader fabricLoader;
+
+    public MinecraftGameProvider(Minecraft mc, FabricLoader fabricLoader) {
+        this.mc = mc;
+        this.fabricLoader = fabricLoader;
+    }
+
+    @Override
+    public GameStateSnapshot capture(long tick, long now) {
+        var screen = mc.gui.screen();
+        String screenTitle =
+            screen == null ? null : screen.getTitle().getString();
+
+        LocalPlayer player = mc.player;
+        if (player == null || mc.level == null) {
+            return GameStateSnapshot.noPlayer(tick, now, screenTitle);
+        }
+
+        Vec3 pos = player.position();
+        Vec3 velocity = player.getDeltaMovement();
+
+        return new GameStateSnapshot(
+            tick,
+            now,
+            true,
+            pos.x,
+            pos.y,
+            pos.z,
+            player.getYRot(),
+            player.getXRot(),
+            velocity.x,
+            velocity.y,
+            velocity.z,
+            player.onGround(),
+            mc.level.dimension().identifier().toString(),
+            screenTitle,
+            player.getHealth(),
+            player.getMaxHealth(),
+            player.getFoodData().getFoodLevel(),
+            player.experienceLevel
+        );
+    }
+
+    @Override
+    public GameStateSnapshot captureMovement(
+        long tick,
+        long now,
+        GameStateSnapshot previous
+    ) {
+        LocalPlayer player = mc.player;
+        if (player == null || mc.level == null || !previous.hasPlayer()) {
+            return capture(tick, now);
+        }
+
+        // Skips the screen title most of all, which renders a component
+        Vec3 pos = player.position();
+        Vec3 velocity = player.getDeltaMovement();
+
+        return new GameStateSnapshot(
+            tick,
+            now,
+            true,
+            pos.x,
+            pos.y,
+            pos.z,
+            player.getYRot(),
+            player.getXRot(),
+            velocity.x,
+            velocity.y,
+            velocity.z,
+            player.onGround(),
+            mc.level.dimension().identifier().toString(),
+            previous.screenTitle(),
+            previous.health(),
+            previous.maxHealth(),
+            previous.foodLevel(),
+            previous.experienceLevel()
+        );
+    }
+
+    @Override
+    public long frameNanos() {
+        // Updated once a second
+        return 1_000_000_000L / Math.max(1, mc.getFps());
+    }
+
+    @Override
+    public boolean canSendChat() {
+        return mc.player != null && mc.getConnection() != null;
+    }
+
+    @Override
+    public void sendCommand(String command) {
+        mc.getConnection().sendCommand(command);
+    }
+
+    @Override
+    public void sendChat(String message) {
+        mc.getConnection().sendChat(message);
+    }
+
+    @Override
+    public String name() {
+        return "Minecraft " + SharedConstants.getCurrentVersion().id();
+    }
+
+    @Override
+    public String description() {
+        return (
+            "Minecraft " +
+            mc.getLaunchedVersion() +
+            " " +
+            SharedConstants.getCurrentVersion().name()
+        );
+    }
+
+    @Override
+    public Map<String, String> mods() {
+        Map<String, String> mods = new HashMap<>();
+        fabricLoader
+            .getAllMods()
+            .forEach(modContainer -> {
+                var metadata = modContainer.getMetadata();
+                mods.put(
+                    metadata.getId(),
+                    metadata.getVersion().getFriendlyString()
+                );
+            });
+        return mods;
+    }
+
+    @Override
+    public WaypointStore waypoints() {
+        return XaeroWaypointStore.current();
+    }
+
+    @Override
+    public BlockSection<?> copySection(int x, int y, int z) {
+        ClientLevel level = mc.level;
+        if (
+            level == null ||
+            y < level.getMinSectionY() ||
+            y > level.getMaxSectionY()
+        ) {
+            return null;
+        }
+
+        LevelChunk chunk = level
+            .getChunkSource()
+            .getChunk(x, z, ChunkStatus.FULL, false);
+        if (chunk == null) {
+            return null;
+        }
+
+        // Copies the palette and packed data, not one state per block
+        return new Section(
+            chunk
+                .getSection(level.getSectionIndexFromSectionY(y))
+                .getStates()
+                .copy()
+        );
+    }
+
+    @Override
+    public List<NearbyEntity> nearbyEntities(double radius) {
+        LocalPlayer player = mc.player;
+        ClientLevel level = mc.level;
+        if (player == null || level == null) {
+            return List.of();
+        }
+
+        // Only looks in the entity sections the box overlaps
+        List<Entity> entities = level.getEntities(
+            player,
+            player.getBoundingBox().inflate(radius)
+        );
+        List<NearbyEntity> nearby = new ArrayList<>(entities.size());
+        for (Entity entity : entities) {
+            nearby.add(
+                new NearbyEntity(
+                    entity.getId(),
+                    EntityType.getKey(entity.getType()).toString(),
+                    entity.getX(),
+                    entity.getY(),
+                    entity.getZ()
+                )
+            );
+        }
+        return nearby;
+    }
+
+    private record Section(PalettedContainer<BlockState> states)
+        implements BlockSection<BlockState> {
+        @Override
+        public BlockState get(int x, int y, int z) {
+            return states.get(x, y, z);
+        }
+
+        @Override
+        public String name(BlockState state) {
+            return BlockStateParser.serialize(state);
+        }
+    }
+}
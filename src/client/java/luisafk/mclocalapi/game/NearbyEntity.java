@@ -0,0 +1,9 @@
+package luisafk.mclocalapi.game;
+
+/**
+ * An entity near the player, as of one tick.
+ *
+ * @param id   the game's ID for it, unique within the current world
+ * @param type the entity type's ID, e.g. {@code minecraft:zombie}
+ */
+public record NearbyEntity(int id, String type, double x, double y, double z) {}
@@ -0,0 +1,43 @@
+package luisafk.mclocalapi.game;
+
+/**
+ * A world's waypoints in named sets, in display order. Implementations may
+ * be live views of the game's own data, so iterate them afresh each time
+ * rather than holding on to what they return.
+ */
+public interface WaypointStore {
+    Iterable<? extends Set> sets();
+
+    /**
+     * Adds an empty set and returns it as {@code POST /xaero/waypoint-sets}
+     * reports it (serialized with Gson). Client thread.
+     */
+    Object addSet(String name);
+
+    /** Every set as {@code GET /xaero/waypoint-sets} reports them. */
+    Object describeSets();
+
+    /**
+     * A value that changes whenever a waypoint is added to or removed from
+     * any set, for telling when derived data is stale.
+     */
+    Object fingerprint();
+
+    interface Set {
+        String name();
+
+        int size();
+
+        Iterable<Waypoint> waypoints();
+    }
+
+    record Waypoint(
+        String name,
+        String symbol,
+        int x,
+        int y,
+        int z,
+        int color,
+        boolean disabled
+    ) {}
+}
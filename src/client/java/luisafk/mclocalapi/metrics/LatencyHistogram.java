@@ -0,0 +1,92 @@
+package luisafk.mclocalapi.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram of durations. Each bucket is a {@link LongAdder},
+ * so concurrent recorders contend on striped cells rather than a lock or a
+ * single CAS target; recording is a short bounds scan and two adds.
+ */
+public class LatencyHistogram {
+
+    private static final long US = 1_000;
+    private static final long MS = 1_000_000;
+
+    private final long[] boundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    private LatencyHistogram(long... boundsNanos) {
+        this.boundsNanos = boundsNanos;
+        this.buckets = new LongAdder[boundsNanos.length + 1];
+        Arrays.setAll(buckets, i -> new LongAdder());
+    }
+
+    /** 100µs to 10s, for HTTP requests. */
+    public static LatencyHistogram forRequests() {
+        return new LatencyHistogram(
+            100 * US,
+            250 * US,
+            500 * US,
+            1 * MS,
+            2_500 * US,
+            5 * MS,
+            10 * MS,
+            25 * MS,
+            50 * MS,
+            100 * MS,
+            250 * MS,
+            500 * MS,
+            1_000 * MS,
+            2_500 * MS,
+            10_000 * MS
+        );
+    }
+
+    /** 1µs to 50ms, for work done on every client tick. */
+    public static LatencyHistogram forTicks() {
+        return new LatencyHistogram(
+            1 * US,
+            2_500,
+            5 * US,
+            10 * US,
+            25 * US,
+            50 * US,
+            100 * US,
+            250 * US,
+            500 * US,
+            1 * MS,
+            2_500 * US,
+            5 * MS,
+            10 * MS,
+            50 * MS
+        );
+    }
+
+    public void record(long nanos) {
+        int i = 0;
+        while (i < boundsNanos.length && nanos > boundsNanos[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Writes cumulative {@code _bucket}s, {@code _sum} and {@code _count}. */
+    void write(PrometheusWriter out, String name, String... labels) {
+        String[] bucketLabels = Arrays.copyOf(labels, labels.length + 2);
+        bucketLabels[labels.length] = "le";
+
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            bucketLabels[labels.length + 1] = i < boundsNanos.length
+                ? Double.toString(boundsNanos[i] / 1e9)
+                : "+Inf";
+            out.sample(name + "_bucket", cumulative, bucketLabels);
+        }
+        out.sample(name + "_sum", sumNanos.sum() / 1e9, labels);
+        out.sample(name + "_count", cumulative, labels);
+    }
+}
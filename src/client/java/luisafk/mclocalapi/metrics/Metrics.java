@@ -0,0 +1,158 @@
+package luisafk.mclocalapi.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * What the mod costs the game: per-route request counts and latencies,
+ * stream traffic, queue depths and the time the tick listener takes.
+ * Everything is recorded with {@link LongAdder}s and only summed when
+ * {@code /metrics} is scraped.
+ */
+public class Metrics {
+
+    private static final String PREFIX = "mc_local_api_";
+
+    private final Map<String, RouteMetrics> routes =
+        new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> streamBytes =
+        new ConcurrentSkipListMap<>();
+    private final Map<String, GaugeFamily> gauges =
+        new ConcurrentSkipListMap<>();
+    private final LatencyHistogram tickOverhead = LatencyHistogram.forTicks();
+
+    private record Gauge(String[] labels, LongSupplier value) {}
+
+    private record GaugeFamily(String type, String help, List<Gauge> gauges) {}
+
+    /** The metrics for a route; look this up once, not per request. */
+    public RouteMetrics route(String route) {
+        return routes.computeIfAbsent(route, r -> new RouteMetrics());
+    }
+
+    /** Counter of bytes written to clients of a kind of stream. */
+    public LongAdder streamBytes(String stream) {
+        return streamBytes.computeIfAbsent(stream, s -> new LongAdder());
+    }
+
+    /** Nanoseconds the client tick listener takes each tick. */
+    public LatencyHistogram tickOverhead() {
+        return tickOverhead;
+    }
+
+    /**
+     * Registers a value read at scrape time. {@code name} is without the
+     * common prefix; {@code labels} alternate name and value.
+     */
+    public void gauge(
+        String name,
+        String help,
+        LongSupplier value,
+        String... labels
+    ) {
+        register("gauge", name, help, value, labels);
+    }
+
+    /** Like {@link #gauge}, for a count that only goes up. */
+    public void counter(
+        String name,
+        String help,
+        LongSupplier value,
+        String... labels
+    ) {
+        register("counter", name, help, value, labels);
+    }
+
+    private synchronized void register(
+        String type,
+        String name,
+        String help,
+        LongSupplier value,
+        String... labels
+    ) {
+        gauges
+            .computeIfAbsent(name, n ->
+                new GaugeFamily(type, help, new ArrayList<>())
+            )
+            .gauges()
+            .add(new Gauge(labels, value));
+    }
+
+    /** The Prometheus text exposition of everything. */
+    public synchronized String scrape() {
+        PrometheusWriter out = new PrometheusWriter();
+
+        out.header(
+            PREFIX + "http_requests_total",
+            "counter",
+            "HTTP requests handled, by route and status code."
+        );
+        routes.forEach((route, metrics) ->
+            new TreeMap<>(metrics.statuses()).forEach((status, count) ->
+                out.sample(
+                    PREFIX + "http_requests_total",
+                    count.sum(),
+                    "route",
+                    route,
+                    "status",
+                    Integer.toString(status)
+                )
+            )
+        );
+
+        out.header(
+            PREFIX + "http_request_duration_seconds",
+            "histogram",
+            "Time until a route's response was complete, or its stream set up."
+        );
+        routes.forEach((route, metrics) ->
+            metrics
+                .latency()
+                .write(
+                    out,
+                    PREFIX + "http_request_duration_seconds",
+                    "route",
+                    route
+                )
+        );
+
+        out.header(
+            PREFIX + "stream_bytes_total",
+            "counter",
+            "Bytes written to stream clients."
+        );
+        streamBytes.forEach((stream, bytes) ->
+            out.sample(
+                PREFIX + "stream_bytes_total",
+                bytes.sum(),
+                "stream",
+                stream
+            )
+        );
+
+        out.header(
+            PREFIX + "tick_overhead_seconds",
+            "histogram",
+            "Time the mod's client tick listener adds to each tick."
+        );
+        tickOverhead.write(out, PREFIX + "tick_overhead_seconds");
+
+        gauges.forEach((name, family) -> {
+            out.header(PREFIX + name, family.type(), family.help());
+            for (Gauge gauge : family.gauges()) {
+                out.sample(
+                    PREFIX + name,
+                    gauge.value().getAsLong(),
+                    gauge.labels()
+                );
+            }
+        });
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package luisafk.mclocalapi.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Request counts by status and latency for one route. */
+public class RouteMetrics {
+
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = LatencyHistogram.forRequests();
+
+    /**
+     * @param status the response code, or -1 if none was sent
+     * @param nanos  time until the response was complete; for streams,
+     *               that's until the stream was set up
+     */
+    public void record(int status, long nanos) {
+        LongAdder count = statuses.get(status);
+        if (count == null) {
+            count = statuses.computeIfAbsent(status, s -> new LongAdder());
+        }
+        count.increment();
+        latency.record(nanos);
+    }
+
+    Map<Integer, LongAdder> statuses() {
+        return statuses;
+    }
+
+    LatencyHistogram latency() {
+        return latency;
+    }
+}
@@ -0,0 +1,35 @@
+package luisafk.mclocalapi.recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Reads a recording's snapshots in order, one segment at a time. Records
+ * appended to a recording that's still in progress are picked up as long as
+ * the reader hasn't reached its end yet.
+ */
+public class RecordingReader {
+
+    private final List<Path> segments;
+    private int segmentIndex = -1;
+    private SegmentFile segment;
+    private int recordIndex;
+
+    RecordingReader(List<Path> segments) {
+        this.segments = segments;
+    }
+
+    /** The next snapshot, or {@code null} once the recording is exhausted. */
+    public GameStateSnapshot next() throws IOException {
+        while (segment == null || recordIndex >= segment.count()) {
+            if (segmentIndex + 1 >= segments.size()) {
+                return null;
+            }
+            segment = SegmentFile.open(segments.get(++segmentIndex));
+            recordIndex = 0;
+        }
+        return segment.read(recordIndex++);
+    }
+}
@@ -0,0 +1,162 @@
+package luisafk.mclocalapi.recording;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The recordings directory: one subdirectory per session, named after the
+ * time it started so that names sort chronologically, holding numbered
+ * {@link SegmentFile}s.
+ */
+public class RecordingStore {
+
+    private static final Pattern ID = Pattern.compile("[0-9A-Za-z-]{1,64}");
+
+    private final Path root;
+
+    public RecordingStore(Path root) {
+        this.root = root;
+    }
+
+    /** Summary of one recording, as listed by {@code /recordings}. */
+    public record Info(
+        String id,
+        long startedAt,
+        int segments,
+        long records,
+        long bytes
+    ) {}
+
+    public static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    Path root() {
+        return root;
+    }
+
+    Path directory(String id) {
+        return root.resolve(id);
+    }
+
+    static Path segmentPath(Path directory, int index) {
+        return directory.resolve(
+            String.format("segment-%05d%s", index, SegmentFile.EXTENSION)
+        );
+    }
+
+    /** Recordings, oldest first. */
+    public List<Info> list() throws IOException {
+        List<Info> infos = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return infos;
+        }
+
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : dirs.sorted().toList()) {
+                String id = dir.getFileName().toString();
+                if (Files.isDirectory(dir) && isValidId(id)) {
+                    Info info = info(id, dir);
+                    if (info != null) {
+                        infos.add(info);
+                    }
+                }
+            }
+        }
+        return infos;
+    }
+
+    /** Opens a recording for reading, or returns {@code null} if unknown. */
+    public RecordingReader open(String id) throws IOException {
+        if (!isValidId(id) || !Files.isDirectory(directory(id))) {
+            return null;
+        }
+        return new RecordingReader(segments(directory(id)));
+    }
+
+    /**
+     * Deletes the oldest recordings, other than {@code activeId}, until at
+     * most {@code maxRecordings} remain and they take up no more than
+     * {@code maxBytes}. Files that can't be deleted yet (e.g. still mapped
+     * on Windows) are left for the next pass.
+     */
+    void enforceRetention(int maxRecordings, long maxBytes, String activeId)
+        throws IOException {
+        List<Info> infos = list();
+        long total = 0;
+        for (Info info : infos) {
+            total += info.bytes();
+        }
+
+        int remaining = infos.size();
+        for (Info info : infos) {
+            if (remaining <= maxRecordings && total <= maxBytes) {
+                break;
+            }
+            if (info.id().equals(activeId)) {
+                continue;
+            }
+
+            if (delete(directory(info.id()))) {
+                remaining--;
+                total -= info.bytes();
+                logger.info("Deleted old recording {}", info.id());
+            }
+        }
+    }
+
+    private static Info info(String id, Path dir) throws IOException {
+        List<Path> segments = segments(dir);
+        long records = 0;
+        long bytes = 0;
+        long startedAt = 0;
+
+        for (Path path : segments) {
+            try {
+                SegmentFile segment = SegmentFile.open(path);
+                if (startedAt == 0) {
+                    startedAt = segment.createdAt();
+                }
+                records += segment.count();
+            } catch (IOException e) {
+                logger.debug("Skipping unreadable segment {}", path, e);
+            }
+            bytes += Files.size(path);
+        }
+
+        return segments.isEmpty()
+            ? null
+            : new Info(id, startedAt, segments.size(), records, bytes);
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(path ->
+                    path.getFileName().toString().endsWith(SegmentFile.EXTENSION)
+                )
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static boolean delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.debug("Couldn't delete recording {} yet", dir, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package luisafk.mclocalapi.recording;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import luisafk.mclocalapi.encoding.GameStateCodec;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * One memory-mapped segment of a recording. The file is sized for
+ * {@code capacity} records up front, so appending is a copy into the mapping
+ * and never a system call. Layout (little-endian):
+ *
+ * <pre>
+ * header (32 bytes)
+ *   u32 magic "MCLR", u16 version, u16 record size
+ *   i32 capacity, i32 count (updated after every record)
+ *   i64 createdAt (epoch millis), 8 bytes reserved
+ * record (128 bytes)
+ *   the 89 fixed bytes of {@link GameStateCodec}'s binary state
+ *   u8 length, 38 bytes UTF-8 dimension ID (truncated, zero-padded)
+ * </pre>
+ */
+final class SegmentFile {
+
+    static final String EXTENSION = ".mclr";
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 128;
+
+    private static final int MAGIC = 0x524c434d; // "MCLR"
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET = 12;
+    private static final int MAX_DIMENSION_BYTES =
+        RECORD_BYTES - GameStateCodec.BINARY_STATE_FIXED_BYTES - 1;
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int count;
+
+    /** Last dimension written or read, so unchanged ones aren't re-encoded. */
+    private String dimension;
+    private byte[] dimensionBytes = new byte[0];
+
+    private SegmentFile(MappedByteBuffer buffer, int capacity, int count) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    /** Creates (or overwrites) a segment with room for {@code capacity}. */
+    static SegmentFile create(Path path, int capacity, long createdAt)
+        throws IOException {
+        try (
+            FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            MappedByteBuffer buffer = channel.map(
+                FileChannel.MapMode.READ_WRITE,
+                0,
+                HEADER_BYTES + (long) capacity * RECORD_BYTES
+            );
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer
+                .putInt(MAGIC)
+                .putShort((short) VERSION)
+                .putShort((short) RECORD_BYTES)
+                .putInt(capacity)
+                .putInt(0)
+                .putLong(createdAt);
+            return new SegmentFile(buffer, capacity, 0);
+        }
+    }
+
+    static SegmentFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            MappedByteBuffer buffer = channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                0,
+                channel.size()
+            );
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (
+                channel.size() < HEADER_BYTES ||
+                buffer.getInt(0) != MAGIC ||
+                buffer.getShort(4) != VERSION ||
+                buffer.getShort(6) != RECORD_BYTES
+            ) {
+                throw new IOException("Not a recording segment: " + path);
+            }
+
+            int capacity = buffer.getInt(8);
+            if (HEADER_BYTES + (long) capacity * RECORD_BYTES > channel.size()) {
+                throw new IOException("Truncated recording segment: " + path);
+            }
+            return new SegmentFile(buffer, capacity, 0);
+        }
+    }
+
+    /**
+     * Records written, as of the header. May grow while a segment that's
+     * still being recorded is read.
+     */
+    int count() {
+        return Math.min(capacity, buffer.getInt(COUNT_OFFSET));
+    }
+
+    long createdAt() {
+        return buffer.getLong(16);
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    /** Appends a record. Must not be called when {@link #isFull()}. */
+    void append(GameStateSnapshot state) {
+        if (state.dimension() != null && !state.dimension().equals(dimension)) {
+            dimension = state.dimension();
+            byte[] bytes = dimension.getBytes(StandardCharsets.UTF_8);
+            dimensionBytes = bytes.length > MAX_DIMENSION_BYTES
+                ? Arrays.copyOf(bytes, MAX_DIMENSION_BYTES)
+                : bytes;
+        }
+
+        buffer.position(HEADER_BYTES + count * RECORD_BYTES);
+        GameStateCodec.putStateFixed(buffer, state);
+        byte[] bytes = state.dimension() != null ? dimensionBytes : new byte[0];
+        buffer.put((byte) bytes.length).put(bytes);
+
+        // Count last, so a concurrent reader never sees a partial record
+        count++;
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    GameStateSnapshot read(int index) {
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        int dimensionOffset = offset + GameStateCodec.BINARY_STATE_FIXED_BYTES;
+        int length = Math.min(
+            buffer.get(dimensionOffset) & 0xff,
+            MAX_DIMENSION_BYTES
+        );
+
+        byte[] bytes = new byte[length];
+        buffer.get(dimensionOffset + 1, bytes);
+        if (!Arrays.equals(bytes, dimensionBytes)) {
+            dimensionBytes = bytes;
+            dimension = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return GameStateCodec.getStateFixed(
+            buffer.slice(offset, GameStateCodec.BINARY_STATE_FIXED_BYTES).order(
+                ByteOrder.LITTLE_ENDIAN
+            ),
+            dimension
+        );
+    }
+
+    /** Writes dirty pages back to disk. Can block, so not on the tick. */
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,224 @@
+package luisafk.mclocalapi.recording;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Appends every tick's {@link GameStateSnapshot} to the current session's
+ * recording while {@code enableSessionRecording} is on. A session lasts from
+ * the first tick with a player to the first one without.
+ *
+ * <p>On the tick, recording is a copy into a mapped {@link SegmentFile}.
+ * Anything that may block (creating the next segment ahead of time, flushing
+ * a full one, deleting old recordings) happens on a background thread; if
+ * the next segment isn't ready when the current one fills up, ticks are
+ * dropped rather than waited for.
+ */
+public class SessionRecorder {
+
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern(
+        "yyyyMMdd-HHmmss"
+    ).withZone(ZoneOffset.UTC);
+
+    private final RecordingStore store;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().daemon().name("mc-local-api-recorder").factory()
+    );
+
+    // Client thread only
+    private Path directory;
+    private int segmentIndex;
+    private SegmentFile segment;
+    private CompletableFuture<SegmentFile> next;
+    private boolean failed;
+    private long dropped;
+
+    private volatile String activeId;
+
+    public SessionRecorder(RecordingStore store) {
+        this.store = store;
+    }
+
+    public RecordingStore getStore() {
+        return store;
+    }
+
+    /** The recording in progress, or {@code null}. */
+    public String getActiveId() {
+        return activeId;
+    }
+
+    /** Client thread only. */
+    public void record(GameStateSnapshot state) {
+        if (!config.enableSessionRecording || !state.hasPlayer()) {
+            if (activeId != null || failed) {
+                finish();
+            }
+            return;
+        }
+
+        if (failed) {
+            return;
+        }
+        if (segment == null && !start(state)) {
+            return;
+        }
+        if (segment.isFull() && !rollOver()) {
+            dropped++;
+            return;
+        }
+
+        segment.append(state);
+    }
+
+    /**
+     * Creates the session's directory and first segment. This blocks, but
+     * only happens while joining a world.
+     */
+    private boolean start(GameStateSnapshot state) {
+        String base = ID_FORMAT.format(
+            Instant.ofEpochMilli(state.capturedAt())
+        );
+        String id = base;
+        for (int n = 2; Files.exists(store.directory(id)); n++) {
+            id = base + "-" + n;
+        }
+
+        try {
+            directory = Files.createDirectories(store.directory(id));
+            segmentIndex = 0;
+            segment = SegmentFile.create(
+                RecordingStore.segmentPath(directory, 0),
+                config.recordingSegmentRecords,
+                state.capturedAt()
+            );
+        } catch (IOException e) {
+            logger.error("Couldn't start recording {}", id, e);
+            failed = true;
+            return false;
+        }
+
+        activeId = id;
+        dropped = 0;
+        logger.info("Recording session to {}", directory);
+
+        prepareNext();
+        enforceRetention();
+        return true;
+    }
+
+    /** Switches to the prepared segment. Returns false if it isn't ready. */
+    private boolean rollOver() {
+        if (next == null) {
+            prepareNext();
+        }
+        if (!next.isDone()) {
+            return false;
+        }
+
+        SegmentFile full = segment;
+        try {
+            segment = next.join();
+        } catch (RuntimeException e) {
+            logger.error("Couldn't create next recording segment", e);
+            next = null;
+            finish();
+            failed = true;
+            return false;
+        }
+        segmentIndex++;
+        next = null;
+
+        io.execute(full::force);
+        prepareNext();
+        return true;
+    }
+
+    private void prepareNext() {
+        Path path = RecordingStore.segmentPath(directory, segmentIndex + 1);
+        int capacity = config.recordingSegmentRecords;
+        next = CompletableFuture.supplyAsync(
+            () -> {
+                try {
+                    return SegmentFile.create(
+                        path,
+                        capacity,
+                        System.currentTimeMillis()
+                    );
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            },
+            io
+        );
+    }
+
+    private void finish() {
+        if (segment != null) {
+            SegmentFile last = segment;
+            io.execute(last::force);
+        }
+
+        if (next != null) {
+            // The segment prepared ahead of time was never used
+            Path unused = RecordingStore.segmentPath(
+                directory,
+                segmentIndex + 1
+            );
+            next.whenCompleteAsync(
+                (file, error) -> {
+                    try {
+                        Files.deleteIfExists(unused);
+                    } catch (IOException e) {
+                        logger.debug("Couldn't delete {}", unused, e);
+                    }
+                },
+                io
+            );
+        }
+
+        if (dropped > 0) {
+            logger.warn(
+                "Recording {} dropped {} ticks waiting for a new segment",
+                activeId,
+                dropped
+            );
+        }
+        if (activeId != null) {
+            logger.info("Finished recording {}", activeId);
+        }
+
+        directory = null;
+        segment = null;
+        next = null;
+        failed = false;
+        activeId = null;
+        enforceRetention();
+    }
+
+    private void enforceRetention() {
+        String active = activeId;
+        int maxRecordings = config.recordingMaxCount;
+        long maxBytes = config.recordingMaxTotalMegabytes * 1024L * 1024L;
+
+        io.execute(() -> {
+            try {
+                store.enforceRetention(maxRecordings, maxBytes, active);
+            } catch (IOException e) {
+                logger.warn("Couldn't apply recording retention", e);
+            }
+        });
+    }
+}
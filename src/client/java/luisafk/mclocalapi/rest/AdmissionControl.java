@@ -0,0 +1,172 @@
+package luisafk.mclocalapi.rest;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a request is handled at all, before any work is done for
+ * it or it takes a slot in a queue: a global cap on requests in flight, and
+ * a token bucket per remote address. Rejections are 429s with a
+ * {@code Retry-After} the client can honor, so an overloaded server answers
+ * quickly instead of queuing without bound.
+ *
+ * <p>A request is in flight from when its handler starts until its response
+ * is complete; streams are capped separately and only count while their
+ * handler runs.
+ */
+public class AdmissionControl {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(
+        10
+    );
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<InetAddress, TokenBucket> buckets =
+        new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+    private final LongAdder rejectedInFlight = new LongAdder();
+    private final LongAdder rejectedRate = new LongAdder();
+    private final LongAdder rejectedStreams = new LongAdder();
+
+    /**
+     * Takes an in-flight slot for a request from {@code remote}, which must
+     * be given back with {@link #release()}. Throws a 429 if there is none,
+     * or the address is over its rate.
+     */
+    public void admit(InetSocketAddress remote) {
+        admit(remote, System.nanoTime());
+    }
+
+    /** {@link #admit(InetSocketAddress)} at {@code now}, from nanoTime. */
+    void admit(InetSocketAddress remote, long now) {
+        if (inFlight.incrementAndGet() > config.maxInFlightRequests) {
+            inFlight.decrementAndGet();
+            rejectedInFlight.increment();
+            throw tooManyRequests("Too many requests in flight", 1);
+        }
+
+        double rate = config.requestsPerSecondPerClient;
+        if (rate <= 0 || remote == null || remote.getAddress() == null) {
+            return;
+        }
+
+        sweep(now, rate);
+
+        int burst = Math.max(1, config.requestBurstPerClient);
+        TokenBucket bucket = buckets.computeIfAbsent(remote.getAddress(), a ->
+            new TokenBucket(now, burst)
+        );
+        double deficit = bucket.take(now, rate, burst);
+        if (deficit > 0) {
+            inFlight.decrementAndGet();
+            rejectedRate.increment();
+            throw tooManyRequests(
+                "Request rate limit exceeded",
+                (long) Math.ceil(deficit / rate)
+            );
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /** Throws a 429 if another stream would make more than {@code max}. */
+    public void admitStream(int open, int max) {
+        if (open >= max) {
+            rejectedStreams.increment();
+            throw tooManyRequests("Too many open streams", 5);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    public long getRejectedInFlight() {
+        return rejectedInFlight.sum();
+    }
+
+    public long getRejectedRate() {
+        return rejectedRate.sum();
+    }
+
+    public long getRejectedStreams() {
+        return rejectedStreams.sum();
+    }
+
+    private static ApiException tooManyRequests(
+        String message,
+        long retryAfterSeconds
+    ) {
+        return new ApiException(429, message).withHeader(
+            "Retry-After",
+            Long.toString(Math.max(1, retryAfterSeconds))
+        );
+    }
+
+    /**
+     * Forgets buckets that have been idle long enough to refill, which is
+     * the same as never having seen the address.
+     */
+    private void sweep(long now, double rate) {
+        long due = nextSweep.get();
+        if (
+            now - due < 0 ||
+            !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)
+        ) {
+            return;
+        }
+
+        double burst = Math.max(1, config.requestBurstPerClient);
+        long refillNanos = (long) ((burst / rate) * 1e9);
+        buckets
+            .values()
+            .removeIf(bucket -> bucket.idleSince(now, refillNanos));
+    }
+
+    static final class TokenBucket {
+
+        private double tokens;
+        private long updated;
+
+        TokenBucket(long now, int burst) {
+            this.tokens = burst;
+            this.updated = now;
+        }
+
+        /**
+         * Takes a token, returning 0, or how many tokens short the bucket
+         * is if it has none.
+         */
+        synchronized double take(long now, double rate, int burst) {
+            tokens = Math.min(
+                burst,
+                tokens + ((now - updated) / 1e9) * rate
+            );
+            updated = now;
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return 1 - tokens;
+        }
+
+        synchronized boolean idleSince(long now, long nanos) {
+            return now - updated > nanos;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package luisafk.mclocalapi.rest;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class ApiException extends RuntimeException {
     private final int statusCode;
+    private final Map<String, String> headers = new LinkedHashMap<>();
 
     public ApiException(int statusCode, String message) {
         super(message);
@@ -11,4 +15,14 @@ public class ApiException extends RuntimeException {
     public int getStatusCode() {
         return statusCode;
     }
+
+    /** Adds a header to send along with the error response. */
+    public ApiException withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
 }
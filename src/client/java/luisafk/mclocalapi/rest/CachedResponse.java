@@ -0,0 +1,88 @@
+package luisafk.mclocalapi.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A response body encoded once, with its gzip variant and strong ETags
+ * derived from the content. The variants' bytes differ, so each has its own
+ * tag. Immutable and shared between requests.
+ */
+public final class CachedResponse {
+
+    private final String contentType;
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String gzipETag;
+
+    private CachedResponse(String contentType, byte[] body, byte[] gzipBody) {
+        this.contentType = contentType;
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = etag(body, "");
+        this.gzipETag = gzipBody == null ? null : etag(body, "-gzip");
+    }
+
+    public static CachedResponse of(String contentType, byte[] body) {
+        return new CachedResponse(contentType, body, gzip(body));
+    }
+
+    public static CachedResponse text(String text) {
+        return of(
+            "text/plain; charset=UTF-8",
+            text.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    public static CachedResponse json(String json) {
+        return of(
+            "application/json; charset=UTF-8",
+            json.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /** The tag of the plain body, or of the gzip one if {@code gzip}. */
+    public String getETag(boolean gzip) {
+        return gzip && gzipBody != null ? gzipETag : etag;
+    }
+
+    /** The body, gzipped if that's smaller. Callers must not modify it. */
+    byte[] body(boolean gzip) {
+        return gzip && gzipBody != null ? gzipBody : body;
+    }
+
+    /** Whether a gzip variant is kept (it isn't if it's no smaller). */
+    boolean hasGzip() {
+        return gzipBody != null;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        byte[] gzip = ResponseCompression.compress(body, ContentCoding.GZIP);
+        return gzip.length < body.length ? gzip : null;
+    }
+
+    /** A hash of the plain body, plus {@code suffix} for other codings. */
+    private static String etag(byte[] body, String suffix) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return (
+                "\"" +
+                Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(Arrays.copyOf(digest, 12)) +
+                suffix +
+                "\""
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
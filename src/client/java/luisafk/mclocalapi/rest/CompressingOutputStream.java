@@ -0,0 +1,75 @@
+package luisafk.mclocalapi.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * gzip or zlib output on a pooled deflater. {@link #flush()} does a sync
+ * flush, so what's been written so far reaches the client immediately.
+ */
+final class CompressingOutputStream extends DeflaterOutputStream {
+
+    private static final byte[] GZIP_HEADER = {
+        0x1f,
+        (byte) 0x8b,
+        8, // deflate
+        0, // flags
+        0,
+        0,
+        0,
+        0, // mtime
+        0, // extra flags
+        (byte) 0xff, // unknown OS
+    };
+
+    private final ContentCoding coding;
+    private final CRC32 crc = new CRC32();
+    private long size;
+    private boolean closed;
+
+    CompressingOutputStream(OutputStream out, ContentCoding coding)
+        throws IOException {
+        super(out, ResponseCompression.acquire(coding), 8192, true);
+        this.coding = coding;
+        if (coding == ContentCoding.GZIP) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        if (coding == ContentCoding.GZIP) {
+            crc.update(b, off, len);
+        }
+        size += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            finish();
+            if (coding == ContentCoding.GZIP) {
+                writeIntLE((int) crc.getValue());
+                writeIntLE((int) size);
+            }
+            out.close();
+        } finally {
+            ResponseCompression.release(coding, def);
+        }
+    }
+
+    private void writeIntLE(int v) throws IOException {
+        out.write(v);
+        out.write(v >>> 8);
+        out.write(v >>> 16);
+        out.write(v >>> 24);
+    }
+}
@@ -0,0 +1,67 @@
+package luisafk.mclocalapi.rest;
+
+import java.util.Locale;
+
+/** Compressed content codings the server can produce. */
+public enum ContentCoding {
+    GZIP("gzip"),
+    /** HTTP's {@code deflate} is zlib-wrapped, not raw deflate. */
+    DEFLATE("deflate");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /** Value for the {@code Content-Encoding} header. */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * The most preferred coding in an {@code Accept-Encoding} header, gzip
+     * winning ties, or {@code null} if neither is acceptable.
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+
+        ContentCoding best = null;
+        double bestQuality = 0;
+        for (String range : acceptEncoding.split(",")) {
+            String[] params = range.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            ContentCoding candidate = switch (coding) {
+                case "gzip", "x-gzip" -> GZIP;
+                case "deflate" -> DEFLATE;
+                default -> null;
+            };
+            if (
+                candidate != null &&
+                quality > 0 &&
+                (quality > bestQuality ||
+                    (quality == bestQuality && candidate == GZIP))
+            ) {
+                best = candidate;
+                bestQuality = quality;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,293 @@
+package luisafk.mclocalapi.rest;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import luisafk.mclocalapi.MCLocalAPIConfig.StreamOverflowPolicy;
+import luisafk.mclocalapi.game.GameProvider;
+import luisafk.mclocalapi.game.NearbyEntity;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Feeds {@code /entities/stream}. Each tick, the entities within the largest
+ * subscriber's radius are read from the game once; every subscriber then
+ * keeps those inside its own radius and of its types, and compares them with
+ * what it has already sent. Only the differences go out:
+ *
+ * <pre>
+ * event: snapshot  (once, on the first tick after connecting)
+ * data: {"tick":..,"scale":8,
+ *        "entities":[{"id":..,"type":"..","x":..,"y":..,"z":..}]}
+ *
+ * event: delta     (on ticks where anything changed)
+ * data: {"tick":..,"despawn":[id,..],
+ *        "spawn":[{"id":..,"type":"..","x":..,"y":..,"z":..}],
+ *        "move":[{"id":..,"x":..,"y":..,"z":..}]}
+ * </pre>
+ *
+ * <p>Positions are integers in units of {@code 1 / scale} blocks, and an
+ * entity only moves once one of them changes. Empty lists are left out of
+ * deltas, and despawns come first, since an ID can be reused in the same
+ * delta after changing worlds.
+ */
+public class EntityStreams {
+
+    /**
+     * @param radius in blocks, around the player
+     * @param types  entity type IDs to include, or {@code null} for all
+     */
+    public record Params(double radius, Set<String> types) {
+        boolean includes(String type) {
+            return types == null || types.contains(type);
+        }
+    }
+
+    private final SseHub hub;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Client thread only. */
+    private final SseFrameEncoder encoder = new SseFrameEncoder();
+
+    public EntityStreams(SseHub hub) {
+        this.hub = hub;
+    }
+
+    /**
+     * Adds a connection, whose snapshot is sent on the next tick. A dropped
+     * delta would leave the client's view wrong for good, so one that falls
+     * {@code capacity} frames behind is disconnected instead, to reconnect
+     * for a fresh snapshot.
+     */
+    public void subscribe(
+        SseConnection connection,
+        int capacity,
+        Params params
+    ) {
+        Subscriber subscriber = new Subscriber(
+            hub.subscribe(
+                connection,
+                StreamOverflowPolicy.DISCONNECT,
+                capacity
+            ),
+            params,
+            Math.max(1, config.entityStreamPositionsPerBlock)
+        );
+        subscribers.add(subscriber);
+        connection.onClose(() -> subscribers.remove(subscriber));
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /** Client thread only. */
+    public void tick(GameProvider game, GameStateSnapshot state) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        List<NearbyEntity> entities = List.of();
+        if (state.hasPlayer()) {
+            double radius = 0;
+            for (Subscriber subscriber : subscribers) {
+                radius = Math.max(radius, subscriber.params.radius());
+            }
+            entities = game.nearbyEntities(radius);
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.tick(state, entities);
+        }
+    }
+
+    /** Where a subscriber was last told an entity is. */
+    private static final class Tracked {
+
+        final int id;
+        final String type;
+        long x;
+        long y;
+        long z;
+        long seen;
+
+        Tracked(int id, String type) {
+            this.id = id;
+            this.type = type;
+        }
+    }
+
+    /** Touched only on the client thread once added. */
+    private class Subscriber {
+
+        private final SseHub.Subscription queue;
+        private final Params params;
+        private final int scale;
+
+        private final Map<Integer, Tracked> view = new HashMap<>();
+        private final List<Tracked> spawned = new ArrayList<>();
+        private final List<Tracked> moved = new ArrayList<>();
+        private final List<Integer> despawned = new ArrayList<>();
+        private boolean snapshotSent;
+        private String world;
+
+        Subscriber(SseHub.Subscription queue, Params params, int scale) {
+            this.queue = queue;
+            this.params = params;
+            this.scale = scale;
+        }
+
+        void tick(GameStateSnapshot state, List<NearbyEntity> entities) {
+            long tick = state.tick();
+            spawned.clear();
+            moved.clear();
+            despawned.clear();
+
+            // IDs are only unique within a world
+            if (state.hasPlayer() && !state.dimension().equals(world)) {
+                world = state.dimension();
+                view.values().forEach(tracked -> tracked.seen = -1);
+            }
+
+            double radius = params.radius();
+            for (NearbyEntity entity : entities) {
+                double dx = entity.x() - state.x();
+                double dy = entity.y() - state.y();
+                double dz = entity.z() - state.z();
+                if (
+                    dx * dx + dy * dy + dz * dz > radius * radius ||
+                    !params.includes(entity.type())
+                ) {
+                    continue;
+                }
+
+                long x = Math.round(entity.x() * scale);
+                long y = Math.round(entity.y() * scale);
+                long z = Math.round(entity.z() * scale);
+
+                Tracked tracked = view.get(entity.id());
+                if (
+                    tracked == null ||
+                    tracked.seen < 0 ||
+                    !tracked.type.equals(entity.type())
+                ) {
+                    if (tracked != null) {
+                        despawned.add(tracked.id);
+                    }
+                    tracked = new Tracked(entity.id(), entity.type());
+                    view.put(entity.id(), tracked);
+                    spawned.add(tracked);
+                } else if (
+                    x != tracked.x || y != tracked.y || z != tracked.z
+                ) {
+                    moved.add(tracked);
+                }
+
+                tracked.x = x;
+                tracked.y = y;
+                tracked.z = z;
+                tracked.seen = tick;
+            }
+
+            Iterator<Tracked> iterator = view.values().iterator();
+            while (iterator.hasNext()) {
+                Tracked tracked = iterator.next();
+                if (tracked.seen != tick) {
+                    despawned.add(tracked.id);
+                    iterator.remove();
+                }
+            }
+
+            if (!snapshotSent) {
+                snapshotSent = true;
+                queue.offer(snapshot(tick));
+            } else if (
+                !spawned.isEmpty() || !moved.isEmpty() || !despawned.isEmpty()
+            ) {
+                queue.offer(delta(tick));
+            }
+        }
+
+        private SseFrame snapshot(long tick) {
+            encoder
+                .begin("snapshot")
+                .raw('{')
+                .key("tick")
+                .number(tick)
+                .raw(',')
+                .key("scale")
+                .number(scale)
+                .raw(',')
+                .key("entities")
+                .raw('[');
+            boolean first = true;
+            for (Tracked tracked : view.values()) {
+                if (!first) {
+                    encoder.raw(',');
+                }
+                first = false;
+                writeEntity(tracked, true);
+            }
+            return encoder.raw(']').raw('}').end();
+        }
+
+        private SseFrame delta(long tick) {
+            encoder.begin("delta").raw('{').key("tick").number(tick);
+            if (!despawned.isEmpty()) {
+                encoder.raw(',').key("despawn").raw('[');
+                for (int i = 0; i < despawned.size(); i++) {
+                    if (i > 0) {
+                        encoder.raw(',');
+                    }
+                    encoder.number(despawned.get(i));
+                }
+                encoder.raw(']');
+            }
+            writeEntities("spawn", spawned, true);
+            writeEntities("move", moved, false);
+            return encoder.raw('}').end();
+        }
+
+        private void writeEntities(
+            String key,
+            List<Tracked> entities,
+            boolean withType
+        ) {
+            if (entities.isEmpty()) {
+                return;
+            }
+
+            encoder.raw(',').key(key).raw('[');
+            for (int i = 0; i < entities.size(); i++) {
+                if (i > 0) {
+                    encoder.raw(',');
+                }
+                writeEntity(entities.get(i), withType);
+            }
+            encoder.raw(']');
+        }
+
+        private void writeEntity(Tracked tracked, boolean withType) {
+            encoder.raw('{').key("id").number(tracked.id);
+            if (withType) {
+                encoder.raw(',').key("type").string(tracked.type);
+            }
+            encoder
+                .raw(',')
+                .key("x")
+                .number(tracked.x)
+                .raw(',')
+                .key("y")
+                .number(tracked.y)
+                .raw(',')
+                .key("z")
+                .number(tracked.z)
+                .raw('}');
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package luisafk.mclocalapi.rest;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An in-memory {@link HttpExchange}, used to run requests that arrive over
+ * other transports through the regular routes. The response is buffered and
+ * {@link #getCompletion()} completes when the handler closes the exchange,
+ * which may happen on another thread for async handlers.
+ *
+ * <p>A buffered response has to end, so event streams are refused with a 400
+ * when their headers are sent, before anything subscribes. A caller that
+ * stops waiting should {@link #abort()}, so that anything still writing gets
+ * an error and cleans up.
+ */
+public class LocalExchange extends HttpExchange {
+
+    private final String method;
+    private final URI uri;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final CompletableFuture<LocalExchange> completion =
+        new CompletableFuture<>();
+
+    private final ByteArrayOutputStream responseBuffer =
+        new ByteArrayOutputStream();
+    private InputStream requestBody;
+    private OutputStream responseBody = new BufferStream();
+    private int responseCode = -1;
+    private volatile boolean aborted;
+
+    public LocalExchange(
+        String method,
+        URI uri,
+        Headers requestHeaders,
+        byte[] body,
+        InetSocketAddress remoteAddress,
+        InetSocketAddress localAddress
+    ) {
+        this.method = method;
+        this.uri = uri;
+        this.requestHeaders = requestHeaders;
+        this.requestBody = new ByteArrayInputStream(body);
+        this.remoteAddress = remoteAddress;
+        this.localAddress = localAddress;
+    }
+
+    /** Completes with this exchange once the handler has closed it. */
+    public CompletableFuture<LocalExchange> getCompletion() {
+        return completion;
+    }
+
+    public byte[] getResponseBytes() {
+        synchronized (responseBuffer) {
+            return responseBuffer.toByteArray();
+        }
+    }
+
+    /**
+     * Gives up on the response: from now on, writes to the body fail, and
+     * the buffered bytes are dropped.
+     */
+    public void abort() {
+        aborted = true;
+        synchronized (responseBuffer) {
+            responseBuffer.reset();
+        }
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        completion.complete(this);
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public synchronized void sendResponseHeaders(int rCode, long responseLength) {
+        if (responseCode != -1) {
+            throw new IllegalStateException("headers already sent");
+        }
+        String contentType = responseHeaders.getFirst("Content-Type");
+        if (
+            contentType != null && contentType.startsWith("text/event-stream")
+        ) {
+            throw new ApiException(
+                400,
+                "Streams can't be called; subscribe to a topic instead"
+            );
+        }
+        responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public synchronized int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        synchronized (attributes) {
+            return attributes.get(name);
+        }
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        synchronized (attributes) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBody = i;
+        }
+        if (o != null) {
+            responseBody = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    private class BufferStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (aborted) {
+                throw new IOException("Exchange was aborted");
+            }
+            synchronized (responseBuffer) {
+                responseBuffer.write(b, off, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package luisafk.mclocalapi.rest;
+
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/** Encodes the events sent on {@code /player/position/stream}. */
+public final class PlayerPositionEvents {
+
+    private PlayerPositionEvents() {}
+
+    /** {@code message} event with a {@code {"x":..,"y":..,"z":..}} payload. */
+    public static SseFrame position(
+        SseFrameEncoder encoder,
+        double x,
+        double y,
+        double z
+    ) {
+        return writePosition(encoder.begin("message"), x, y, z).end();
+    }
+
+    /** Writes the {@code {"x":..,"y":..,"z":..}} object on its own. */
+    public static SseFrameEncoder writePosition(
+        SseFrameEncoder encoder,
+        double x,
+        double y,
+        double z
+    ) {
+        return encoder
+            .raw('{')
+            .key("x")
+            .number(x)
+            .raw(',')
+            .key("y")
+            .number(y)
+            .raw(',')
+            .key("z")
+            .number(z)
+            .raw('}');
+    }
+
+    /**
+     * {@code message} event for dead-reckoning streams: the position plus the
+     * velocity (blocks per tick) and client tick it was sampled on, so the
+     * client can extrapolate until the next one.
+     */
+    public static SseFrame deadReckoning(
+        SseFrameEncoder encoder,
+        GameStateSnapshot state
+    ) {
+        return encoder
+            .begin("message")
+            .raw('{')
+            .key("x")
+            .number(state.x())
+            .raw(',')
+            .key("y")
+            .number(state.y())
+            .raw(',')
+            .key("z")
+            .number(state.z())
+            .raw(',')
+            .key("velocityX")
+            .number(state.velocityX())
+            .raw(',')
+            .key("velocityY")
+            .number(state.velocityY())
+            .raw(',')
+            .key("velocityZ")
+            .number(state.velocityZ())
+            .raw(',')
+            .key("tick")
+            .number(state.tick())
+            .raw('}')
+            .end();
+    }
+
+    /** {@code changeworld} event whose data is the dimension ID. */
+    public static SseFrame changeWorld(SseFrameEncoder encoder, String world) {
+        return encoder.begin("changeworld").text(world).end();
+    }
+}
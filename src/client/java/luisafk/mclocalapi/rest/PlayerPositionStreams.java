@@ -0,0 +1,221 @@
+package luisafk.mclocalapi.rest;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import luisafk.mclocalapi.MCLocalAPIConfig.StreamOverflowPolicy;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Decides, per subscriber of {@code /player/position/stream}, when the next
+ * position event is due. Each subscriber has its own interval, distance
+ * threshold and mode; the frames themselves are still encoded at most once
+ * per tick and shared by everyone who gets them.
+ */
+public class PlayerPositionStreams {
+
+    public enum Mode {
+        /** Send the position once it's more than the threshold from the last. */
+        ABSOLUTE,
+        /**
+         * Send position and velocity, and only again once extrapolating from
+         * those is more than the threshold off.
+         */
+        DEAD_RECKONING;
+
+        public static Mode fromParam(String mode) {
+            return switch (mode.toLowerCase(Locale.ROOT)) {
+                case "absolute" -> ABSOLUTE;
+                case "deadreckoning" -> DEAD_RECKONING;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * @param minDistance in blocks; {@code NaN} follows
+     *                    {@code playerPositionStreamDistanceThreshold}
+     */
+    public record Params(long minIntervalMillis, double minDistance, Mode mode) {
+        public static final Params DEFAULT = new Params(
+            0,
+            Double.NaN,
+            Mode.ABSOLUTE
+        );
+
+        double threshold() {
+            return Double.isNaN(minDistance)
+                ? config.playerPositionStreamDistanceThreshold
+                : minDistance;
+        }
+    }
+
+    private final SseHub hub;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Client thread only. */
+    private final SseFrameEncoder encoder = new SseFrameEncoder();
+    private SseFrame positionFrame;
+    private SseFrame deadReckoningFrame;
+    private SseFrame worldFrame;
+
+    public PlayerPositionStreams(SseHub hub) {
+        this.hub = hub;
+    }
+
+    /**
+     * Adds a connection whose first event, for {@code initial}, has already
+     * been written.
+     */
+    public void subscribe(
+        SseConnection connection,
+        StreamOverflowPolicy overflowPolicy,
+        int capacity,
+        Params params,
+        GameStateSnapshot initial
+    ) {
+        Subscriber subscriber = new Subscriber(
+            hub.subscribe(connection, overflowPolicy, capacity),
+            params,
+            initial
+        );
+        subscribers.add(subscriber);
+        connection.onClose(() -> subscribers.remove(subscriber));
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /** Client thread only. */
+    public void tick(GameStateSnapshot state) {
+        if (subscribers.isEmpty() || !state.hasPlayer()) {
+            return;
+        }
+
+        positionFrame = null;
+        deadReckoningFrame = null;
+        worldFrame = null;
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.tick(state);
+        }
+    }
+
+    private SseFrame positionFrame(GameStateSnapshot state) {
+        if (positionFrame == null) {
+            positionFrame = PlayerPositionEvents.position(
+                encoder,
+                state.x(),
+                state.y(),
+                state.z()
+            );
+        }
+        return positionFrame;
+    }
+
+    private SseFrame deadReckoningFrame(GameStateSnapshot state) {
+        if (deadReckoningFrame == null) {
+            deadReckoningFrame = PlayerPositionEvents.deadReckoning(
+                encoder,
+                state
+            );
+        }
+        return deadReckoningFrame;
+    }
+
+    private SseFrame worldFrame(GameStateSnapshot state) {
+        if (worldFrame == null) {
+            worldFrame = PlayerPositionEvents.changeWorld(
+                encoder,
+                state.dimension()
+            );
+        }
+        return worldFrame;
+    }
+
+    /** Touched only on the client thread once added. */
+    private class Subscriber {
+
+        private final SseHub.Subscription queue;
+        private final Params params;
+
+        private String world;
+        private long sentAt;
+        private long sentTick;
+        private double x;
+        private double y;
+        private double z;
+        private double velocityX;
+        private double velocityY;
+        private double velocityZ;
+
+        Subscriber(
+            SseHub.Subscription queue,
+            Params params,
+            GameStateSnapshot initial
+        ) {
+            this.queue = queue;
+            this.params = params;
+            this.world = initial.dimension();
+            remember(initial);
+        }
+
+        void tick(GameStateSnapshot state) {
+            boolean force = false;
+            if (!state.dimension().equals(world)) {
+                world = state.dimension();
+                queue.offer(worldFrame(state));
+                force = true;
+            }
+
+            if (
+                !force &&
+                state.capturedAt() - sentAt < params.minIntervalMillis()
+            ) {
+                return;
+            }
+
+            // Where the client believes the player is
+            double expectedX = x;
+            double expectedY = y;
+            double expectedZ = z;
+            if (params.mode() == Mode.DEAD_RECKONING) {
+                long ticks = state.tick() - sentTick;
+                expectedX += velocityX * ticks;
+                expectedY += velocityY * ticks;
+                expectedZ += velocityZ * ticks;
+            }
+
+            double dx = state.x() - expectedX;
+            double dy = state.y() - expectedY;
+            double dz = state.z() - expectedZ;
+            double threshold = params.threshold();
+            if (
+                !force && dx * dx + dy * dy + dz * dz <= threshold * threshold
+            ) {
+                return;
+            }
+
+            queue.offer(
+                params.mode() == Mode.DEAD_RECKONING
+                    ? deadReckoningFrame(state)
+                    : positionFrame(state)
+            );
+            remember(state);
+        }
+
+        private void remember(GameStateSnapshot state) {
+            sentAt = state.capturedAt();
+            sentTick = state.tick();
+            x = state.x();
+            y = state.y();
+            z = state.z();
+            velocityX = state.velocityX();
+            velocityY = state.velocityY();
+            velocityZ = state.velocityZ();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package luisafk.mclocalapi.rest;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+import static luisafk.mclocalapi.MCLocalAPIClient.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import luisafk.mclocalapi.recording.RecordingReader;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/**
+ * Plays a recording back as the same events {@code /player/position/stream}
+ * sends: a {@code changeworld} whenever the dimension changes, and a
+ * {@code message} whenever the position does, paced by the recorded
+ * timestamps divided by {@code speed}.
+ */
+public final class RecordingReplay {
+
+    public static final double MAX_SPEED = 1000;
+
+    private static final LongAdder bytesWritten = metrics.streamBytes(
+        "replay"
+    );
+
+    private RecordingReplay() {}
+
+    /** Streams the whole recording, then closes the connection. */
+    public static void run(
+        SseConnection sse,
+        RecordingReader reader,
+        double speed
+    ) {
+        SseFrameEncoder encoder = new SseFrameEncoder();
+        String dimension = null;
+        double x = Double.NaN;
+        double y = Double.NaN;
+        double z = Double.NaN;
+        long firstTime = 0;
+        long startNanos = System.nanoTime();
+        boolean started = false;
+
+        try {
+            GameStateSnapshot state;
+            while (!sse.isClosed() && (state = reader.next()) != null) {
+                if (!state.hasPlayer()) {
+                    continue;
+                }
+
+                if (!started) {
+                    firstTime = state.capturedAt();
+                    started = true;
+                }
+                waitUntil(
+                    sse,
+                    startNanos +
+                    (long) ((state.capturedAt() - firstTime) * 1e6 / speed)
+                );
+
+                if (!state.dimension().equals(dimension)) {
+                    dimension = state.dimension();
+                    write(
+                        sse,
+                        PlayerPositionEvents.changeWorld(encoder, dimension)
+                    );
+                }
+                if (state.x() != x || state.y() != y || state.z() != z) {
+                    x = state.x();
+                    y = state.y();
+                    z = state.z();
+                    write(sse, PlayerPositionEvents.position(encoder, x, y, z));
+                }
+            }
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            logger.debug("Recording replay ended with error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sse.close();
+        }
+    }
+
+    private static void write(SseConnection sse, SseFrame frame) {
+        sse.write(frame);
+        bytesWritten.add(frame.bytes().length);
+    }
+
+    /** Sleeps until {@code deadline}, sending heartbeats through long gaps. */
+    private static void waitUntil(SseConnection sse, long deadline)
+        throws InterruptedException {
+        long heartbeat = TimeUnit.SECONDS.toNanos(
+            Math.max(1, config.streamHeartbeatIntervalSeconds)
+        );
+
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > heartbeat) {
+                TimeUnit.NANOSECONDS.sleep(heartbeat);
+                sse.sendComment("keepalive");
+            } else {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package luisafk.mclocalapi.rest;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response body of unknown length. The first
+ * {@code compressionThresholdBytes} are buffered: a body that ends within
+ * them is sent plain with a {@code Content-Length}, and a longer one is sent
+ * chunked, compressed if the client accepts it. Set the other response
+ * headers before writing.
+ */
+public final class ResponseBodyStream extends OutputStream {
+
+    private final HttpExchange exchange;
+    private final int status;
+    private final ContentCoding coding;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private OutputStream out;
+    private boolean closed;
+
+    public ResponseBodyStream(HttpExchange exchange, int status) {
+        this.exchange = exchange;
+        this.status = status;
+        this.coding = ResponseCompression.negotiate(exchange);
+        if (coding != null) {
+            ResponseCompression.addVary(
+                exchange.getResponseHeaders(),
+                "Accept-Encoding"
+            );
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(b, off, len);
+            return;
+        }
+
+        buffer.write(b, off, len);
+        if (ResponseCompression.worthCompressing(buffer.size())) {
+            commit();
+        }
+    }
+
+    /** Sends what's been written so far, committing to a chunked body. */
+    @Override
+    public void flush() throws IOException {
+        if (out == null) {
+            commit();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (out != null) {
+            out.close();
+            return;
+        }
+
+        byte[] body = buffer.toByteArray();
+        buffer = null;
+        exchange.sendResponseHeaders(
+            status,
+            body.length == 0 ? -1 : body.length
+        );
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private void commit() throws IOException {
+        if (coding != null) {
+            exchange
+                .getResponseHeaders()
+                .set("Content-Encoding", coding.token());
+        }
+        exchange.sendResponseHeaders(status, 0);
+
+        OutputStream body = exchange.getResponseBody();
+        out = coding == null
+            ? body
+            : ResponseCompression.compressing(body, coding);
+        buffer.writeTo(out);
+        buffer = null;
+    }
+}
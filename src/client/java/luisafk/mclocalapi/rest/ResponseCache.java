@@ -0,0 +1,107 @@
+package luisafk.mclocalapi.rest;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Pre-encoded responses for routes whose output doesn't change during a
+ * session, keyed by route. Entries are built on first use.
+ */
+public class ResponseCache {
+
+    private final Map<String, CachedResponse> entries =
+        new ConcurrentHashMap<>();
+
+    public CachedResponse get(String key, Supplier<CachedResponse> compute) {
+        return entries.computeIfAbsent(key, k -> compute.get());
+    }
+
+    /**
+     * Sends {@code response}: the gzip variant if the client accepts it, the
+     * plain body otherwise, or 304 if {@code If-None-Match} has the tag of
+     * the variant that would be sent.
+     */
+    public static void send(HttpExchange exchange, CachedResponse response)
+        throws IOException {
+        var headers = exchange.getResponseHeaders();
+
+        boolean compressible =
+            response.hasGzip() &&
+            ResponseCompression.worthCompressing(response.body(false).length);
+        if (compressible) {
+            ResponseCompression.addVary(headers, "Accept-Encoding");
+        }
+
+        // The precompressed variant is gzip, so that's the only coding used
+        boolean gzip =
+            compressible &&
+            ResponseCompression.negotiate(exchange) != null &&
+            acceptsGzip(
+                exchange.getRequestHeaders().getFirst("Accept-Encoding")
+            );
+        String etag = response.getETag(gzip);
+        headers.set("ETag", etag);
+
+        String ifNoneMatch = exchange
+            .getRequestHeaders()
+            .getFirst("If-None-Match");
+        if (matchesETag(ifNoneMatch, etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        byte[] body = response.body(gzip);
+        headers.set("Content-Type", response.getContentType());
+        if (gzip) {
+            headers.set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /** Weak comparison, as {@code If-None-Match} calls for. */
+    static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (
+                    param.startsWith("q=") &&
+                    param.substring(2).matches("0(\\.0*)?")
+                ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
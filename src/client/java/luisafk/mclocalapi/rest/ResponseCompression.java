@@ -0,0 +1,123 @@
+package luisafk.mclocalapi.rest;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Response compression shared by every route. {@link Deflater}s hold native
+ * memory and are costly to set up, so they're pooled per coding rather than
+ * created for each response.
+ */
+public final class ResponseCompression {
+
+    private static final int MAX_POOLED = 32;
+
+    private static final Pool GZIP_POOL = new Pool(true);
+    private static final Pool DEFLATE_POOL = new Pool(false);
+
+    private ResponseCompression() {}
+
+    /**
+     * The coding to compress a response with, or {@code null} if compression
+     * is disabled or the client doesn't accept any.
+     */
+    public static ContentCoding negotiate(HttpExchange exchange) {
+        if (!config.enableResponseCompression) {
+            return null;
+        }
+        return ContentCoding.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept-Encoding")
+        );
+    }
+
+    /** Whether a body of {@code length} bytes is worth compressing. */
+    public static boolean worthCompressing(long length) {
+        return length >= config.compressionThresholdBytes;
+    }
+
+    public static byte[] compress(byte[] body, ContentCoding coding) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+            Math.max(64, body.length / 4)
+        );
+        try (OutputStream compressed = compressing(out, coding)) {
+            compressed.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Wraps {@code out} so everything written to it is compressed. Closing
+     * the returned stream finishes the compressed data, closes {@code out}
+     * and returns the deflater to the pool.
+     */
+    public static OutputStream compressing(
+        OutputStream out,
+        ContentCoding coding
+    ) throws IOException {
+        return new CompressingOutputStream(out, coding);
+    }
+
+    /** Marks the response as varying by {@code header}, keeping others. */
+    static void addVary(Headers headers, String header) {
+        String vary = headers.getFirst("Vary");
+        if (vary == null) {
+            headers.set("Vary", header);
+        } else if (!vary.contains(header)) {
+            headers.set("Vary", vary + ", " + header);
+        }
+    }
+
+    static Deflater acquire(ContentCoding coding) {
+        return (coding == ContentCoding.GZIP ? GZIP_POOL : DEFLATE_POOL)
+            .acquire();
+    }
+
+    static void release(ContentCoding coding, Deflater deflater) {
+        (coding == ContentCoding.GZIP ? GZIP_POOL : DEFLATE_POOL).release(
+            deflater
+        );
+    }
+
+    private static final class Pool {
+
+        /** gzip supplies its own header and trailer around raw deflate. */
+        private final boolean nowrap;
+        private final Queue<Deflater> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        Pool(boolean nowrap) {
+            this.nowrap = nowrap;
+        }
+
+        Deflater acquire() {
+            Deflater deflater = idle.poll();
+            if (deflater == null) {
+                return new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+            }
+            idleCount.decrementAndGet();
+            return deflater;
+        }
+
+        void release(Deflater deflater) {
+            deflater.reset();
+            if (idleCount.incrementAndGet() <= MAX_POOLED) {
+                idle.add(deflater);
+            } else {
+                idleCount.decrementAndGet();
+                deflater.end();
+            }
+        }
+    }
+}
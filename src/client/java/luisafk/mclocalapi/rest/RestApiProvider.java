@@ -1,37 +1,138 @@
 package luisafk.mclocalapi.rest;
 
+import static luisafk.mclocalapi.MCLocalAPIClient.admission;
+import static luisafk.mclocalapi.MCLocalAPIClient.clientTasks;
+import static luisafk.mclocalapi.MCLocalAPIClient.commandPipeline;
 import static luisafk.mclocalapi.MCLocalAPIClient.config;
-import static luisafk.mclocalapi.MCLocalAPIClient.fabricLoader;
-import static luisafk.mclocalapi.MCLocalAPIClient.mc;
+import static luisafk.mclocalapi.MCLocalAPIClient.entitiesSseHub;
+import static luisafk.mclocalapi.MCLocalAPIClient.entityStreams;
+import static luisafk.mclocalapi.MCLocalAPIClient.eventBus;
+import static luisafk.mclocalapi.MCLocalAPIClient.eventsSseHub;
+import static luisafk.mclocalapi.MCLocalAPIClient.game;
+import static luisafk.mclocalapi.MCLocalAPIClient.gameState;
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+import static luisafk.mclocalapi.MCLocalAPIClient.metrics;
 import static luisafk.mclocalapi.MCLocalAPIClient.modVersion;
-import static luisafk.mclocalapi.MCLocalAPIClient.posSseClients;
+import static luisafk.mclocalapi.MCLocalAPIClient.posSseHub;
+import static luisafk.mclocalapi.MCLocalAPIClient.positionHistory;
+import static luisafk.mclocalapi.MCLocalAPIClient.positionStreams;
+import static luisafk.mclocalapi.MCLocalAPIClient.sessionRecorder;
+import static luisafk.mclocalapi.MCLocalAPIClient.tickGovernor;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import net.minecraft.SharedConstants;
-import net.minecraft.resources.Identifier;
-import xaero.hud.minimap.BuiltInHudModules;
-import xaero.hud.minimap.module.MinimapSession;
-import xaero.hud.minimap.waypoint.set.WaypointSet;
-import xaero.hud.minimap.world.MinimapWorld;
+import luisafk.mclocalapi.MCLocalAPIConfig.StreamOverflowPolicy;
+import luisafk.mclocalapi.encoding.BlockSectionCodec;
+import luisafk.mclocalapi.encoding.Encoding;
+import luisafk.mclocalapi.encoding.GameStateCodec;
+import luisafk.mclocalapi.events.EventFilter;
+import luisafk.mclocalapi.events.EventSubscription;
+import luisafk.mclocalapi.events.EventTopic;
+import luisafk.mclocalapi.game.BlockRegion;
+import luisafk.mclocalapi.game.BlockSection;
+import luisafk.mclocalapi.game.WaypointStore;
+import luisafk.mclocalapi.metrics.RouteMetrics;
+import luisafk.mclocalapi.recording.RecordingReader;
+import luisafk.mclocalapi.recording.RecordingStore;
+import luisafk.mclocalapi.scheduler.BatchJob;
+import luisafk.mclocalapi.scheduler.BatchJob.Item;
+import luisafk.mclocalapi.scheduler.BatchJob.ItemResult;
+import luisafk.mclocalapi.scheduler.BatchJob.ItemStatus;
+import luisafk.mclocalapi.scheduler.BatchJob.ItemType;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import luisafk.mclocalapi.state.PathSimplifier;
+import luisafk.mclocalapi.state.PositionHistory;
+import luisafk.mclocalapi.state.ResourceVersions.Resource;
+import luisafk.mclocalapi.xaero.WaypointGrid;
+import luisafk.mclocalapi.xaero.WaypointIndex;
 
 public class RestApiProvider {
 
+    private static final String BATCH_PATH = "/chat/commands/batch";
+    private static final SseFrame HEARTBEAT = SseFrame.comment("keepalive");
+    private static final long DEFAULT_LONG_POLL_MILLIS = 30_000;
+    private static final long MAX_LONG_POLL_MILLIS = 120_000;
+
     private final HttpServer server;
     private final Gson gson = new Gson();
 
+    /** Same handlers as the server's contexts, for {@link #dispatch}. */
+    private final Map<String, HttpHandler> routes = new HashMap<>();
+
+    /** Where responses to client-thread tasks are written. */
+    private final Executor responseExecutor;
+
+    /**
+     * Exchanges whose handler returned without finishing them (see
+     * {@link #detach}), and of those, the ones still in flight. Tracked here
+     * rather than as exchange attributes, which the JDK server shares between
+     * all exchanges of a context.
+     */
+    private final Set<HttpExchange> detached = ConcurrentHashMap.newKeySet();
+    private final Set<HttpExchange> respondingAsync =
+        ConcurrentHashMap.newKeySet();
+
+    /**
+     * Exchanges being handled by {@link ExchangeWrapper}, so ones that finish
+     * after their handler returns are recorded against their route then.
+     */
+    private final Map<HttpExchange, Timing> timings =
+        new ConcurrentHashMap<>();
+
+    /** Where a request's metrics go, and when it started. */
+    private record Timing(RouteMetrics metrics, long start) {
+        void record(HttpExchange exchange) {
+            metrics.record(
+                exchange.getResponseCode(),
+                System.nanoTime() - start
+            );
+        }
+    }
+
+    private final ResponseCache responseCache = new ResponseCache();
+    private final WaypointIndex waypointIndex = new WaypointIndex();
+    private final String serverHeader =
+        "MC Local API v" + modVersion + ", " + game.name();
+
     public RestApiProvider(HttpServer server) {
         this.server = server;
+        this.responseExecutor = Objects.requireNonNullElse(
+            server.getExecutor(),
+            ForkJoinPool.commonPool()
+        );
     }
 
     public void defineRoutes() {
@@ -43,6 +144,13 @@ public class RestApiProvider {
             () -> config.enableEndpointChatCommands,
             this::handlePostChatCommands
         );
+        registerProtected(
+            BATCH_PATH,
+            () ->
+                config.enableEndpointChatCommands ||
+                config.enableEndpointChatMessages,
+            this::handleChatBatch
+        );
         registerProtected(
             "/chat/messages",
             "POST",
@@ -66,18 +174,84 @@ public class RestApiProvider {
             () -> config.enableEndpointPlayerPositionStream,
             this::handlePlayerPositionStream
         );
+        registerProtected(
+            "/entities/stream",
+            "GET",
+            () -> config.enableEndpointEntitiesStream,
+            this::handleEntitiesStream
+        );
+        registerProtected(
+            "/player/position/history",
+            "GET",
+            () -> config.enableEndpointPlayerPositionHistory,
+            this::handleGetPlayerPositionHistory
+        );
+        registerProtected(
+            "/events",
+            "GET",
+            () -> config.enableEndpointEvents,
+            this::handleEvents
+        );
+        registerProtected(
+            "/player/state",
+            "GET",
+            () -> config.enableEndpointPlayerState,
+            this::handleGetPlayerState
+        );
         registerProtected(
             "/player/world",
             "GET",
             () -> config.enableEndpointPlayerWorld,
             this::handleGetPlayerWorld
         );
+        registerProtected(
+            "/world/blocks",
+            "GET",
+            () -> config.enableEndpointWorldBlocks,
+            this::handleGetWorldBlocks
+        );
         registerProtected(
             "/screen",
             "GET",
             () -> config.enableEndpointScreen,
             this::handleGetScreen
         );
+        registerProtected(
+            "/xaero/waypoints",
+            "GET",
+            () -> config.enableEndpointXaeroWaypoints,
+            this::handleGetXaeroWaypoints
+        );
+        registerProtected(
+            "/xaero/waypoints/nearest",
+            "GET",
+            () -> config.enableEndpointXaeroWaypoints,
+            this::handleXaeroWaypointsNearest
+        );
+        registerProtected(
+            "/xaero/waypoints/within",
+            "GET",
+            () -> config.enableEndpointXaeroWaypoints,
+            this::handleXaeroWaypointsWithin
+        );
+        registerProtected(
+            "/recordings",
+            "GET",
+            () -> config.enableEndpointRecordings,
+            this::handleRecordings
+        );
+        registerProtected(
+            "/metrics",
+            "GET",
+            () -> config.enableEndpointMetrics,
+            this::handleGetMetrics
+        );
+        registerProtected(
+            "/governor",
+            "GET",
+            () -> config.enableEndpointGovernor,
+            exchange -> sendJson(exchange, tickGovernor.status())
+        );
         registerProtected(
             "/xaero/waypoint-sets",
             () -> config.enableEndpointXaeroWaypointSets,
@@ -94,10 +268,64 @@ public class RestApiProvider {
         );
     }
 
+    /**
+     * Runs a request that didn't come through the HTTP server (e.g. a
+     * WebSocket call) through the same routes. The returned future completes
+     * once the handler has closed the exchange.
+     */
+    public CompletableFuture<LocalExchange> dispatch(LocalExchange exchange) {
+        serve(exchange);
+        return exchange.getCompletion();
+    }
+
+    /**
+     * Routes an exchange from another transport (see
+     * {@link luisafk.mclocalapi.transport.NioHttpServer}) the way the HTTP
+     * server would. The exchange is closed once the response is complete,
+     * possibly later and on another thread.
+     */
+    public void serve(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        HttpHandler handler = null;
+        String match = null;
+
+        // Longest matching context wins, like HttpServer
+        for (var route : routes.entrySet()) {
+            String context = route.getKey();
+            boolean matches =
+                path.equals(context) ||
+                (path.startsWith(context) &&
+                    (context.endsWith("/") ||
+                        path.charAt(context.length()) == '/'));
+            if (
+                matches && (match == null || context.length() > match.length())
+            ) {
+                match = context;
+                handler = route.getValue();
+            }
+        }
+
+        if (handler == null) {
+            sendError(exchange, 404, "Not Found");
+            exchange.close();
+        } else {
+            try {
+                handler.handle(exchange);
+            } catch (IOException e) {
+                // ExchangeWrapper handles its own errors
+            }
+        }
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        routes.put(path, handler);
+        server.createContext(path, handler);
+    }
+
     private void register(String path, String method, HttpHandler handler) {
-        server.createContext(
+        createContext(
             path,
-            new ExchangeWrapper(exchange -> {
+            new ExchangeWrapper(path, exchange -> {
                 if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
                     throw new ApiException(405, "Method Not Allowed");
                 }
@@ -125,9 +353,9 @@ public class RestApiProvider {
         Supplier<Boolean> enabledCheck,
         HttpHandler handler
     ) {
-        server.createContext(
+        createContext(
             path,
-            new ExchangeWrapper(exchange -> {
+            new ExchangeWrapper(path, exchange -> {
                 if (!enabledCheck.get()) {
                     throw new ApiException(
                         403,
@@ -139,158 +367,1387 @@ public class RestApiProvider {
         );
     }
 
+    /** Must be called on the client thread. */
     private void requirePlayer() {
-        if (mc.player == null) {
+        if (!game.canSendChat()) {
             throw new ApiException(503, "Player not available");
         }
     }
 
+    private static WaypointStore requireWaypoints() {
+        WaypointStore waypoints = game.waypoints();
+        if (waypoints == null) {
+            throw new ApiException(503, "No Xaero's Minimap session available");
+        }
+        return waypoints;
+    }
+
+    /**
+     * Returns the latest tick snapshot, failing with 503 if it has no player.
+     * The snapshot's tick is sent as {@code X-MC-Tick} so clients can tell how
+     * fresh the data is.
+     */
+    private GameStateSnapshot requirePlayerSnapshot(HttpExchange exchange) {
+        GameStateSnapshot state = snapshot(exchange);
+        if (!state.hasPlayer()) {
+            throw new ApiException(503, "Player not available");
+        }
+        return state;
+    }
+
+    private GameStateSnapshot snapshot(HttpExchange exchange) {
+        GameStateSnapshot state = gameState.current();
+        exchange
+            .getResponseHeaders()
+            .set("X-MC-Tick", Long.toString(state.tick()));
+        return state;
+    }
+
     private void handleRoot(HttpExchange exchange) throws IOException {
-        String text =
-            "MC Local API v" +
-            modVersion +
-            " running on Minecraft " +
-            mc.getLaunchedVersion() +
-            " " +
-            SharedConstants.getCurrentVersion().name();
-        sendText(exchange, 200, text);
+        ResponseCache.send(
+            exchange,
+            responseCache.get("/", () ->
+                CachedResponse.text(
+                    "MC Local API v" +
+                        modVersion +
+                        " running on " +
+                        game.description()
+                )
+            )
+        );
     }
 
     private void handlePostChatCommands(HttpExchange exchange)
         throws IOException {
-        requirePlayer();
+        requirePlayerSnapshot(exchange);
 
         String command = readBody(exchange);
         if (command.isEmpty()) {
             throw new ApiException(400, "Command cannot be empty");
         }
 
-        mc.getConnection().sendCommand(command);
-        exchange.sendResponseHeaders(204, -1);
+        respondAsync(
+            exchange,
+            runOnClientThread(() -> {
+                requirePlayer();
+                game.sendCommand(command);
+                return null;
+            }),
+            (ex, result) -> ex.sendResponseHeaders(204, -1)
+        );
     }
 
     private void handlePostChatMessages(HttpExchange exchange)
         throws IOException {
-        requirePlayer();
+        requirePlayerSnapshot(exchange);
 
         String message = readBody(exchange);
         if (message.isEmpty()) {
             throw new ApiException(400, "Message cannot be empty");
         }
 
-        mc.getConnection().sendChat(message);
-        exchange.sendResponseHeaders(204, -1);
+        respondAsync(
+            exchange,
+            runOnClientThread(() -> {
+                requirePlayer();
+                game.sendChat(message);
+                return null;
+            }),
+            (ex, result) -> ex.sendResponseHeaders(204, -1)
+        );
     }
 
-    private void handleGetMods(HttpExchange exchange) throws IOException {
-        Map<String, String> mods = new HashMap<>();
+    /**
+     * {@code POST /chat/commands/batch} queues a JSON array of items (strings
+     * are commands; objects are {@code {"command": ...}} or
+     * {@code {"message": ...}}) and returns a job ID.
+     * {@code GET /chat/commands/batch/<id>} returns the job's results so far
+     * and {@code GET /chat/commands/batch/<id>/events} streams them.
+     */
+    private void handleChatBatch(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod().toUpperCase();
+        String rest = exchange
+            .getRequestURI()
+            .getPath()
+            .substring(BATCH_PATH.length());
+
+        if (rest.isEmpty() || rest.equals("/")) {
+            if (!method.equals("POST")) {
+                throw new ApiException(405, "Method Not Allowed");
+            }
+            handlePostChatBatch(exchange);
+            return;
+        }
+
+        if (!method.equals("GET")) {
+            throw new ApiException(405, "Method Not Allowed");
+        }
+
+        String[] parts = rest.substring(1).split("/");
+        BatchJob job = commandPipeline.getJob(parts[0]);
+        if (job == null) {
+            throw new ApiException(404, "Unknown batch job");
+        }
+
+        if (parts.length == 1) {
+            handleGetChatBatch(exchange, job);
+        } else if (parts.length == 2 && parts[1].equals("events")) {
+            handleChatBatchEvents(exchange, job);
+        } else {
+            throw new ApiException(404, "Not Found");
+        }
+    }
+
+    private void handlePostChatBatch(HttpExchange exchange)
+        throws IOException {
+        List<Item> items = parseBatchItems(readBody(exchange));
+        if (items.isEmpty()) {
+            throw new ApiException(400, "Batch cannot be empty");
+        }
+
+        for (Item item : items) {
+            boolean enabled = switch (item.type()) {
+                case COMMAND -> config.enableEndpointChatCommands;
+                case MESSAGE -> config.enableEndpointChatMessages;
+            };
+            if (!enabled) {
+                throw new ApiException(
+                    403,
+                    "Sending " +
+                        item.type().name().toLowerCase() +
+                        "s is disabled in the user's configuration"
+                );
+            }
+        }
+
+        BatchJob job;
+        try {
+            job = commandPipeline.submit(items);
+        } catch (RejectedExecutionException e) {
+            throw new ApiException(503, "Too many pending batch items")
+                .withHeader("Retry-After", "5")
+                .withHeader(
+                    "X-Queue-Depth",
+                    Integer.toString(commandPipeline.getQueueDepth())
+                );
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", job.getId());
+        response.put("items", items.size());
+        response.put("events", BATCH_PATH + "/" + job.getId() + "/events");
+        sendJson(exchange, 202, response);
+    }
+
+    private static List<Item> parseBatchItems(String body) {
+        JsonArray array;
+        try {
+            array = JsonParser.parseString(body).getAsJsonArray();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new ApiException(400, "Body must be a JSON array");
+        }
+
+        List<Item> items = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            if (
+                element.isJsonPrimitive() &&
+                element.getAsJsonPrimitive().isString()
+            ) {
+                items.add(new Item(ItemType.COMMAND, element.getAsString()));
+            } else if (element.isJsonObject()) {
+                JsonObject object = element.getAsJsonObject();
+                if (object.has("command")) {
+                    items.add(
+                        new Item(
+                            ItemType.COMMAND,
+                            batchItemText(object.get("command"))
+                        )
+                    );
+                } else if (object.has("message")) {
+                    items.add(
+                        new Item(
+                            ItemType.MESSAGE,
+                            batchItemText(object.get("message"))
+                        )
+                    );
+                } else {
+                    throw new ApiException(
+                        400,
+                        "Batch items must have a command or message"
+                    );
+                }
+            } else {
+                throw new ApiException(
+                    400,
+                    "Batch items must be strings or objects"
+                );
+            }
+        }
+
+        return items;
+    }
+
+    private static String batchItemText(JsonElement element) {
+        if (
+            !element.isJsonPrimitive() ||
+            !element.getAsJsonPrimitive().isString()
+        ) {
+            throw new ApiException(400, "Batch item text must be a string");
+        }
+        return element.getAsString();
+    }
+
+    private void handleGetChatBatch(HttpExchange exchange, BatchJob job)
+        throws IOException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (ItemResult result : job.getResults()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("index", result.index());
+            entry.put("status", result.status().name().toLowerCase());
+            if (result.error() != null) {
+                entry.put("error", result.error());
+            }
+            results.add(entry);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", job.getId());
+        response.put("done", job.isDone());
+        response.put("items", job.getItems().size());
+        response.put("results", results);
+        sendJson(exchange, response);
+    }
+
+    /**
+     * Streams one {@code result} event per item as it finishes (replaying
+     * those that already have), then a {@code done} event with totals.
+     */
+    private void handleChatBatchEvents(HttpExchange exchange, BatchJob job)
+        throws IOException {
+        SseConnection sse = startEventStream(exchange);
+        detach(exchange);
+
+        // Waiting on the job would otherwise hold a request thread, which
+        // may come from a small platform pool
+        Thread.ofVirtual()
+            .name("mc-local-api-batch-" + job.getId())
+            .start(() -> streamBatchResults(sse, job));
+    }
+
+    private static void streamBatchResults(SseConnection sse, BatchJob job) {
+        SseFrameEncoder encoder = new SseFrameEncoder();
+        long heartbeatMillis =
+            Math.max(1, config.streamHeartbeatIntervalSeconds) * 1000L;
+
+        try {
+            int n = 0;
+            while (!sse.isClosed()) {
+                ItemResult result = job.awaitResult(n, heartbeatMillis);
+                if (result == null) {
+                    if (n >= job.getItems().size()) {
+                        break;
+                    }
+                    sse.write(HEARTBEAT);
+                    continue;
+                }
+
+                encoder
+                    .begin("result")
+                    .raw('{')
+                    .key("index")
+                    .number(result.index())
+                    .raw(',')
+                    .key("status")
+                    .string(result.status().name().toLowerCase());
+                if (result.error() != null) {
+                    encoder.raw(',').key("error").string(result.error());
+                }
+                sse.write(encoder.raw('}').end());
+                n++;
+            }
 
-        fabricLoader.getAllMods().forEach(modContainer -> {
-            var metadata = modContainer.getMetadata();
-            mods.put(
-                metadata.getId(),
-                metadata.getVersion().getFriendlyString()
+            sse.write(
+                encoder
+                    .begin("done")
+                    .raw('{')
+                    .key("sent")
+                    .number(job.count(ItemStatus.SENT))
+                    .raw(',')
+                    .key("rejected")
+                    .number(job.count(ItemStatus.REJECTED))
+                    .raw(',')
+                    .key("timedOut")
+                    .number(job.count(ItemStatus.TIMED_OUT))
+                    .raw('}')
+                    .end()
             );
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // The client went away; nothing else to do
+        } finally {
+            sse.close();
+        }
+    }
 
-        sendJson(exchange, mods);
+    private void handleGetMods(HttpExchange exchange) throws IOException {
+        // Mods can't be loaded or unloaded while the game is running
+        ResponseCache.send(
+            exchange,
+            responseCache.get("/mods", () ->
+                CachedResponse.json(gson.toJson(game.mods()))
+            )
+        );
     }
 
     private void handleGetPlayerPosition(HttpExchange exchange)
         throws IOException {
-        requirePlayer();
-        sendText(exchange, 200, mc.player.position().toString());
+        respondVersioned(exchange, Resource.POSITION, this::sendPlayerPosition);
+    }
+
+    private void sendPlayerPosition(HttpExchange exchange) throws IOException {
+        GameStateSnapshot state = requirePlayerSnapshot(exchange);
+        Encoding encoding = negotiate(exchange);
+
+        if (encoding == null) {
+            // Same format as Vec3.toString(), which this endpoint used to return
+            sendText(
+                exchange,
+                200,
+                "(" + state.x() + ", " + state.y() + ", " + state.z() + ")"
+            );
+        } else if (encoding == Encoding.BINARY) {
+            sendEncoded(
+                exchange,
+                encoding,
+                GameStateCodec.binaryPosition(state.x(), state.y(), state.z())
+            );
+        } else {
+            sendEncoded(
+                exchange,
+                encoding,
+                GameStateCodec.writePosition(
+                    encoding.newWriter(),
+                    state.x(),
+                    state.y(),
+                    state.z()
+                ).toByteArray()
+            );
+        }
+    }
+
+    private void handleGetPlayerState(HttpExchange exchange)
+        throws IOException {
+        GameStateSnapshot state = requirePlayerSnapshot(exchange);
+        Encoding encoding = negotiate(exchange);
+
+        if (encoding == null || encoding == Encoding.JSON) {
+            sendJson(exchange, state);
+        } else if (encoding == Encoding.BINARY) {
+            sendEncoded(exchange, encoding, GameStateCodec.binaryState(state));
+        } else {
+            sendEncoded(
+                exchange,
+                encoding,
+                GameStateCodec.writeState(
+                    encoding.newWriter(),
+                    state
+                ).toByteArray()
+            );
+        }
     }
 
     private void handlePlayerPositionStream(HttpExchange exchange)
         throws IOException {
-        requirePlayer();
+        GameStateSnapshot state = requirePlayerSnapshot(exchange);
+
+        Map<String, String> query = parseQuery(exchange);
+        StreamOverflowPolicy overflowPolicy = parseOverflowPolicy(query);
+        PlayerPositionStreams.Params params = parsePositionStreamParams(query);
+        admission.admitStream(
+            posSseHub.getSubscriberCount(),
+            config.maxPlayerPositionStreamClients
+        );
+
+        SseConnection sse = startEventStream(exchange);
+        SseFrameEncoder encoder = new SseFrameEncoder();
+        sse.write(
+            params.mode() == PlayerPositionStreams.Mode.DEAD_RECKONING
+                ? PlayerPositionEvents.deadReckoning(encoder, state)
+                : PlayerPositionEvents.position(
+                      encoder,
+                      state.x(),
+                      state.y(),
+                      state.z()
+                  )
+        );
+
+        // The hub writes to the connection from now on, so release this
+        // request thread instead of parking it for the stream's lifetime.
+        positionStreams.subscribe(
+            sse,
+            overflowPolicy,
+            config.playerPositionStreamQueueCapacity,
+            params,
+            state
+        );
+        detach(exchange);
+    }
+
+    private static PlayerPositionStreams.Params parsePositionStreamParams(
+        Map<String, String> query
+    ) {
+        PlayerPositionStreams.Params defaults =
+            PlayerPositionStreams.Params.DEFAULT;
+
+        long minIntervalMillis = defaults.minIntervalMillis();
+        double minDistance = defaults.minDistance();
+        PlayerPositionStreams.Mode mode = defaults.mode();
+
+        try {
+            if (query.containsKey("minIntervalMs")) {
+                minIntervalMillis = Long.parseLong(query.get("minIntervalMs"));
+            }
+            if (query.containsKey("minDistance")) {
+                minDistance = Double.parseDouble(query.get("minDistance"));
+            }
+        } catch (NumberFormatException e) {
+            throw new ApiException(
+                400,
+                "minIntervalMs and minDistance must be numbers"
+            );
+        }
+
+        if (minIntervalMillis < 0 || minDistance < 0) {
+            throw new ApiException(
+                400,
+                "minIntervalMs and minDistance must not be negative"
+            );
+        }
+
+        if (query.containsKey("mode")) {
+            mode = PlayerPositionStreams.Mode.fromParam(query.get("mode"));
+            if (mode == null) {
+                throw new ApiException(
+                    400,
+                    "mode must be absolute or deadReckoning"
+                );
+            }
+        }
+
+        return new PlayerPositionStreams.Params(
+            minIntervalMillis,
+            minDistance,
+            mode
+        );
+    }
+
+    /**
+     * {@code GET /entities/stream?radius=&types=} streams the entities within
+     * {@code radius} blocks of the player (64 by default), optionally only
+     * those of the comma-separated {@code types}, as {@link EntityStreams}
+     * describes.
+     */
+    private void handleEntitiesStream(HttpExchange exchange)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+
+        double radius = Math.min(64, config.maxEntityStreamRadius);
+        if (query.containsKey("radius")) {
+            try {
+                radius = Double.parseDouble(query.get("radius"));
+            } catch (NumberFormatException e) {
+                radius = -1;
+            }
+            if (!(radius >= 0 && radius <= config.maxEntityStreamRadius)) {
+                throw new ApiException(
+                    400,
+                    "radius must be a number from 0 to " +
+                    config.maxEntityStreamRadius
+                );
+            }
+        }
+
+        Set<String> types = null;
+        if (query.containsKey("types")) {
+            types = new HashSet<>();
+            for (String type : query.get("types").split(",")) {
+                type = type.trim().toLowerCase(Locale.ROOT);
+                if (!type.isEmpty()) {
+                    types.add(type.contains(":") ? type : "minecraft:" + type);
+                }
+            }
+        }
+
+        admission.admitStream(
+            entitiesSseHub.getSubscriberCount(),
+            config.maxEntityStreamClients
+        );
+
+        SseConnection sse = startEventStream(exchange);
+        entityStreams.subscribe(
+            sse,
+            config.playerPositionStreamQueueCapacity,
+            new EntityStreams.Params(radius, types)
+        );
+        detach(exchange);
+    }
+
+    private void handleGetPlayerPositionHistory(HttpExchange exchange)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        int maxPoints = parseIntParam(query, "maxPoints", 1000, 2, 10000);
+
+        long from;
+        long to;
+        try {
+            from = query.containsKey("from")
+                ? Long.parseLong(query.get("from"))
+                : Long.MIN_VALUE;
+            to = query.containsKey("to")
+                ? Long.parseLong(query.get("to"))
+                : Long.MAX_VALUE - 1;
+        } catch (NumberFormatException e) {
+            throw new ApiException(
+                400,
+                "from and to must be epoch milliseconds"
+            );
+        }
+        if (from > to) {
+            throw new ApiException(400, "from must not be after to");
+        }
+
+        PositionHistory.Samples samples = positionHistory.query(from, to);
+        int[] kept = PathSimplifier.simplify(samples, maxPoints);
+
+        try (JsonWriter json = startJson(exchange)) {
+            json.beginObject();
+            json.name("count").value(samples.size());
+            json.name("points").beginArray();
+            for (int i : kept) {
+                json.beginObject();
+                json.name("tick").value(samples.ticks()[i]);
+                json.name("time").value(samples.times()[i]);
+                json.name("x").value(samples.xs()[i]);
+                json.name("y").value(samples.ys()[i]);
+                json.name("z").value(samples.zs()[i]);
+                json.name("dimension").value(samples.dimension(i));
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private void handleGetMetrics(HttpExchange exchange) throws IOException {
+        sendBody(
+            exchange,
+            200,
+            "text/plain; version=0.0.4; charset=UTF-8",
+            metrics.scrape().getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * {@code GET /recordings} lists session recordings;
+     * {@code GET /recordings/{id}/replay?speed=} streams one back.
+     */
+    private void handleRecordings(HttpExchange exchange) throws IOException {
+        String path = exchange
+            .getRequestURI()
+            .getPath()
+            .substring("/recordings".length());
+
+        if (path.isEmpty() || path.equals("/")) {
+            sendRecordingList(exchange);
+            return;
+        }
+
+        String[] parts = path.substring(1).split("/");
+        if (parts.length == 2 && parts[1].equals("replay")) {
+            handleRecordingReplay(exchange, parts[0]);
+            return;
+        }
+
+        throw new ApiException(404, "Not Found");
+    }
+
+    private void sendRecordingList(HttpExchange exchange) throws IOException {
+        List<RecordingStore.Info> recordings = sessionRecorder
+            .getStore()
+            .list();
+        String active = sessionRecorder.getActiveId();
+
+        try (JsonWriter json = startJson(exchange)) {
+            json.beginArray();
+            for (RecordingStore.Info info : recordings) {
+                json.beginObject();
+                json.name("id").value(info.id());
+                json.name("startedAt").value(info.startedAt());
+                json.name("segments").value(info.segments());
+                json.name("records").value(info.records());
+                json.name("bytes").value(info.bytes());
+                json.name("active").value(info.id().equals(active));
+                json.endObject();
+            }
+            json.endArray();
+        }
+    }
+
+    private void handleRecordingReplay(HttpExchange exchange, String id)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+
+        double speed = 1;
+        if (query.containsKey("speed")) {
+            try {
+                speed = Double.parseDouble(query.get("speed"));
+            } catch (NumberFormatException e) {
+                speed = -1;
+            }
+            if (!(speed > 0 && speed <= RecordingReplay.MAX_SPEED)) {
+                throw new ApiException(
+                    400,
+                    "speed must be greater than 0 and at most " +
+                    RecordingReplay.MAX_SPEED
+                );
+            }
+        }
+
+        RecordingReader reader = sessionRecorder.getStore().open(id);
+        if (reader == null) {
+            throw new ApiException(404, "Recording not found");
+        }
+
+        // Replays are long-lived and mostly asleep, so they get a virtual
+        // thread of their own rather than holding a request thread
+        SseConnection sse = startEventStream(exchange);
+        double replaySpeed = speed;
+        Thread.ofVirtual()
+            .name("mc-local-api-replay-" + id)
+            .start(() -> RecordingReplay.run(sse, reader, replaySpeed));
+        detach(exchange);
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
 
+        String topicsParam = query.get("topics");
+        if (topicsParam == null || topicsParam.isBlank()) {
+            throw new ApiException(400, "topics is required");
+        }
+
+        Set<EventTopic> topics = EnumSet.noneOf(EventTopic.class);
+        for (String id : topicsParam.split(",")) {
+            EventTopic topic = EventTopic.fromId(id.trim());
+            if (topic == null) {
+                throw new ApiException(400, "Unknown topic: " + id.trim());
+            }
+            topics.add(topic);
+        }
+
+        EventFilter filter;
+        try {
+            filter = EventFilter.parse(
+                query.get("bbox"),
+                query.get("minIntervalMs")
+            );
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Invalid filter: " + e.getMessage());
+        }
+
+        StreamOverflowPolicy overflowPolicy = parseOverflowPolicy(query);
+
+        SseConnection sse = startEventStream(exchange);
+        SseHub.Subscription queue = eventsSseHub.subscribe(
+            sse,
+            overflowPolicy,
+            config.playerPositionStreamQueueCapacity
+        );
+        EventSubscription subscription = eventBus.subscribe(
+            topics,
+            filter,
+            event -> queue.offer(event.sseFrame())
+        );
+        sse.onClose(() -> eventBus.unsubscribe(subscription));
+        detach(exchange);
+    }
+
+    private static StreamOverflowPolicy parseOverflowPolicy(
+        Map<String, String> query
+    ) {
+        String overflow = query.get("overflow");
+        if (overflow == null) {
+            return config.playerPositionStreamOverflowPolicy;
+        }
+
+        try {
+            return StreamOverflowPolicy.valueOf(overflow.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(
+                400,
+                "overflow must be one of coalesce_latest, drop_oldest, disconnect"
+            );
+        }
+    }
+
+    /** Sends the SSE response headers. */
+    private static SseConnection startEventStream(HttpExchange exchange)
+        throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
         exchange.getResponseHeaders().set("Cache-Control", "no-cache");
         exchange.getResponseHeaders().set("Connection", "keep-alive");
         exchange.sendResponseHeaders(200, 0);
+        return new SseConnection(exchange);
+    }
 
-        SseConnection sse = new SseConnection(exchange);
-        sse.sendEvent(mc.player.position().toString());
+    private void handleGetPlayerWorld(HttpExchange exchange)
+        throws IOException {
+        respondVersioned(exchange, Resource.WORLD, this::sendPlayerWorld);
+    }
 
-        Thread handlerThread = Thread.currentThread();
-        sse.onClose(() -> {
-            posSseClients.remove(sse);
-            handlerThread.interrupt();
-        });
-        posSseClients.add(sse);
+    private void sendPlayerWorld(HttpExchange exchange) throws IOException {
+        String dimension = requirePlayerSnapshot(exchange).dimension();
+        Encoding encoding = negotiate(exchange);
 
+        if (encoding == null) {
+            sendText(exchange, 200, dimension);
+        } else if (encoding == Encoding.BINARY) {
+            sendEncoded(exchange, encoding, GameStateCodec.binaryWorld(dimension));
+        } else {
+            sendEncoded(
+                exchange,
+                encoding,
+                GameStateCodec.writeWorld(
+                    encoding.newWriter(),
+                    dimension
+                ).toByteArray()
+            );
+        }
+    }
+
+    /**
+     * {@code GET /world/blocks?min=x,y,z&max=x,y,z} streams the loaded
+     * sections a box touches, in {@link BlockSectionCodec}'s format. They're
+     * copied on the client thread up to {@code blockSectionsPerTick} at a
+     * time and encoded off it as they come, so neither a tick nor the
+     * response ever holds the whole region. Batches may be from different
+     * ticks.
+     */
+    private void handleGetWorldBlocks(HttpExchange exchange)
+        throws IOException {
+        requirePlayerSnapshot(exchange);
+        Map<String, String> query = parseQuery(exchange);
+        int[] min = parseBlockPos(query, "min");
+        int[] max = parseBlockPos(query, "max");
+
+        BlockRegion region;
         try {
-            while (!sse.isClosed()) {
+            region = new BlockRegion(
+                min[0],
+                min[1],
+                min[2],
+                max[0],
+                max[1],
+                max[2]
+            );
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "min must not exceed max on any axis");
+        }
+        long sectionCount = region.sectionCount();
+        if (sectionCount > config.maxBlockQuerySections) {
+            throw new ApiException(
+                400,
+                "The region spans " +
+                    (sectionCount == Long.MAX_VALUE
+                        ? "too many"
+                        : Long.toString(sectionCount)) +
+                    " sections, more than the " +
+                    config.maxBlockQuerySections +
+                    " allowed"
+            );
+        }
+
+        exchange
+            .getResponseHeaders()
+            .set("Content-Type", BlockSectionCodec.CONTENT_TYPE);
+        Timing timing = respondLater(exchange);
+
+        // Waiting on the client thread would otherwise hold a request
+        // thread, which may come from a small platform pool
+        Thread.ofVirtual()
+            .name("mc-local-api-blocks")
+            .start(() -> {
                 try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+                    streamBlocks(new ResponseBodyStream(exchange, 200), region);
+                } catch (Exception e) {
+                    // Sent only if nothing was yet; otherwise the missing
+                    // end marker tells the client
+                    sendFailure(exchange, e);
+                } finally {
+                    finishLater(exchange, timing);
                 }
+            });
+    }
+
+    private static void streamBlocks(OutputStream body, BlockRegion region)
+        throws IOException {
+        body.write(BlockSectionCodec.header(region));
+
+        List<BlockRegion.SectionPos> sections = region.sections();
+        int batchSize = config.blockSectionsPerTick;
+
+        // Copy the next batch while this one is encoded
+        CompletableFuture<List<CopiedSection>> next = copySections(
+            sections,
+            0,
+            batchSize
+        );
+        for (int start = 0; start < sections.size(); start += batchSize) {
+            List<CopiedSection> batch = next.join();
+            if (start + batchSize < sections.size()) {
+                next = copySections(sections, start + batchSize, batchSize);
+            }
+
+            for (CopiedSection copied : batch) {
+                body.write(
+                    BlockSectionCodec.section(
+                        copied.pos().x(),
+                        copied.pos().y(),
+                        copied.pos().z(),
+                        copied.section()
+                    )
+                );
             }
-        } finally {
-            sse.close();
         }
+
+        body.write(BlockSectionCodec.end());
+        body.close();
     }
 
-    private void handleGetPlayerWorld(HttpExchange exchange)
-        throws IOException {
-        requirePlayer();
+    private record CopiedSection(
+        BlockRegion.SectionPos pos,
+        BlockSection<?> section
+    ) {}
 
-        Identifier world = mc.level.dimension().identifier();
-        sendText(exchange, 200, world.toString());
+    /** Copies the loaded sections of {@code sections[start, start + n)}. */
+    private static CompletableFuture<List<CopiedSection>> copySections(
+        List<BlockRegion.SectionPos> sections,
+        int start,
+        int n
+    ) {
+        List<BlockRegion.SectionPos> batch = sections.subList(
+            start,
+            Math.min(start + n, sections.size())
+        );
+        return runOnClientThread(() -> {
+            List<CopiedSection> copied = new ArrayList<>(batch.size());
+            for (BlockRegion.SectionPos pos : batch) {
+                BlockSection<?> section = game.copySection(
+                    pos.x(),
+                    pos.y(),
+                    pos.z()
+                );
+                if (section != null) {
+                    copied.add(new CopiedSection(pos, section));
+                }
+            }
+            return copied;
+        });
+    }
+
+    /** An {@code x,y,z} block position. */
+    private static int[] parseBlockPos(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new ApiException(400, name + " is required");
+        }
+
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            throw new ApiException(400, name + " must be x,y,z");
+        }
+        int[] pos = new int[3];
+        try {
+            for (int i = 0; i < 3; i++) {
+                pos[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be x,y,z integers");
+        }
+        return pos;
     }
 
     private void handleGetScreen(HttpExchange exchange) throws IOException {
-        requirePlayer();
+        respondVersioned(exchange, Resource.SCREEN, this::sendScreen);
+    }
 
-        var screen = mc.gui.screen();
+    private void sendScreen(HttpExchange exchange) throws IOException {
+        String screenTitle = requirePlayerSnapshot(exchange).screenTitle();
 
-        if (screen == null) {
+        if (screenTitle == null) {
             exchange.sendResponseHeaders(204, -1);
             return;
         }
 
-        sendText(exchange, 200, screen.getTitle().getString());
+        sendText(exchange, 200, screenTitle);
     }
 
     private void handleGetXaeroWaypointSets(HttpExchange exchange)
         throws IOException {
-        MinimapSession session = BuiltInHudModules.MINIMAP.getCurrentSession();
+        // Xaero's objects are live, so they're serialized where they change
+        respondAsync(
+            exchange,
+            runOnClientThread(() ->
+                gson.toJson(requireWaypoints().describeSets())
+            ),
+            (ex, json) -> sendJsonString(ex, json)
+        );
+    }
 
-        if (session == null) {
-            throw new ApiException(503, "No Xaero's Minimap session available");
+    private void handleGetXaeroWaypoints(HttpExchange exchange)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+
+        int limit = parseIntParam(
+            query,
+            "limit",
+            XaeroWaypointExport.DEFAULT_LIMIT,
+            1,
+            XaeroWaypointExport.MAX_LIMIT
+        );
+
+        EventFilter bbox;
+        try {
+            bbox = EventFilter.parse(query.get("bbox"), null);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Invalid bbox: " + e.getMessage());
+        }
+
+        // Xaero only exposes the waypoints of the world the player is in
+        String dimension = snapshot(exchange).dimension();
+        String requestedDimension = query.get("dimension");
+        if (
+            requestedDimension != null &&
+            !requestedDimension.equals(dimension)
+        ) {
+            throw new ApiException(
+                409,
+                "Only the current dimension's waypoints are available"
+            );
+        }
+
+        XaeroWaypointExport.Query exportQuery = XaeroWaypointExport.Query.of(
+            query.get("set"),
+            bbox,
+            query.get("cursor"),
+            limit
+        );
+        respondAsync(
+            exchange,
+            runOnClientThread(() ->
+                XaeroWaypointExport.collect(requireWaypoints(), exportQuery)
+            ),
+            (ex, page) -> {
+                ex
+                    .getResponseHeaders()
+                    .set("Content-Type", "application/json; charset=UTF-8");
+                XaeroWaypointExport.write(
+                    new ResponseBodyStream(ex, 200),
+                    dimension,
+                    page
+                );
+            }
+        );
+    }
+
+    private void handleXaeroWaypointsNearest(HttpExchange exchange)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        int k = parseIntParam(query, "k", 10, 1, XaeroWaypointExport.MAX_LIMIT);
+        WaypointQuery at = waypointQuery(exchange, query);
+
+        respondWaypointMatches(exchange, at, grid ->
+            grid.nearest(at.x(), at.y(), at.z(), k)
+        );
+    }
+
+    private void handleXaeroWaypointsWithin(HttpExchange exchange)
+        throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        int limit = parseIntParam(
+            query,
+            "limit",
+            XaeroWaypointExport.DEFAULT_LIMIT,
+            1,
+            XaeroWaypointExport.MAX_LIMIT
+        );
+
+        String radiusParam = query.get("radius");
+        if (radiusParam == null) {
+            throw new ApiException(400, "radius is required");
+        }
+        double radius;
+        try {
+            radius = Double.parseDouble(radiusParam);
+        } catch (NumberFormatException e) {
+            radius = -1;
+        }
+        if (!(radius >= 0)) {
+            throw new ApiException(400, "radius must be a non-negative number");
         }
 
-        MinimapWorld world = session.getWorldManager().getCurrentWorld();
+        WaypointQuery at = waypointQuery(exchange, query);
+        double withinRadius = radius;
+        respondWaypointMatches(exchange, at, grid ->
+            grid.within(at.x(), at.y(), at.z(), withinRadius, limit)
+        );
+    }
+
+    private record WaypointQuery(
+        String dimension,
+        double x,
+        double y,
+        double z
+    ) {}
 
-        List<WaypointSet> allWaypoints = new ArrayList<>();
-        for (WaypointSet set : world.getIterableWaypointSets()) {
-            allWaypoints.add(set);
+    /**
+     * The current world and the query point: {@code x}/{@code y}/{@code z}
+     * if given, otherwise the player's position.
+     */
+    private WaypointQuery waypointQuery(
+        HttpExchange exchange,
+        Map<String, String> query
+    ) {
+        GameStateSnapshot state = snapshot(exchange);
+        boolean explicit =
+            query.containsKey("x") &&
+            query.containsKey("y") &&
+            query.containsKey("z");
+        if (!explicit && !state.hasPlayer()) {
+            throw new ApiException(
+                503,
+                "Player not available; pass x, y and z explicitly"
+            );
+        }
+
+        double x = state.x();
+        double y = state.y();
+        double z = state.z();
+        if (explicit) {
+            try {
+                x = Double.parseDouble(query.get("x"));
+                y = Double.parseDouble(query.get("y"));
+                z = Double.parseDouble(query.get("z"));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "x, y and z must be numbers");
+            }
         }
 
-        sendJson(exchange, allWaypoints);
+        String dimension = Objects.requireNonNullElse(
+            state.dimension(),
+            "unknown"
+        );
+        return new WaypointQuery(dimension, x, y, z);
     }
 
-    private void handlePostXaeroWaypointSets(HttpExchange exchange)
+    /**
+     * Sends what {@code search} finds in the current world's index. The
+     * waypoints are read on the client thread, and the index is (re)built
+     * and searched off it.
+     */
+    private void respondWaypointMatches(
+        HttpExchange exchange,
+        WaypointQuery at,
+        Function<WaypointGrid, List<WaypointGrid.Match>> search
+    ) {
+        respondAsync(
+            exchange,
+            runOnClientThread(() ->
+                waypointIndex.read(at.dimension(), requireWaypoints())
+            ),
+            (ex, contents) ->
+                sendWaypointMatches(
+                    ex,
+                    at,
+                    search.apply(waypointIndex.get(contents))
+                )
+        );
+    }
+
+    private static void sendWaypointMatches(
+        HttpExchange exchange,
+        WaypointQuery at,
+        List<WaypointGrid.Match> matches
+    ) throws IOException {
+        try (JsonWriter json = startJson(exchange)) {
+            json.beginObject();
+            json.name("dimension").value(at.dimension());
+            json.name("x").value(at.x());
+            json.name("y").value(at.y());
+            json.name("z").value(at.z());
+            json.name("waypoints").beginArray();
+            for (WaypointGrid.Match match : matches) {
+                match.waypoint().write(json, match.distance());
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    /** Starts a 200 JSON response written as it's generated. */
+    private static JsonWriter startJson(HttpExchange exchange)
         throws IOException {
-        MinimapSession session = BuiltInHudModules.MINIMAP.getCurrentSession();
+        exchange
+            .getResponseHeaders()
+            .set("Content-Type", "application/json; charset=UTF-8");
+        return new JsonWriter(
+            new BufferedWriter(
+                new OutputStreamWriter(
+                    new ResponseBodyStream(exchange, 200),
+                    StandardCharsets.UTF_8
+                )
+            )
+        );
+    }
 
-        if (session == null) {
-            throw new ApiException(503, "No Xaero's Minimap session available");
+    private static int parseIntParam(
+        Map<String, String> query,
+        String name,
+        int defaultValue,
+        int min,
+        int max
+    ) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            parsed = min - 1;
+        }
+        if (parsed < min || parsed > max) {
+            throw new ApiException(
+                400,
+                name + " must be between " + min + " and " + max
+            );
         }
+        return parsed;
+    }
 
+    private void handlePostXaeroWaypointSets(HttpExchange exchange)
+        throws IOException {
         String setName = readBody(exchange);
         if (setName.isEmpty()) {
             throw new ApiException(400, "Set name cannot be empty");
         }
 
-        MinimapWorld world = session.getWorldManager().getCurrentWorld();
-        world.addWaypointSet(setName);
+        respondAsync(
+            exchange,
+            runOnClientThread(() -> {
+                Object set = requireWaypoints().addSet(setName);
+                waypointIndex.invalidate();
+
+                return gson.toJson(set);
+            }),
+            (ex, json) -> sendJsonString(ex, json)
+        );
+    }
+
+    /**
+     * Serves a versioned resource with an {@code ETag}, answering a matching
+     * {@code If-None-Match} with 304. With {@code ?waitFor=<version>}, the
+     * response is held (without a thread) until the resource is past that
+     * version or {@code timeoutMs} passes. Versions restart each launch, so
+     * a {@code waitFor} with a different {@code epoch} (or one ahead of the
+     * current version) is answered at once.
+     */
+    private void respondVersioned(
+        HttpExchange exchange,
+        Resource resource,
+        HttpHandler responder
+    ) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        String waitFor = query.get("waitFor");
+        if (waitFor == null) {
+            sendVersioned(exchange, resource, responder);
+            return;
+        }
+
+        long seen;
+        long timeoutMillis = DEFAULT_LONG_POLL_MILLIS;
+        try {
+            seen = Long.parseLong(waitFor);
+            if (query.containsKey("timeoutMs")) {
+                timeoutMillis = Long.parseLong(query.get("timeoutMs"));
+            }
+        } catch (NumberFormatException e) {
+            throw new ApiException(
+                400,
+                "waitFor and timeoutMs must be integers"
+            );
+        }
+        if (timeoutMillis < 0 || timeoutMillis > MAX_LONG_POLL_MILLIS) {
+            throw new ApiException(
+                400,
+                "timeoutMs must be between 0 and " + MAX_LONG_POLL_MILLIS
+            );
+        }
+
+        String epoch = query.get("epoch");
+        if (epoch != null && !epoch.equals(gameState.versions().epoch())) {
+            sendVersioned(exchange, resource, responder);
+            return;
+        }
+
+        respondAsync(
+            exchange,
+            gameState.versions().awaitChange(resource, seen, timeoutMillis),
+            (ex, version) -> sendVersioned(ex, resource, responder)
+        );
+    }
+
+    private void sendVersioned(
+        HttpExchange exchange,
+        Resource resource,
+        HttpHandler responder
+    ) throws IOException {
+        // Read before the snapshot, so the tag is never newer than the data
+        String epoch = gameState.versions().epoch();
+        long version = gameState.versions().get(resource);
+        Encoding encoding = Encoding.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept")
+        );
+        String etag =
+            "\"" +
+            epoch +
+            "-" +
+            resource.id() +
+            "-" +
+            version +
+            (encoding == null ? "" : "-" + encoding.id()) +
+            "\"";
+
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange
+            .getResponseHeaders()
+            .set("X-Resource-Version", Long.toString(version));
+        exchange.getResponseHeaders().set("X-Resource-Epoch", epoch);
+
+        String ifNoneMatch = exchange
+            .getRequestHeaders()
+            .getFirst("If-None-Match");
+        if (ResponseCache.matchesETag(ifNoneMatch, etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        responder.handle(exchange);
+    }
+
+    /**
+     * Marks the exchange as owned by someone other than its handler (e.g. a
+     * stream), so {@link ExchangeWrapper} doesn't close it on return.
+     */
+    private void detach(HttpExchange exchange) {
+        detached.add(exchange);
+    }
+
+    /**
+     * Queues {@code task} on the client thread. Fails with 503 (and the
+     * current queue depth) when the scheduler is saturated.
+     */
+    private static <T> CompletableFuture<T> runOnClientThread(
+        Callable<T> task
+    ) {
+        try {
+            return clientTasks.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ApiException(503, "Too many pending game actions")
+                .withHeader("Retry-After", "1")
+                .withHeader(
+                    "X-Queue-Depth",
+                    Integer.toString(clientTasks.getQueueDepth())
+                );
+        }
+    }
+
+    /**
+     * Completes the exchange once {@code future} does, without holding the
+     * request thread in the meantime. The response is written on
+     * {@link #responseExecutor}, never on the thread that completed the
+     * future (typically the client thread). The request stays in flight
+     * until then.
+     */
+    private <T> void respondAsync(
+        HttpExchange exchange,
+        CompletableFuture<T> future,
+        AsyncResponder<T> responder
+    ) {
+        Timing timing = respondLater(exchange);
+        future.whenCompleteAsync(
+            (result, error) -> {
+                try {
+                    if (error != null) {
+                        sendFailure(exchange, error);
+                    } else {
+                        responder.respond(exchange, result);
+                    }
+                } catch (Exception e) {
+                    sendFailure(exchange, e);
+                } finally {
+                    finishLater(exchange, timing);
+                }
+            },
+            responseExecutor
+        );
+    }
+
+    /**
+     * Takes over finishing the exchange from {@link ExchangeWrapper}: it stays
+     * in flight, and isn't recorded, until {@link #finishLater}.
+     */
+    private Timing respondLater(HttpExchange exchange) {
+        detach(exchange);
+        respondingAsync.add(exchange);
+        return timings.get(exchange);
+    }
+
+    /** Closes, records and releases an exchange taken by respondLater. */
+    private void finishLater(HttpExchange exchange, Timing timing) {
+        exchange.close();
+        if (timing != null) {
+            timing.record(exchange);
+        }
+        admission.release();
+    }
+
+    @FunctionalInterface
+    private interface AsyncResponder<T> {
+        void respond(HttpExchange exchange, T result) throws IOException;
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(
+                URLDecoder.decode(key, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8)
+            );
+        }
 
-        sendJson(exchange, world.getWaypointSet(setName));
+        return params;
     }
 
     private String readBody(HttpExchange exchange) throws IOException {
@@ -302,26 +1759,112 @@ public class RestApiProvider {
 
     private void sendText(HttpExchange exchange, int status, String text)
         throws IOException {
-        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
-        exchange
-            .getResponseHeaders()
-            .set("Content-Type", "text/plain; charset=UTF-8");
-        exchange.sendResponseHeaders(status, bytes.length);
+        sendBody(
+            exchange,
+            status,
+            "text/plain; charset=UTF-8",
+            text.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * The format requested in the Accept header, or {@code null} for the
+     * endpoint's default. Either way the response varies by Accept.
+     */
+    private static Encoding negotiate(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        return Encoding.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept")
+        );
+    }
+
+    private static void sendEncoded(
+        HttpExchange exchange,
+        Encoding encoding,
+        byte[] body
+    ) throws IOException {
+        sendBody(exchange, 200, encoding.contentType(), body);
+    }
+
+    /**
+     * Sends a complete body, compressed if the client accepts it and it's
+     * above {@code compressionThresholdBytes}.
+     */
+    private static void sendBody(
+        HttpExchange exchange,
+        int status,
+        String contentType,
+        byte[] body
+    ) throws IOException {
+        var headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+
+        ContentCoding coding = ResponseCompression.negotiate(exchange);
+        if (coding != null) {
+            ResponseCompression.addVary(headers, "Accept-Encoding");
+            if (ResponseCompression.worthCompressing(body.length)) {
+                body = ResponseCompression.compress(body, coding);
+                headers.set("Content-Encoding", coding.token());
+            }
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(bytes);
+            os.write(body);
         }
     }
 
     private void sendJson(HttpExchange exchange, Object obj)
         throws IOException {
-        String json = gson.toJson(obj);
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        exchange
-            .getResponseHeaders()
-            .set("Content-Type", "application/json; charset=UTF-8");
-        exchange.sendResponseHeaders(200, bytes.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(bytes);
+        sendJson(exchange, 200, obj);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object obj)
+        throws IOException {
+        sendJsonString(exchange, status, gson.toJson(obj));
+    }
+
+    private void sendJsonString(HttpExchange exchange, String json)
+        throws IOException {
+        sendJsonString(exchange, 200, json);
+    }
+
+    private void sendJsonString(
+        HttpExchange exchange,
+        int status,
+        String json
+    ) throws IOException {
+        sendBody(
+            exchange,
+            status,
+            "application/json; charset=UTF-8",
+            json.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /** Maps an exception from a handler or task to an error response. */
+    private static void sendFailure(HttpExchange exchange, Throwable error) {
+        while (
+            error instanceof CompletionException && error.getCause() != null
+        ) {
+            error = error.getCause();
+        }
+
+        if (error instanceof ApiException e) {
+            e.getHeaders().forEach((name, value) ->
+                exchange.getResponseHeaders().set(name, value)
+            );
+            sendError(exchange, e.getStatusCode(), e.getMessage());
+        } else if (error instanceof TimeoutException) {
+            sendError(exchange, 504, "Timed out waiting for the game thread");
+        } else {
+            logger.error(
+                "Error handling request {} {}",
+                exchange.getRequestMethod(),
+                exchange.getRequestURI(),
+                error
+            );
+            sendError(exchange, 500, "Internal Server Error");
         }
     }
 
@@ -346,14 +1889,19 @@ public class RestApiProvider {
 
     private class ExchangeWrapper implements HttpHandler {
 
+        private final RouteMetrics routeMetrics;
         private final HttpHandler delegate;
 
-        ExchangeWrapper(HttpHandler delegate) {
+        ExchangeWrapper(String route, HttpHandler delegate) {
+            this.routeMetrics = metrics.route(route);
             this.delegate = delegate;
         }
 
         @Override
         public void handle(HttpExchange exchange) {
+            Timing timing = new Timing(routeMetrics, System.nanoTime());
+            timings.put(exchange, timing);
+            boolean admitted = false;
             try {
                 if (config.enableCors) {
                     exchange
@@ -377,29 +1925,25 @@ public class RestApiProvider {
                     }
                 }
 
-                exchange
-                    .getResponseHeaders()
-                    .set(
-                        "Server",
-                        "MC Local API v" +
-                            modVersion +
-                            ", Minecraft " +
-                            SharedConstants.getCurrentVersion().id()
-                    );
+                exchange.getResponseHeaders().set("Server", serverHeader);
 
+                admission.admit(exchange.getRemoteAddress());
+                admitted = true;
                 delegate.handle(exchange);
-            } catch (ApiException e) {
-                sendError(exchange, e.getStatusCode(), e.getMessage());
             } catch (Exception e) {
-                luisafk.mclocalapi.MCLocalAPIClient.logger.error(
-                    "Error handling request {} {}",
-                    exchange.getRequestMethod(),
-                    exchange.getRequestURI(),
-                    e
-                );
-                sendError(exchange, 500, "Internal Server Error");
+                sendFailure(exchange, e);
             } finally {
-                exchange.close();
+                timings.remove(exchange);
+                if (!detached.remove(exchange)) {
+                    exchange.close();
+                }
+                // Those responding later are recorded once they've finished
+                if (!respondingAsync.remove(exchange)) {
+                    timing.record(exchange);
+                    if (admitted) {
+                        admission.release();
+                    }
+                }
             }
         }
     }
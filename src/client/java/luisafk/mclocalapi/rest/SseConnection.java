@@ -5,21 +5,31 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SseConnection {
 
     private final HttpExchange exchange;
     private final OutputStream out;
     private volatile boolean closed = false;
-    private Runnable onCloseCallback;
+    private final List<Runnable> onCloseCallbacks = new ArrayList<>();
 
     public SseConnection(HttpExchange exchange) throws IOException {
         this.exchange = exchange;
         this.out = exchange.getResponseBody();
     }
 
-    public void onClose(Runnable callback) {
-        this.onCloseCallback = callback;
+    /**
+     * Adds a callback to run once the connection closes, or right away if it
+     * already has.
+     */
+    public synchronized void onClose(Runnable callback) {
+        if (closed) {
+            callback.run();
+        } else {
+            onCloseCallbacks.add(callback);
+        }
     }
 
     public synchronized void sendEvent(String data) {
@@ -41,6 +51,21 @@ public class SseConnection {
         }
     }
 
+    /** Writes a pre-encoded frame, shared as-is between connections. */
+    public synchronized void write(SseFrame frame) {
+        if (closed) {
+            throw new IllegalStateException("SSE connection is closed");
+        }
+
+        try {
+            out.write(frame.bytes());
+            out.flush();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public synchronized void sendComment(String comment) {
         if (closed) {
             return;
@@ -71,9 +96,7 @@ public class SseConnection {
 
         exchange.close();
 
-        if (onCloseCallback != null) {
-            onCloseCallback.run();
-        }
+        onCloseCallbacks.forEach(Runnable::run);
     }
 
     public boolean isClosed() {
@@ -0,0 +1,65 @@
+package luisafk.mclocalapi.rest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fully encoded SSE frame ({@code event:}/{@code data:} lines or a comment,
+ * including the terminating blank line). Frames are immutable, so one
+ * instance is written as-is to every subscriber instead of being re-encoded
+ * per connection.
+ */
+public final class SseFrame {
+
+    private final String event;
+    private final byte[] bytes;
+
+    SseFrame(String event, byte[] bytes) {
+        this.event = event;
+        this.bytes = bytes;
+    }
+
+    public static SseFrame event(String event, String data) {
+        return new SseFrame(
+            event,
+            ("event: " + event + "\ndata: " + data + "\n\n").getBytes(
+                StandardCharsets.UTF_8
+            )
+        );
+    }
+
+    /**
+     * An event with an {@code id:} line, whose data is already-encoded UTF-8
+     * (which must not contain line breaks).
+     */
+    public static SseFrame event(String event, long id, byte[] data) {
+        byte[] head = ("id: " + id + "\nevent: " + event + "\ndata: ").getBytes(
+            StandardCharsets.UTF_8
+        );
+        byte[] bytes = new byte[head.length + data.length + 2];
+        System.arraycopy(head, 0, bytes, 0, head.length);
+        System.arraycopy(data, 0, bytes, head.length, data.length);
+        bytes[bytes.length - 2] = '\n';
+        bytes[bytes.length - 1] = '\n';
+        return new SseFrame(event, bytes);
+    }
+
+    public static SseFrame comment(String comment) {
+        return new SseFrame(
+            null,
+            (": " + comment + "\n\n").getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /** The event name, or {@code null} if this frame is a comment. */
+    public String getEvent() {
+        return event;
+    }
+
+    public boolean isComment() {
+        return event == null;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,239 @@
+package luisafk.mclocalapi.rest;
+
+import java.util.Arrays;
+
+/**
+ * Builds {@link SseFrame}s into a reusable byte buffer, writing numbers
+ * without going through {@code String}s. The only allocation per frame is the
+ * final copy of the bytes. Instances are not thread-safe; keep one per
+ * producing thread.
+ */
+public final class SseFrameEncoder {
+
+    /** Digits kept after the decimal point by {@link #number(double)}. */
+    public static final int FRACTION_DIGITS = 6;
+
+    private static final long FRACTION_SCALE = 1_000_000L;
+
+    /** Beyond this, scaling by {@link #FRACTION_SCALE} could overflow. */
+    private static final double MAX_FIXED_POINT = 9.0e12;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private byte[] buf = new byte[256];
+    private int len;
+    private String event;
+
+    /** Starts a new frame, discarding anything not yet built. */
+    public SseFrameEncoder begin(String event) {
+        this.event = event;
+        len = 0;
+        ascii("event: ");
+        ascii(event);
+        return ascii("\ndata: ");
+    }
+
+    public SseFrame end() {
+        ascii("\n\n");
+        return new SseFrame(event, Arrays.copyOf(buf, len));
+    }
+
+    /**
+     * Starts a bare payload without any SSE framing, e.g. a JSON document for
+     * another transport. Finish it with {@link #toByteArray()}.
+     */
+    public SseFrameEncoder reset() {
+        event = null;
+        len = 0;
+        return this;
+    }
+
+    /** Copies out everything written since {@link #reset()}. */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    /** Appends characters that are known to be ASCII. */
+    public SseFrameEncoder ascii(String s) {
+        int n = s.length();
+        ensure(n);
+        for (int i = 0; i < n; i++) {
+            buf[len++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    /** Appends arbitrary text as UTF-8, replacing line breaks with spaces. */
+    public SseFrameEncoder text(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r') {
+                c = ' ';
+            }
+            i += utf8(s, i, c) - 1;
+        }
+        return this;
+    }
+
+    /** Appends a quoted, escaped JSON string. */
+    public SseFrameEncoder string(String s) {
+        ensure(1);
+        buf[len++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> ascii("\\\"");
+                case '\\' -> ascii("\\\\");
+                case '\n' -> ascii("\\n");
+                case '\r' -> ascii("\\r");
+                case '\t' -> ascii("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        ensure(6);
+                        buf[len++] = '\\';
+                        buf[len++] = 'u';
+                        buf[len++] = '0';
+                        buf[len++] = '0';
+                        buf[len++] = HEX[c >> 4];
+                        buf[len++] = HEX[c & 0xf];
+                    } else {
+                        i += utf8(s, i, c) - 1;
+                    }
+                }
+            }
+        }
+        ensure(1);
+        buf[len++] = '"';
+        return this;
+    }
+
+    /**
+     * Appends a JSON object key, including the quotes and colon. Keys must be
+     * plain ASCII without characters that need escaping.
+     */
+    public SseFrameEncoder key(String key) {
+        ensure(key.length() + 3);
+        buf[len++] = '"';
+        ascii(key);
+        buf[len++] = '"';
+        buf[len++] = ':';
+        return this;
+    }
+
+    public SseFrameEncoder number(long value) {
+        ensure(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return ascii(Long.toString(value));
+            }
+            buf[len++] = '-';
+            value = -value;
+        }
+        writeDigits(value, 1);
+        return this;
+    }
+
+    /**
+     * Appends a double with at most {@link #FRACTION_DIGITS} fractional
+     * digits (trailing zeros trimmed). Non-finite values are written as JSON
+     * {@code null}.
+     */
+    public SseFrameEncoder number(double value) {
+        if (!Double.isFinite(value)) {
+            return ascii("null");
+        }
+        if (Math.abs(value) >= MAX_FIXED_POINT) {
+            return ascii(Double.toString(value));
+        }
+
+        long scaled = Math.round(Math.abs(value) * FRACTION_SCALE);
+        long whole = scaled / FRACTION_SCALE;
+        long fraction = scaled % FRACTION_SCALE;
+
+        ensure(32);
+        if (value < 0 && scaled != 0) {
+            buf[len++] = '-';
+        }
+        writeDigits(whole, 1);
+
+        if (fraction != 0) {
+            int digits = FRACTION_DIGITS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            buf[len++] = '.';
+            writeDigits(fraction, digits);
+        }
+        return this;
+    }
+
+    public SseFrameEncoder bool(boolean value) {
+        return ascii(value ? "true" : "false");
+    }
+
+    public SseFrameEncoder nullValue() {
+        return ascii("null");
+    }
+
+    public SseFrameEncoder raw(char c) {
+        ensure(1);
+        buf[len++] = (byte) c;
+        return this;
+    }
+
+    /** Writes {@code value} zero-padded to at least {@code minDigits}. */
+    private void writeDigits(long value, int minDigits) {
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+
+        int end = len + digits;
+        for (int i = end - 1; i >= len; i--) {
+            buf[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        len = end;
+    }
+
+    /**
+     * Appends {@code c}, at {@code s[i]}, as UTF-8, along with the low
+     * surrogate after it if it's the first half of a pair. Returns how many
+     * chars were used; a lone surrogate becomes {@code ?}.
+     */
+    private int utf8(String s, int i, char c) {
+        ensure(4);
+        if (c < 0x80) {
+            buf[len++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[len++] = (byte) (0xc0 | (c >> 6));
+            buf[len++] = (byte) (0x80 | (c & 0x3f));
+        } else if (
+            Character.isHighSurrogate(c) &&
+            i + 1 < s.length() &&
+            Character.isLowSurrogate(s.charAt(i + 1))
+        ) {
+            int cp = Character.toCodePoint(c, s.charAt(i + 1));
+            buf[len++] = (byte) (0xf0 | (cp >> 18));
+            buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            buf[len++] = (byte) (0x80 | (cp & 0x3f));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            buf[len++] = '?';
+        } else {
+            buf[len++] = (byte) (0xe0 | (c >> 12));
+            buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            buf[len++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return 1;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package luisafk.mclocalapi.rest;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+import static luisafk.mclocalapi.MCLocalAPIClient.metrics;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import luisafk.mclocalapi.MCLocalAPIConfig.StreamOverflowPolicy;
+
+/**
+ * Fans events out to a set of SSE connections without doing any socket I/O on
+ * the publishing thread. {@link #publish} only enqueues; a dispatcher thread
+ * copies each event into every subscriber's bounded ring buffer, and each
+ * subscriber is drained by its own virtual thread, so a stalled consumer only
+ * ever delays itself. The dispatcher also sends the heartbeat comments that
+ * let dead connections be noticed while no events are flowing.
+ */
+public class SseHub {
+
+    private static final SseFrame HEARTBEAT = SseFrame.comment("keepalive");
+
+    private final String name;
+    private final Queue<SseFrame> inbound = new ConcurrentLinkedQueue<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService writers;
+    private final LongAdder bytesWritten;
+    private volatile Thread dispatcher;
+
+    public SseHub(String name) {
+        this.name = name;
+        this.bytesWritten = metrics.streamBytes(name);
+        this.writers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("mc-local-api-sse-" + name + "-", 0).factory()
+        );
+    }
+
+    /**
+     * Adds a connection to the hub. It is removed again once it closes, for
+     * whatever reason. Besides receiving everything {@link #publish}ed, the
+     * returned subscription can be fed frames meant for it alone.
+     */
+    public Subscription subscribe(
+        SseConnection connection,
+        StreamOverflowPolicy overflowPolicy,
+        int capacity
+    ) {
+        Subscriber subscriber = new Subscriber(
+            connection,
+            overflowPolicy,
+            capacity
+        );
+        connection.onClose(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        if (connection.isClosed()) {
+            subscribers.remove(subscriber);
+        } else {
+            ensureDispatcher();
+        }
+
+        return subscriber;
+    }
+
+    /** Queues a frame for every subscriber. Never blocks. */
+    public void publish(SseFrame frame) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        inbound.add(frame);
+
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /** Frames waiting to be dispatched or written, across subscribers. */
+    public int getQueuedFrames() {
+        int queued = inbound.size();
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscriber) {
+                queued += subscriber.size;
+            }
+        }
+        return queued;
+    }
+
+    public void closeAll() {
+        subscribers.forEach(subscriber ->
+            writers.execute(subscriber.connection::close)
+        );
+        subscribers.clear();
+        inbound.clear();
+    }
+
+    private synchronized void ensureDispatcher() {
+        if (dispatcher != null) {
+            return;
+        }
+
+        dispatcher = Thread.ofPlatform()
+            .daemon()
+            .name("mc-local-api-sse-" + name + "-dispatcher")
+            .start(this::dispatchLoop);
+    }
+
+    private void dispatchLoop() {
+        long nextHeartbeat = System.nanoTime() + heartbeatIntervalNanos();
+
+        while (true) {
+            SseFrame frame;
+            while ((frame = inbound.poll()) != null) {
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(frame);
+                }
+            }
+
+            long now = System.nanoTime();
+            if (now - nextHeartbeat >= 0) {
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.heartbeat();
+                }
+                nextHeartbeat = now + heartbeatIntervalNanos();
+            }
+
+            if (inbound.isEmpty()) {
+                LockSupport.parkNanos(this, nextHeartbeat - now);
+            }
+        }
+    }
+
+    private static long heartbeatIntervalNanos() {
+        return TimeUnit.SECONDS.toNanos(
+            Math.max(1, config.streamHeartbeatIntervalSeconds)
+        );
+    }
+
+    /** A single connection's queue. */
+    public interface Subscription {
+        /**
+         * Queues a frame for this connection only, applying its overflow
+         * policy. Never blocks.
+         */
+        void offer(SseFrame frame);
+    }
+
+    private class Subscriber implements Subscription {
+
+        private final SseConnection connection;
+        private final StreamOverflowPolicy overflowPolicy;
+        private final SseFrame[] ring;
+        private int head;
+        private int size;
+        private boolean draining;
+
+        Subscriber(
+            SseConnection connection,
+            StreamOverflowPolicy overflowPolicy,
+            int capacity
+        ) {
+            this.connection = connection;
+            this.overflowPolicy = overflowPolicy;
+            this.ring = new SseFrame[Math.max(1, capacity)];
+        }
+
+        @Override
+        public void offer(SseFrame frame) {
+            boolean startDrain;
+
+            synchronized (this) {
+                if (size == ring.length && !makeRoom(frame)) {
+                    return;
+                }
+
+                ring[(head + size) % ring.length] = frame;
+                size++;
+
+                startDrain = !draining;
+                draining = true;
+            }
+
+            if (startDrain) {
+                writers.execute(this::drain);
+            }
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                if (draining || size > 0) {
+                    return;
+                }
+            }
+
+            offer(HEARTBEAT);
+        }
+
+        /**
+         * Applies the overflow policy to a full ring. Returns whether a slot
+         * was freed for the event to be appended.
+         */
+        private boolean makeRoom(SseFrame frame) {
+            switch (overflowPolicy) {
+                case COALESCE_LATEST -> {
+                    for (int i = size - 1; i >= 0; i--) {
+                        int index = (head + i) % ring.length;
+                        if (
+                            !frame.isComment() &&
+                            frame.getEvent().equals(ring[index].getEvent())
+                        ) {
+                            ring[index] = frame;
+                            return false;
+                        }
+                    }
+                    dropOldest();
+                    return true;
+                }
+                case DROP_OLDEST -> {
+                    dropOldest();
+                    return true;
+                }
+                case DISCONNECT -> {
+                    subscribers.remove(this);
+                    writers.execute(connection::close);
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private void dropOldest() {
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+        }
+
+        private synchronized SseFrame poll() {
+            if (size == 0) {
+                draining = false;
+                return null;
+            }
+
+            SseFrame frame = ring[head];
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+            return frame;
+        }
+
+        private void drain() {
+            SseFrame frame;
+            while ((frame = poll()) != null) {
+                if (connection.isClosed()) {
+                    return;
+                }
+
+                try {
+                    connection.write(frame);
+                    bytesWritten.add(frame.bytes().length);
+                } catch (Exception e) {
+                    logger.debug("Error writing to SSE client, closing", e);
+                    connection.close();
+                    return;
+                }
+            }
+        }
+    }
+}
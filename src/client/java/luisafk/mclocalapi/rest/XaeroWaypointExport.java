@@ -0,0 +1,173 @@
+package luisafk.mclocalapi.rest;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import luisafk.mclocalapi.events.EventFilter;
+import luisafk.mclocalapi.game.WaypointStore;
+import luisafk.mclocalapi.game.WaypointStore.Waypoint;
+
+/**
+ * A page of waypoints as JSON. The page is copied out of the store on the
+ * client thread, since it may be a live view of Xaero's lists, and then
+ * streamed into the response from the copy, so memory use is bounded by the
+ * page size rather than by how many waypoints there are. Only the fields
+ * below are written:
+ *
+ * <pre>
+ * {"dimension":..,"waypoints":[{"set":..,"name":..,"symbol":..,
+ *   "x":..,"y":..,"z":..,"color":..,"disabled":..}],"nextCursor":..}
+ * </pre>
+ *
+ * <p>A cursor is {@code <set index>.<waypoint index>} of the next waypoint to
+ * look at, so resuming doesn't rescan earlier pages. It stays valid as long
+ * as the sets aren't reordered.
+ */
+public final class XaeroWaypointExport {
+
+    public static final int DEFAULT_LIMIT = 1000;
+    public static final int MAX_LIMIT = 10_000;
+
+    /**
+     * @param set      only this set, or {@code null} for all
+     * @param bbox     only waypoints inside; {@link EventFilter#NONE} for all
+     */
+    public record Query(
+        String set,
+        EventFilter bbox,
+        int startSet,
+        int startWaypoint,
+        int limit
+    ) {
+        /** @param cursor where to resume, or {@code null} for the top */
+        public static Query of(
+            String set,
+            EventFilter bbox,
+            String cursor,
+            int limit
+        ) {
+            if (cursor == null) {
+                return new Query(set, bbox, 0, 0, limit);
+            }
+
+            String[] parts = cursor.split("\\.");
+            try {
+                return new Query(
+                    set,
+                    bbox,
+                    Integer.parseInt(parts[0]),
+                    Integer.parseInt(parts[1]),
+                    limit
+                );
+            } catch (RuntimeException e) {
+                throw new ApiException(400, "Invalid cursor");
+            }
+        }
+    }
+
+    /** A page's waypoints, and the cursor of the next page if any. */
+    public record Page(List<Entry> waypoints, String nextCursor) {}
+
+    public record Entry(String set, Waypoint waypoint) {}
+
+    private XaeroWaypointExport() {}
+
+    /** Copies the page {@code query} selects. Client thread. */
+    public static Page collect(WaypointStore store, Query query) {
+        List<Entry> waypoints = new ArrayList<>(
+            Math.min(query.limit(), DEFAULT_LIMIT)
+        );
+        int setIndex = -1;
+
+        for (WaypointStore.Set set : store.sets()) {
+            setIndex++;
+            if (
+                setIndex < query.startSet() ||
+                (query.set() != null && !query.set().equals(set.name()))
+            ) {
+                continue;
+            }
+
+            String setName = set.name();
+            int waypointIndex = -1;
+            for (Waypoint waypoint : set.waypoints()) {
+                waypointIndex++;
+                if (
+                    setIndex == query.startSet() &&
+                    waypointIndex < query.startWaypoint()
+                ) {
+                    continue;
+                }
+                if (!inside(query.bbox(), waypoint)) {
+                    continue;
+                }
+
+                // One more match than fits means there's another page
+                if (waypoints.size() == query.limit()) {
+                    return new Page(waypoints, setIndex + "." + waypointIndex);
+                }
+
+                waypoints.add(new Entry(setName, waypoint));
+            }
+        }
+
+        return new Page(waypoints, null);
+    }
+
+    /** Writes {@code page} to {@code body} and closes it. */
+    public static void write(
+        ResponseBodyStream body,
+        String dimension,
+        Page page
+    ) throws IOException {
+        try (
+            JsonWriter json = new JsonWriter(
+                new BufferedWriter(
+                    new OutputStreamWriter(body, StandardCharsets.UTF_8)
+                )
+            )
+        ) {
+            json.beginObject();
+            json.name("dimension").value(dimension);
+            json.name("waypoints").beginArray();
+            for (Entry entry : page.waypoints()) {
+                writeWaypoint(json, entry.set(), entry.waypoint());
+            }
+            json.endArray();
+            json.name("nextCursor").value(page.nextCursor());
+            json.endObject();
+        }
+    }
+
+    private static boolean inside(EventFilter bbox, Waypoint waypoint) {
+        return (
+            waypoint.x() >= bbox.minX() &&
+            waypoint.x() <= bbox.maxX() &&
+            waypoint.y() >= bbox.minY() &&
+            waypoint.y() <= bbox.maxY() &&
+            waypoint.z() >= bbox.minZ() &&
+            waypoint.z() <= bbox.maxZ()
+        );
+    }
+
+    private static void writeWaypoint(
+        JsonWriter json,
+        String set,
+        Waypoint waypoint
+    ) throws IOException {
+        json.beginObject();
+        json.name("set").value(set);
+        json.name("name").value(waypoint.name());
+        json.name("symbol").value(waypoint.symbol());
+        json.name("x").value(waypoint.x());
+        json.name("y").value(waypoint.y());
+        json.name("z").value(waypoint.z());
+        json.name("color").value(waypoint.color());
+        json.name("disabled").value(waypoint.disabled());
+        json.endObject();
+    }
+}
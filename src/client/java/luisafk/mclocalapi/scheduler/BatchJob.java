@@ -0,0 +1,107 @@
+package luisafk.mclocalapi.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of chat commands/messages queued on the {@link CommandPipeline}.
+ * Results are recorded in the order items finish, which lets stream readers
+ * follow along with {@link #awaitResult} and late readers replay from the
+ * start.
+ */
+public class BatchJob {
+
+    public enum ItemType {
+        COMMAND,
+        MESSAGE,
+    }
+
+    public enum ItemStatus {
+        SENT,
+        REJECTED,
+        TIMED_OUT,
+    }
+
+    public record Item(ItemType type, String text) {}
+
+    public record ItemResult(int index, ItemStatus status, String error) {}
+
+    private final String id;
+    private final List<Item> items;
+    private final long deadline;
+    private final List<ItemResult> results = new ArrayList<>();
+    private long finishedAt;
+
+    BatchJob(String id, List<Item> items, long deadline) {
+        this.id = id;
+        this.items = List.copyOf(items);
+        this.deadline = deadline;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /** {@link System#currentTimeMillis()} after which unsent items time out. */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    synchronized void complete(int index, ItemStatus status, String error) {
+        results.add(new ItemResult(index, status, error));
+        if (results.size() == items.size()) {
+            finishedAt = System.currentTimeMillis();
+        }
+        notifyAll();
+    }
+
+    public synchronized boolean isDone() {
+        return results.size() == items.size();
+    }
+
+    /** When the last item finished, or 0 if the job is still running. */
+    public synchronized long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public synchronized List<ItemResult> getResults() {
+        return List.copyOf(results);
+    }
+
+    public synchronized int count(ItemStatus status) {
+        int count = 0;
+        for (ItemResult result : results) {
+            if (result.status() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Waits for the {@code n}th result (in completion order). Returns
+     * {@code null} if it isn't available within {@code timeoutMillis}, or
+     * never will be because the job has fewer items.
+     */
+    public synchronized ItemResult awaitResult(int n, long timeoutMillis)
+        throws InterruptedException {
+        if (n >= items.size()) {
+            return null;
+        }
+
+        long end = System.currentTimeMillis() + timeoutMillis;
+        while (results.size() <= n) {
+            long remaining = end - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            wait(remaining);
+        }
+
+        return results.get(n);
+    }
+}
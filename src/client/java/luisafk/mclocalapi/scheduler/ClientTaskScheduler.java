@@ -0,0 +1,109 @@
+package luisafk.mclocalapi.scheduler;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs work submitted from other threads on the client thread. Only a bounded
+ * number of tasks run per tick, so a burst of API calls is spread over
+ * several frames instead of spiking one. Each task has a deadline; futures
+ * that miss it complete with a {@link TimeoutException} and are skipped when
+ * their turn comes. A task that has started always runs to completion and
+ * delivers its result, so a caller that got a timeout knows it never ran.
+ */
+public class ClientTaskScheduler {
+
+    private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * Queues {@code task} to run on the client thread.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, long timeoutMillis) {
+        if (depth.incrementAndGet() > config.clientTaskQueueCapacity) {
+            depth.decrementAndGet();
+            throw new RejectedExecutionException(
+                "Client task queue is full"
+            );
+        }
+
+        Task<T> queued = new Task<>(task, new CompletableFuture<>());
+        CompletableFuture.delayedExecutor(
+            timeoutMillis,
+            TimeUnit.MILLISECONDS
+        ).execute(queued::timeOut);
+        queue.add(queued);
+        return queued.future;
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(task, config.clientTaskTimeoutMillis);
+    }
+
+    /** Number of tasks waiting to run. */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Runs up to {@code maxTasks} queued tasks. Must be called on the client
+     * thread. Tasks that already timed out are discarded without counting
+     * toward the limit.
+     */
+    public void drain(int maxTasks) {
+        int ran = 0;
+        Task<?> task;
+
+        while (ran < maxTasks && (task = queue.poll()) != null) {
+            depth.decrementAndGet();
+
+            if (task.run()) {
+                ran++;
+            }
+        }
+    }
+
+    private static final class Task<T> {
+
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future;
+        /** Claimed by whichever of running and timing out comes first. */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Task(Callable<T> callable, CompletableFuture<T> future) {
+            this.callable = callable;
+            this.future = future;
+        }
+
+        /** Returns whether the task ran, rather than having timed out. */
+        boolean run() {
+            if (!claimed.compareAndSet(false, true) || future.isDone()) {
+                return false;
+            }
+
+            try {
+                future.complete(callable.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            return true;
+        }
+
+        void timeOut() {
+            if (claimed.compareAndSet(false, true)) {
+                future.completeExceptionally(new TimeoutException());
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package luisafk.mclocalapi.scheduler;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import luisafk.mclocalapi.game.GameProvider;
+import luisafk.mclocalapi.scheduler.BatchJob.Item;
+import luisafk.mclocalapi.scheduler.BatchJob.ItemStatus;
+
+/**
+ * Sends batched chat commands and messages from the client thread at a
+ * steady rate, so bursts from automation stay under the server's anti-spam
+ * limits. Pacing is a token bucket refilled every tick by
+ * {@code batchSendRatePerTick}, holding at most {@code batchSendBurst}
+ * tokens.
+ */
+public class CommandPipeline {
+
+    /** Finished jobs are kept around this long so results can be read. */
+    private static final long FINISHED_JOB_RETENTION_MILLIS =
+        TimeUnit.MINUTES.toMillis(5);
+
+    /** Longest command or message the server accepts. */
+    private static final int MAX_LENGTH = 256;
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /** Only touched on the client thread. */
+    private double tokens;
+
+    /**
+     * Queues a batch. Items that can never be sent (empty or too long) are
+     * rejected immediately; the rest are sent in order.
+     *
+     * @throws RejectedExecutionException if the pipeline can't hold the batch
+     */
+    public BatchJob submit(List<Item> items) {
+        if (queued.addAndGet(items.size()) > config.batchQueueCapacity) {
+            queued.addAndGet(-items.size());
+            throw new RejectedExecutionException("Batch queue is full");
+        }
+
+        pruneFinishedJobs();
+
+        BatchJob job = new BatchJob(
+            Long.toString(nextId.getAndIncrement()),
+            items,
+            System.currentTimeMillis() + config.batchItemTimeoutMillis
+        );
+        jobs.put(job.getId(), job);
+
+        for (int i = 0; i < items.size(); i++) {
+            String text = items.get(i).text();
+
+            if (text == null || text.isEmpty()) {
+                queued.decrementAndGet();
+                job.complete(i, ItemStatus.REJECTED, "Text cannot be empty");
+            } else if (text.length() > MAX_LENGTH) {
+                queued.decrementAndGet();
+                job.complete(
+                    i,
+                    ItemStatus.REJECTED,
+                    "Text is longer than " + MAX_LENGTH + " characters"
+                );
+            } else {
+                queue.add(new Pending(job, i));
+            }
+        }
+
+        return job;
+    }
+
+    public BatchJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /** Number of items waiting to be sent, across all jobs. */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /** Must be called on the client thread, once per tick. */
+    public void tick(GameProvider game) {
+        tokens = Math.min(
+            tokens + config.batchSendRatePerTick,
+            Math.max(1, config.batchSendBurst)
+        );
+
+        long now = System.currentTimeMillis();
+        Pending pending;
+
+        while ((pending = queue.peek()) != null) {
+            BatchJob job = pending.job;
+            boolean expired = now > job.getDeadline();
+
+            if (!expired && tokens < 1) {
+                break;
+            }
+
+            queue.poll();
+            queued.decrementAndGet();
+
+            if (expired) {
+                job.complete(pending.index, ItemStatus.TIMED_OUT, null);
+                continue;
+            }
+
+            if (!game.canSendChat()) {
+                job.complete(
+                    pending.index,
+                    ItemStatus.REJECTED,
+                    "Player not available"
+                );
+                continue;
+            }
+
+            Item item = job.getItems().get(pending.index);
+            try {
+                switch (item.type()) {
+                    case COMMAND -> game.sendCommand(item.text());
+                    case MESSAGE -> game.sendChat(item.text());
+                }
+                job.complete(pending.index, ItemStatus.SENT, null);
+            } catch (Exception e) {
+                job.complete(pending.index, ItemStatus.REJECTED, e.getMessage());
+            }
+            tokens--;
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff =
+            System.currentTimeMillis() - FINISHED_JOB_RETENTION_MILLIS;
+        jobs
+            .values()
+            .removeIf(job -> {
+                long finishedAt = job.getFinishedAt();
+                return finishedAt != 0 && finishedAt < cutoff;
+            });
+    }
+
+    private record Pending(BatchJob job, int index) {}
+}
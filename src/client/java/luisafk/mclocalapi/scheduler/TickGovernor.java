@@ -0,0 +1,169 @@
+package luisafk.mclocalapi.scheduler;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+
+/**
+ * Keeps the mod's share of each frame under {@code tickBudgetPercent} by
+ * shedding work in stages. The time the tick listener takes is averaged and
+ * compared with the frame time; while it stays over budget, the governor
+ * steps up one {@link Level} at a time, and once it's been well under budget
+ * for a while, steps back down. Levels are cumulative.
+ *
+ * <p>{@link #record} and the per-tick questions are for the client thread;
+ * {@link #status()} may be called from anywhere.
+ */
+public class TickGovernor {
+
+    /** Weight of the newest tick in the averages. */
+    private static final double SMOOTHING = 0.1;
+
+    /** Ticks ignored at first, while class loading and JIT make them slow. */
+    private static final int WARMUP_TICKS = 200;
+
+    /** Ticks over budget before stepping up, about a second. */
+    private static final int ESCALATE_AFTER_TICKS = 20;
+
+    /** Ticks under half the budget before stepping down. */
+    private static final int RELAX_AFTER_TICKS = 200;
+
+    public enum Level {
+        NORMAL(1, 1, false),
+        /** Streams and event producers run every other tick. */
+        REDUCED_STREAM_RATE(2, 1, false),
+        /** Only movement is read each tick; the rest twice a second. */
+        PARTIAL_SNAPSHOTS(2, 10, false),
+        /** Streams every fourth tick, and one client task per tick. */
+        DEFERRED_TASKS(4, 10, true);
+
+        private final int streamInterval;
+        private final int fullSnapshotInterval;
+        private final boolean deferTasks;
+
+        Level(
+            int streamInterval,
+            int fullSnapshotInterval,
+            boolean deferTasks
+        ) {
+            this.streamInterval = streamInterval;
+            this.fullSnapshotInterval = fullSnapshotInterval;
+            this.deferTasks = deferTasks;
+        }
+    }
+
+    /**
+     * @param loadPercent the averaged tick listener time, as a percentage of
+     *                    the averaged frame time
+     * @param since       {@link System#currentTimeMillis()} when the level
+     *                    last changed
+     */
+    public record Status(
+        boolean enabled,
+        Level level,
+        double budgetPercent,
+        double loadPercent,
+        double tickOverheadMicros,
+        double frameTimeMicros,
+        long since
+    ) {}
+
+    private volatile Status status = new Status(
+        true,
+        Level.NORMAL,
+        0,
+        0,
+        0,
+        0,
+        System.currentTimeMillis()
+    );
+
+    private Level level = Level.NORMAL;
+    private long since = System.currentTimeMillis();
+    private long ticks;
+    private double overheadNanos;
+    private double frameNanos;
+    private int overBudgetTicks;
+    private int underBudgetTicks;
+
+    /**
+     * Accounts one tick: {@code overheadNanos} is what the tick listener took,
+     * {@code frameNanos} the game's recent frame time.
+     */
+    public void record(long overheadNanos, long frameNanos) {
+        ticks++;
+        if (this.frameNanos == 0) {
+            this.overheadNanos = overheadNanos;
+            this.frameNanos = frameNanos;
+        } else {
+            this.overheadNanos +=
+                SMOOTHING * (overheadNanos - this.overheadNanos);
+            this.frameNanos += SMOOTHING * (frameNanos - this.frameNanos);
+        }
+
+        double budget = config.tickBudgetPercent;
+        double load =
+            (100 * this.overheadNanos) / Math.max(1, this.frameNanos);
+
+        if (!config.enableTickGovernor || ticks < WARMUP_TICKS) {
+            setLevel(Level.NORMAL);
+            overBudgetTicks = 0;
+            underBudgetTicks = 0;
+        } else if (load > budget) {
+            underBudgetTicks = 0;
+            if (++overBudgetTicks >= ESCALATE_AFTER_TICKS) {
+                overBudgetTicks = 0;
+                setLevel(Level.values()[
+                    Math.min(level.ordinal() + 1, Level.values().length - 1)
+                ]);
+            }
+        } else if (load < budget / 2) {
+            overBudgetTicks = 0;
+            if (++underBudgetTicks >= RELAX_AFTER_TICKS) {
+                underBudgetTicks = 0;
+                setLevel(Level.values()[Math.max(level.ordinal() - 1, 0)]);
+            }
+        } else {
+            overBudgetTicks = 0;
+            underBudgetTicks = 0;
+        }
+
+        status = new Status(
+            config.enableTickGovernor,
+            level,
+            budget,
+            load,
+            this.overheadNanos / 1000,
+            this.frameNanos / 1000,
+            since
+        );
+    }
+
+    /** Whether streams and event producers should run this tick. */
+    public boolean shouldTickStreams() {
+        return ticks % level.streamInterval == 0;
+    }
+
+    /** Whether this tick's snapshot should read every field. */
+    public boolean shouldCaptureFully() {
+        return ticks % level.fullSnapshotInterval == 0;
+    }
+
+    /** How many queued client tasks to run this tick. */
+    public int clientTasksThisTick() {
+        return level.deferTasks ? 1 : config.clientTasksPerTick;
+    }
+
+    public Level level() {
+        return status.level();
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    private void setLevel(Level level) {
+        if (level != this.level) {
+            this.level = level;
+            since = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package luisafk.mclocalapi.state;
+
+import luisafk.mclocalapi.game.GameProvider;
+
+/**
+ * Captures a {@link GameStateSnapshot} every client tick and publishes it
+ * through a volatile reference. Readers never block the client thread and
+ * always see a consistent snapshot.
+ */
+public class GameStatePublisher {
+
+    private volatile GameStateSnapshot current = GameStateSnapshot.noPlayer(
+        0,
+        System.currentTimeMillis(),
+        null
+    );
+    private final ResourceVersions versions = new ResourceVersions();
+    private long tick;
+
+    /**
+     * Must be called on the client thread, once per tick. Unless
+     * {@code full}, only movement is read and the rest carried over.
+     */
+    public GameStateSnapshot capture(GameProvider game, boolean full) {
+        tick++;
+        long now = System.currentTimeMillis();
+        GameStateSnapshot snapshot = full
+            ? game.capture(tick, now)
+            : game.captureMovement(tick, now, current);
+        publish(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Makes {@code snapshot} the current one. {@link #capture} does this
+     * every tick; it's public for driving the API without a game. Must not
+     * run concurrently with itself.
+     */
+    public void publish(GameStateSnapshot snapshot) {
+        GameStateSnapshot previous = current;
+        current = snapshot;
+        versions.update(previous, snapshot);
+    }
+
+    public ResourceVersions versions() {
+        return versions;
+    }
+
+    /** The most recently published snapshot. Safe to call from any thread. */
+    public GameStateSnapshot current() {
+        return current;
+    }
+}
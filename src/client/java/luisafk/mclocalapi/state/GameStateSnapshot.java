@@ -0,0 +1,62 @@
+package luisafk.mclocalapi.state;
+
+/**
+ * Immutable copy of the game state the API exposes, captured once per client
+ * tick on the client thread. HTTP threads read these instead of touching
+ * {@code mc.player}/{@code mc.level} while the game mutates them.
+ *
+ * @param tick          client tick the snapshot was captured on
+ * @param capturedAt    {@link System#currentTimeMillis()} at capture time
+ * @param hasPlayer     whether a player (and level) existed; when false, all
+ *                      player fields hold defaults
+ * @param velocityX     movement in blocks per tick
+ * @param dimension     dimension ID, e.g. {@code minecraft:overworld}
+ * @param screenTitle   title of the open screen, or {@code null} if none
+ */
+public record GameStateSnapshot(
+    long tick,
+    long capturedAt,
+    boolean hasPlayer,
+    double x,
+    double y,
+    double z,
+    float yaw,
+    float pitch,
+    double velocityX,
+    double velocityY,
+    double velocityZ,
+    boolean onGround,
+    String dimension,
+    String screenTitle,
+    float health,
+    float maxHealth,
+    int foodLevel,
+    int experienceLevel
+) {
+    public static GameStateSnapshot noPlayer(
+        long tick,
+        long capturedAt,
+        String screenTitle
+    ) {
+        return new GameStateSnapshot(
+            tick,
+            capturedAt,
+            false,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0,
+            false,
+            null,
+            screenTitle,
+            0,
+            0,
+            0,
+            0
+        );
+    }
+}
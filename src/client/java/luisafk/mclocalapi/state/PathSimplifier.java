@@ -0,0 +1,134 @@
+package luisafk.mclocalapi.state;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Ramer–Douglas–Peucker to a point budget: starting from a path's end points
+ * (and every dimension change, which is always kept), repeatedly splits the
+ * segment whose farthest sample deviates most from it, until
+ * {@code maxPoints} are kept or what's left is a straight line.
+ */
+public final class PathSimplifier {
+
+    private PathSimplifier() {}
+
+    /** Indices of the samples to keep, ascending. */
+    public static int[] simplify(PositionHistory.Samples samples, int maxPoints) {
+        int n = samples.size();
+        if (n <= maxPoints) {
+            int[] all = new int[n];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+
+        boolean[] keep = new boolean[n];
+        int kept = 0;
+        PriorityQueue<Segment> queue = new PriorityQueue<>();
+
+        // Each run within one dimension is simplified on its own
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (
+                i == n ||
+                samples.dimensions()[i] != samples.dimensions()[runStart]
+            ) {
+                int runEnd = i - 1;
+                if (!keep[runStart]) {
+                    keep[runStart] = true;
+                    kept++;
+                }
+                if (!keep[runEnd]) {
+                    keep[runEnd] = true;
+                    kept++;
+                }
+                Segment segment = farthest(samples, runStart, runEnd);
+                if (segment != null) {
+                    queue.add(segment);
+                }
+                runStart = i;
+            }
+        }
+
+        while (kept < maxPoints && !queue.isEmpty()) {
+            Segment segment = queue.poll();
+            if (segment.deviation == 0) {
+                break;
+            }
+
+            keep[segment.farthest] = true;
+            kept++;
+
+            Segment left = farthest(samples, segment.start, segment.farthest);
+            Segment right = farthest(samples, segment.farthest, segment.end);
+            if (left != null) {
+                queue.add(left);
+            }
+            if (right != null) {
+                queue.add(right);
+            }
+        }
+
+        int[] indices = new int[kept];
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                indices[j++] = i;
+            }
+        }
+        return indices;
+    }
+
+    /** The sample between {@code start} and {@code end} farthest from the chord. */
+    private static Segment farthest(
+        PositionHistory.Samples s,
+        int start,
+        int end
+    ) {
+        if (end - start < 2) {
+            return null;
+        }
+
+        double ax = s.xs()[start];
+        double ay = s.ys()[start];
+        double az = s.zs()[start];
+        double dx = s.xs()[end] - ax;
+        double dy = s.ys()[end] - ay;
+        double dz = s.zs()[end] - az;
+        double lengthSquared = dx * dx + dy * dy + dz * dz;
+
+        int farthest = start + 1;
+        double max = -1;
+        for (int i = start + 1; i < end; i++) {
+            double px = s.xs()[i] - ax;
+            double py = s.ys()[i] - ay;
+            double pz = s.zs()[i] - az;
+
+            double d;
+            if (lengthSquared == 0) {
+                d = px * px + py * py + pz * pz;
+            } else {
+                // |p × d|² / |d|², the squared distance to the line
+                double cx = py * dz - pz * dy;
+                double cy = pz * dx - px * dz;
+                double cz = px * dy - py * dx;
+                d = (cx * cx + cy * cy + cz * cz) / lengthSquared;
+            }
+
+            if (d > max) {
+                max = d;
+                farthest = i;
+            }
+        }
+
+        return new Segment(start, end, farthest, max);
+    }
+
+    private record Segment(int start, int end, int farthest, double deviation)
+        implements Comparable<Segment> {
+        @Override
+        public int compareTo(Segment other) {
+            return Double.compare(other.deviation, deviation);
+        }
+    }
+}
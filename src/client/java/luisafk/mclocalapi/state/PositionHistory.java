@@ -0,0 +1,191 @@
+package luisafk.mclocalapi.state;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-capacity ring of past player positions, one sample per tick, kept in
+ * parallel primitive arrays so recording allocates nothing. Dimensions are
+ * stored as small integer IDs.
+ *
+ * <p>Only the client thread records. Readers copy the range they need
+ * without locking and retry if the writer lapped them while copying (see
+ * {@link #query}).
+ */
+public class PositionHistory {
+
+    /** Copy of a range of samples, oldest first. */
+    public record Samples(
+        int size,
+        long[] ticks,
+        long[] times,
+        double[] xs,
+        double[] ys,
+        double[] zs,
+        int[] dimensions,
+        String[] dimensionNames
+    ) {
+        public String dimension(int i) {
+            return dimensionNames[dimensions[i]];
+        }
+    }
+
+    private static final Samples EMPTY = new Samples(
+        0,
+        new long[0],
+        new long[0],
+        new double[0],
+        new double[0],
+        new double[0],
+        new int[0],
+        new String[0]
+    );
+
+    private volatile Buffer buffer;
+
+    /** Client thread only. */
+    private final Map<String, Integer> dimensionIds = new HashMap<>();
+    private volatile String[] dimensionNames = new String[0];
+
+    /**
+     * Records {@code state} if there's a player. A change of
+     * {@code capacity} drops the history and starts a new buffer; 0
+     * disables recording. Client thread only.
+     */
+    public void record(GameStateSnapshot state, int capacity) {
+        Buffer buffer = this.buffer;
+        if (buffer == null || buffer.capacity != capacity) {
+            buffer = capacity > 0 ? new Buffer(capacity) : null;
+            this.buffer = buffer;
+        }
+
+        if (buffer == null || !state.hasPlayer()) {
+            return;
+        }
+
+        buffer.append(state, dimensionId(state.dimension()));
+    }
+
+    /**
+     * Samples with {@code from <= time <= to} (epoch millis), oldest first.
+     * Safe to call from any thread.
+     */
+    public Samples query(long from, long to) {
+        Buffer buffer = this.buffer;
+        if (buffer == null) {
+            return EMPTY;
+        }
+
+        while (true) {
+            long end = buffer.written;
+            long start = Math.max(0, end - buffer.capacity);
+
+            long lo = buffer.firstAtOrAfter(start, end, from);
+            long hi = buffer.firstAtOrAfter(lo, end, to + 1);
+            Samples samples = buffer.copy(lo, hi, dimensionNames);
+
+            // The copy's plain reads mustn't move past the check below
+            VarHandle.acquireFence();
+
+            // If the writer reached a slot we copied, it may have
+            // overwritten samples while we copied them; try again
+            if (lo >= buffer.written - buffer.capacity) {
+                return samples;
+            }
+        }
+    }
+
+    private int dimensionId(String dimension) {
+        Integer id = dimensionIds.get(dimension);
+        if (id == null) {
+            id = dimensionIds.size();
+            dimensionIds.put(dimension, id);
+            String[] names = Arrays.copyOf(dimensionNames, id + 1);
+            names[id] = dimension;
+            dimensionNames = names;
+        }
+        return id;
+    }
+
+    private static final class Buffer {
+
+        final int capacity;
+        /** One more than {@link #capacity}, for the sample being written. */
+        final int slots;
+        final long[] ticks;
+        final long[] times;
+        final double[] xs;
+        final double[] ys;
+        final double[] zs;
+        final int[] dimensions;
+
+        /** Samples ever appended. Published after each sample is stored. */
+        volatile long written;
+
+        Buffer(int capacity) {
+            this.capacity = capacity;
+            this.slots = capacity + 1;
+            this.ticks = new long[slots];
+            this.times = new long[slots];
+            this.xs = new double[slots];
+            this.ys = new double[slots];
+            this.zs = new double[slots];
+            this.dimensions = new int[slots];
+        }
+
+        void append(GameStateSnapshot state, int dimension) {
+            long n = written;
+            int i = (int) (n % slots);
+            // Readers must see the last sample published before this slot's
+            // old sample starts changing
+            VarHandle.storeStoreFence();
+            ticks[i] = state.tick();
+            times[i] = state.capturedAt();
+            xs[i] = state.x();
+            ys[i] = state.y();
+            zs[i] = state.z();
+            dimensions[i] = dimension;
+            written = n + 1;
+        }
+
+        /** Binary search by time over sequence numbers {@code [lo, hi)}. */
+        long firstAtOrAfter(long lo, long hi, long time) {
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (times[(int) (mid % slots)] < time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        Samples copy(long from, long to, String[] dimensionNames) {
+            int size = (int) (to - from);
+            Samples samples = new Samples(
+                size,
+                new long[size],
+                new long[size],
+                new double[size],
+                new double[size],
+                new double[size],
+                new int[size],
+                dimensionNames
+            );
+
+            for (int j = 0; j < size; j++) {
+                int i = (int) ((from + j) % slots);
+                samples.ticks[j] = ticks[i];
+                samples.times[j] = times[i];
+                samples.xs[j] = xs[i];
+                samples.ys[j] = ys[i];
+                samples.zs[j] = zs[i];
+                samples.dimensions[j] = dimensions[i];
+            }
+            return samples;
+        }
+    }
+}
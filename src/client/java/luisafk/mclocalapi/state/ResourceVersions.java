@@ -0,0 +1,137 @@
+package luisafk.mclocalapi.state;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A monotonically increasing version per pollable resource, bumped by
+ * {@link GameStatePublisher} whenever the resource's value changes. Used for
+ * ETags and for long-polling without holding a thread.
+ *
+ * <p>Versions are bumped only after the snapshot they describe has been
+ * published, so reading a version and then the snapshot never pairs a
+ * version with older data.
+ *
+ * <p>Versions restart at 0 each launch, so they're only comparable within
+ * one {@link #epoch()}.
+ */
+public class ResourceVersions {
+
+    public enum Resource {
+        POSITION,
+        WORLD,
+        SCREEN;
+
+        private final String id = name().toLowerCase();
+
+        public String id() {
+            return id;
+        }
+    }
+
+    private final String epoch = Long.toString(
+        ThreadLocalRandom.current().nextLong() >>> 1,
+        36
+    );
+
+    private final AtomicLongArray versions = new AtomicLongArray(
+        Resource.values().length
+    );
+
+    @SuppressWarnings("unchecked")
+    private final Queue<Waiter>[] waiters = new Queue[Resource.values().length];
+
+    public ResourceVersions() {
+        for (int i = 0; i < waiters.length; i++) {
+            waiters[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /** A random id for this launch, to tell its versions from earlier ones. */
+    public String epoch() {
+        return epoch;
+    }
+
+    public long get(Resource resource) {
+        return versions.get(resource.ordinal());
+    }
+
+    /**
+     * Completes with the new version once {@code resource} is past
+     * {@code seen}, or with the unchanged version after
+     * {@code timeoutMillis}. Holds no thread while waiting. A {@code seen}
+     * ahead of the current version must be from an earlier launch, so it
+     * completes at once.
+     */
+    public CompletableFuture<Long> awaitChange(
+        Resource resource,
+        long seen,
+        long timeoutMillis
+    ) {
+        Queue<Waiter> queue = waiters[resource.ordinal()];
+        queue.removeIf(waiter -> waiter.future.isDone());
+
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Waiter waiter = new Waiter(seen, future);
+        queue.add(waiter);
+
+        // It may have changed while we were registering
+        long current = get(resource);
+        if (current != seen) {
+            queue.remove(waiter);
+            future.complete(current);
+        }
+
+        return future.completeOnTimeout(
+            current,
+            timeoutMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /** Client thread only. */
+    void bump(Resource resource) {
+        long version = versions.incrementAndGet(resource.ordinal());
+
+        Queue<Waiter> queue = waiters[resource.ordinal()];
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        queue.removeIf(waiter -> {
+            if (waiter.seen < version) {
+                waiter.future.complete(version);
+                return true;
+            }
+            return waiter.future.isDone();
+        });
+    }
+
+    /** Client thread only. */
+    void update(GameStateSnapshot previous, GameStateSnapshot next) {
+        if (
+            previous.hasPlayer() != next.hasPlayer() ||
+            previous.x() != next.x() ||
+            previous.y() != next.y() ||
+            previous.z() != next.z()
+        ) {
+            bump(Resource.POSITION);
+        }
+        if (!Objects.equals(previous.dimension(), next.dimension())) {
+            bump(Resource.WORLD);
+        }
+        if (
+            previous.hasPlayer() != next.hasPlayer() ||
+            !Objects.equals(previous.screenTitle(), next.screenTitle())
+        ) {
+            bump(Resource.SCREEN);
+        }
+    }
+
+    private record Waiter(long seen, CompletableFuture<Long> future) {}
+}
@@ -0,0 +1,519 @@
+package luisafk.mclocalapi.transport;
+
+import com.sun.net.httpserver.Headers;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A client connection of a {@link NioHttpServer}. Requests are parsed on the
+ * selector thread and queued; each is handed to the executor once the
+ * previous response is complete. Response bytes are written directly by
+ * whichever thread produces them, and only queued for the selector thread
+ * when the socket is full.
+ */
+final class NioConnection {
+
+    static final int MAX_HEADER_BYTES = 8192;
+    static final int MAX_BODY_BYTES = 1 << 20;
+    /** Requests read ahead of the one being handled before reading pauses. */
+    private static final int MAX_PIPELINED = 16;
+    /** Response bytes queued before writers block. */
+    private static final int MAX_QUEUED_BYTES = 256 * 1024;
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress(
+        InetAddress.getLoopbackAddress(),
+        0
+    );
+
+    private final NioHttpServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+
+    // Selector thread only
+    private ByteBuffer in = ByteBuffer.allocate(MAX_HEADER_BYTES);
+    private Request head;
+    private boolean continueSent;
+
+    // Guarded by this
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean active;
+    private boolean readPaused;
+    private boolean inputClosed;
+    private boolean closeWhenFlushed;
+    private boolean closed;
+
+    NioConnection(
+        NioHttpServer server,
+        SocketChannel channel,
+        Selector selector
+    ) throws IOException {
+        this.server = server;
+        this.channel = channel;
+        this.remoteAddress = inetOrLoopback(channel.getRemoteAddress());
+        this.localAddress = inetOrLoopback(channel.getLocalAddress());
+        this.key = channel.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    /** Selector thread. */
+    void onReadable() throws IOException {
+        if (channel.read(in) == -1) {
+            endOfInput();
+            return;
+        }
+        parse();
+    }
+
+    /** Selector thread. */
+    synchronized void onWritable() throws IOException {
+        ByteBuffer buffer;
+        while ((buffer = outbound.peek()) != null) {
+            queuedBytes -= channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            outbound.poll();
+        }
+
+        if (outbound.isEmpty()) {
+            key.interestOpsAnd(~SelectionKey.OP_WRITE);
+            if (closeWhenFlushed) {
+                close();
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Writes {@code buffer}, or queues what the socket won't take. Blocks
+     * while too much is queued already, so a slow reader holds up its own
+     * writers rather than filling the heap.
+     */
+    void write(ByteBuffer buffer) throws IOException {
+        synchronized (this) {
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new IOException("Connection closed");
+                    }
+                    if (outbound.isEmpty()) {
+                        channel.write(buffer);
+                        if (!buffer.hasRemaining()) {
+                            return;
+                        }
+                        break;
+                    }
+                    if (queuedBytes < MAX_QUEUED_BYTES) {
+                        break;
+                    }
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+
+            queue(buffer);
+        }
+    }
+
+    /** Called once per request when its exchange is closed. */
+    synchronized void completed(boolean reusable) {
+        active = false;
+        if (!reusable || (inputClosed && pending.isEmpty())) {
+            closeWhenFlushed();
+        } else {
+            dispatchNext();
+        }
+    }
+
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        outbound.clear();
+        pending.clear();
+        notifyAll();
+        server.remove(this);
+    }
+
+    private void queue(ByteBuffer buffer) {
+        outbound.add(buffer);
+        queuedBytes += buffer.remaining();
+        key.interestOpsOr(SelectionKey.OP_WRITE);
+        key.selector().wakeup();
+    }
+
+    private void closeWhenFlushed() {
+        closeWhenFlushed = true;
+        if (outbound.isEmpty()) {
+            close();
+        }
+    }
+
+    private synchronized void endOfInput() {
+        if (closed) {
+            return;
+        }
+        inputClosed = true;
+        key.interestOpsAnd(~SelectionKey.OP_READ);
+        if (!active && pending.isEmpty()) {
+            closeWhenFlushed();
+        }
+    }
+
+    private synchronized void enqueue(Request request) {
+        if (closed) {
+            return;
+        }
+
+        pending.add(request);
+        if (pending.size() >= MAX_PIPELINED && !readPaused) {
+            readPaused = true;
+            key.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+        dispatchNext();
+    }
+
+    private void dispatchNext() {
+        if (closed || active || pending.isEmpty()) {
+            return;
+        }
+
+        Request request = pending.poll();
+        active = true;
+
+        if (readPaused && pending.size() < MAX_PIPELINED && !inputClosed) {
+            readPaused = false;
+            key.interestOpsOr(SelectionKey.OP_READ);
+            key.selector().wakeup();
+        }
+
+        try {
+            server.getExecutor().execute(() -> handle(request));
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    private void handle(Request request) {
+        NioExchange exchange = new NioExchange(this, request);
+        try {
+            if (request.errorStatus() != 0) {
+                exchange.sendError(
+                    request.errorStatus(),
+                    request.errorMessage()
+                );
+            } else {
+                server.getApi().serve(exchange);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+        }
+    }
+
+    // Parsing, on the selector thread
+
+    private void parse() {
+        while (!inputClosed) {
+            if (head == null) {
+                skipLeadingNewlines();
+                int end = headerEnd();
+                if (end < 0) {
+                    if (!in.hasRemaining()) {
+                        fail(431, "Request Header Fields Too Large");
+                    }
+                    return;
+                }
+
+                try {
+                    head = parseHead(end);
+                } catch (RequestException e) {
+                    fail(e.status, e.getMessage());
+                    return;
+                }
+                consume(end);
+                continueSent = false;
+            }
+
+            int length = head.body().length;
+            if (in.position() < length) {
+                if (in.capacity() < length) {
+                    in = ByteBuffer.allocate(length).put(in.flip());
+                }
+                if (head.expectContinue() && !continueSent) {
+                    sendContinue();
+                }
+                return;
+            }
+
+            byte[] body = Arrays.copyOf(in.array(), length);
+            consume(length);
+            enqueue(head.withBody(body));
+            head = null;
+        }
+    }
+
+    private void skipLeadingNewlines() {
+        byte[] bytes = in.array();
+        int skip = 0;
+        while (
+            skip < in.position() && (bytes[skip] == '\r' || bytes[skip] == '\n')
+        ) {
+            skip++;
+        }
+        consume(skip);
+    }
+
+    /** The index just past the blank line ending the head, or -1. */
+    private int headerEnd() {
+        byte[] bytes = in.array();
+        for (int i = 3; i < in.position(); i++) {
+            if (
+                bytes[i] == '\n' &&
+                bytes[i - 1] == '\r' &&
+                bytes[i - 2] == '\n' &&
+                bytes[i - 3] == '\r'
+            ) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /** Drops the first {@code count} bytes of {@link #in}. */
+    private void consume(int count) {
+        if (count == 0) {
+            return;
+        }
+        int remaining = in.position() - count;
+        if (remaining == 0 && in.capacity() > MAX_HEADER_BYTES) {
+            // Done with a large body
+            in = ByteBuffer.allocate(MAX_HEADER_BYTES);
+            return;
+        }
+        System.arraycopy(in.array(), count, in.array(), 0, remaining);
+        in.position(remaining);
+    }
+
+    /**
+     * Parses the head; the returned request's body is a placeholder of the
+     * right length.
+     */
+    private Request parseHead(int end) throws RequestException {
+        String[] lines = new String(
+            in.array(),
+            0,
+            end - 4,
+            StandardCharsets.ISO_8859_1
+        ).split("\r\n");
+
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) {
+            throw new RequestException(400, "Bad Request");
+        }
+        String method = requestLine[0];
+        String target = requestLine[1];
+        String protocol = requestLine[2];
+
+        if (!protocol.equals("HTTP/1.1") && !protocol.equals("HTTP/1.0")) {
+            throw new RequestException(505, "HTTP Version Not Supported");
+        }
+        if (!target.startsWith("/")) {
+            throw new RequestException(400, "Bad Request");
+        }
+
+        URI uri;
+        try {
+            uri = new URI(target);
+        } catch (URISyntaxException e) {
+            throw new RequestException(400, "Bad Request");
+        }
+
+        Headers headers = new Headers();
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            int colon = line.indexOf(':');
+            if (colon <= 0 || Character.isWhitespace(line.charAt(0))) {
+                throw new RequestException(400, "Bad Request");
+            }
+            headers.add(
+                line.substring(0, colon).trim(),
+                line.substring(colon + 1).trim()
+            );
+        }
+
+        if (headers.containsKey("Transfer-Encoding")) {
+            throw new RequestException(
+                501,
+                "Chunked request bodies are not supported"
+            );
+        }
+
+        int length = 0;
+        String contentLength = headers.getFirst("Content-Length");
+        if (contentLength != null) {
+            long parsed;
+            try {
+                parsed = Long.parseLong(contentLength);
+            } catch (NumberFormatException e) {
+                throw new RequestException(400, "Bad Request");
+            }
+            if (parsed < 0) {
+                throw new RequestException(400, "Bad Request");
+            }
+            if (parsed > MAX_BODY_BYTES) {
+                throw new RequestException(413, "Content Too Large");
+            }
+            length = (int) parsed;
+        }
+
+        String connection = lower(headers.getFirst("Connection"));
+        boolean keepAlive = protocol.equals("HTTP/1.1")
+            ? !connection.contains("close")
+            : connection.contains("keep-alive");
+
+        return new Request(
+            method,
+            uri,
+            protocol,
+            headers,
+            new byte[length],
+            keepAlive,
+            lower(headers.getFirst("Expect")).equals("100-continue"),
+            0,
+            null
+        );
+    }
+
+    /**
+     * Answers a bad request once everything before it has been answered,
+     * then closes the connection; nothing after it can be trusted.
+     */
+    private void fail(int status, String message) {
+        in.clear();
+        head = null;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            inputClosed = true;
+            key.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+        enqueue(Request.error(status, message));
+    }
+
+    /**
+     * Only while nothing else is being answered, so it can't land in the
+     * middle of another response; otherwise the client sends the body after
+     * its own timeout anyway.
+     */
+    private synchronized void sendContinue() {
+        continueSent = true;
+        if (active || !pending.isEmpty() || closed) {
+            return;
+        }
+        queue(
+            ByteBuffer.wrap(
+                "HTTP/1.1 100 Continue\r\n\r\n".getBytes(
+                    StandardCharsets.ISO_8859_1
+                )
+            )
+        );
+    }
+
+    /** Unix domain peers have no address; they're as local as it gets. */
+    private static InetSocketAddress inetOrLoopback(SocketAddress address) {
+        return address instanceof InetSocketAddress inet ? inet : LOOPBACK;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    record Request(
+        String method,
+        URI uri,
+        String protocol,
+        Headers headers,
+        byte[] body,
+        boolean keepAlive,
+        boolean expectContinue,
+        int errorStatus,
+        String errorMessage
+    ) {
+        static Request error(int status, String message) {
+            return new Request(
+                "GET",
+                URI.create("/"),
+                "HTTP/1.1",
+                new Headers(),
+                new byte[0],
+                false,
+                false,
+                status,
+                message
+            );
+        }
+
+        Request withBody(byte[] body) {
+            return new Request(
+                method,
+                uri,
+                protocol,
+                headers,
+                body,
+                keepAlive,
+                expectContinue,
+                errorStatus,
+                errorMessage
+            );
+        }
+    }
+
+    private static final class RequestException extends Exception {
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
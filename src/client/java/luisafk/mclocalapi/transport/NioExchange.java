@@ -0,0 +1,418 @@
+package luisafk.mclocalapi.transport;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One request on an {@link NioConnection}, framed the way
+ * {@code HttpServer} frames it: a response length of 0 means chunked, -1
+ * means no body. The head is held back until the first body bytes so that
+ * small responses go out in a single write, except for chunked responses,
+ * which are usually streams and need it right away.
+ */
+final class NioExchange extends HttpExchange {
+
+    private static final int BUFFER_BYTES = 8192;
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(
+        StandardCharsets.ISO_8859_1
+    );
+
+    private static final DateTimeFormatter DATE_FORMAT =
+        DateTimeFormatter.ofPattern(
+            "EEE, dd MMM yyyy HH:mm:ss 'GMT'",
+            Locale.ENGLISH
+        ).withZone(ZoneOffset.UTC);
+
+    private static volatile CachedDate cachedDate = new CachedDate(0, "");
+
+    private enum Framing {
+        NONE,
+        FIXED,
+        CHUNKED,
+        /** HTTP/1.0 has no chunking; the end of the body is the close. */
+        UNTIL_CLOSE,
+    }
+
+    private record CachedDate(long second, String value) {}
+
+    private final NioConnection connection;
+    private final NioConnection.Request request;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final ResponseStream responseStream = new ResponseStream();
+
+    private InputStream requestBody;
+    private OutputStream responseBody = responseStream;
+    private int responseCode = -1;
+    private boolean keepAlive;
+
+    NioExchange(NioConnection connection, NioConnection.Request request) {
+        this.connection = connection;
+        this.request = request;
+        this.requestBody = new ByteArrayInputStream(request.body());
+        this.keepAlive = request.keepAlive();
+    }
+
+    /** For requests the parser rejected; always ends the connection. */
+    void sendError(int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        responseHeaders.set("Content-Type", "text/plain; charset=UTF-8");
+        sendResponseHeaders(status, body.length);
+        try (OutputStream out = responseBody) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return request.headers();
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return request.uri();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.method();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        try {
+            requestBody.close();
+            responseStream.close();
+        } catch (IOException e) {
+            // The connection is closed already
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public synchronized void sendResponseHeaders(
+        int rCode,
+        long responseLength
+    ) throws IOException {
+        if (responseCode != -1) {
+            throw new IOException("headers already sent");
+        }
+        responseCode = rCode;
+
+        boolean head = request.method().equals("HEAD");
+        boolean bodiless = rCode < 200 || rCode == 204 || rCode == 304;
+
+        StringBuilder builder = new StringBuilder(256)
+            .append("HTTP/1.1 ")
+            .append(rCode)
+            .append(' ')
+            .append(reason(rCode))
+            .append("\r\nDate: ")
+            .append(date())
+            .append("\r\n");
+
+        Framing framing;
+        if (bodiless || head) {
+            framing = Framing.NONE;
+            if (head && responseLength > 0) {
+                header(builder, "Content-Length", responseLength);
+            }
+        } else if (responseLength == -1) {
+            framing = Framing.NONE;
+            header(builder, "Content-Length", 0);
+        } else if (responseLength > 0) {
+            framing = Framing.FIXED;
+            header(builder, "Content-Length", responseLength);
+        } else if (request.protocol().equals("HTTP/1.1")) {
+            framing = Framing.CHUNKED;
+            header(builder, "Transfer-Encoding", "chunked");
+        } else {
+            framing = Framing.UNTIL_CLOSE;
+            keepAlive = false;
+        }
+
+        if (!keepAlive) {
+            header(builder, "Connection", "close");
+        }
+        for (Map.Entry<String, List<String>> entry : responseHeaders
+            .entrySet()) {
+            for (String value : entry.getValue()) {
+                header(builder, entry.getKey(), value);
+            }
+        }
+        builder.append("\r\n");
+
+        responseStream.start(
+            builder.toString().getBytes(StandardCharsets.ISO_8859_1),
+            framing,
+            responseLength
+        );
+        if (framing == Framing.CHUNKED || framing == Framing.NONE) {
+            responseStream.flush();
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+
+    @Override
+    public synchronized int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return connection.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return request.protocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        synchronized (attributes) {
+            return attributes.get(name);
+        }
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        synchronized (attributes) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBody = i;
+        }
+        if (o != null) {
+            responseBody = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    private static void header(
+        StringBuilder builder,
+        String name,
+        Object value
+    ) {
+        builder.append(name).append(": ").append(value).append("\r\n");
+    }
+
+    private static String date() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate cached = cachedDate;
+        if (cached.second != second) {
+            cached = new CachedDate(
+                second,
+                DATE_FORMAT.format(Instant.ofEpochSecond(second))
+            );
+            cachedDate = cached;
+        }
+        return cached.value;
+    }
+
+    private static String reason(int status) {
+        return switch (status) {
+            case 100 -> "Continue";
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 409 -> "Conflict";
+            case 413 -> "Content Too Large";
+            case 429 -> "Too Many Requests";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            case 504 -> "Gateway Timeout";
+            case 505 -> "HTTP Version Not Supported";
+            default -> "";
+        };
+    }
+
+    /**
+     * Buffers the body and frames it. Each flush is a single write of the
+     * held-back head, if any, and the buffered bytes as one chunk.
+     */
+    private final class ResponseStream extends OutputStream {
+
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private int count;
+        private byte[] head;
+        private Framing framing;
+        private long remaining;
+        private boolean closed;
+
+        void start(byte[] head, Framing framing, long length) {
+            this.head = head;
+            this.framing = framing;
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len)
+            throws IOException {
+            if (closed) {
+                throw new IOException("stream is closed");
+            }
+            if (framing == null) {
+                throw new IOException("response headers not sent yet");
+            }
+            if (framing == Framing.NONE && len > 0) {
+                throw new IOException("response has no body");
+            }
+            if (framing == Framing.FIXED) {
+                if (len > remaining) {
+                    throw new IOException("too many bytes to write to stream");
+                }
+                remaining -= len;
+            }
+
+            if (count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            } else {
+                send(b, off, len, false);
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (closed) {
+                return;
+            }
+            send(null, 0, 0, false);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                if (framing == null) {
+                    keepAlive = false;
+                } else {
+                    send(null, 0, 0, framing == Framing.CHUNKED);
+                    if (framing == Framing.FIXED && remaining > 0) {
+                        // The client would wait for the rest forever
+                        keepAlive = false;
+                    }
+                }
+            } finally {
+                connection.completed(keepAlive);
+            }
+        }
+
+        /**
+         * Writes the head, the buffer and {@code b}, in that order, framed
+         * as one chunk if chunked, and the last chunk if {@code last}.
+         */
+        private void send(byte[] b, int off, int len, boolean last)
+            throws IOException {
+            int body = count + len;
+            if (head == null && body == 0 && !last) {
+                return;
+            }
+
+            boolean chunked = framing == Framing.CHUNKED && body > 0;
+            byte[] chunkHeader = chunked
+                ? (Integer.toHexString(body) + "\r\n").getBytes(
+                      StandardCharsets.ISO_8859_1
+                  )
+                : null;
+
+            ByteBuffer out = ByteBuffer.allocate(
+                (head == null ? 0 : head.length) +
+                    (chunked ? chunkHeader.length + CRLF.length : 0) +
+                    body +
+                    (last ? LAST_CHUNK.length : 0)
+            );
+            if (head != null) {
+                out.put(head);
+                head = null;
+            }
+            if (chunked) {
+                out.put(chunkHeader);
+            }
+            out.put(buffer, 0, count);
+            if (b != null) {
+                out.put(b, off, len);
+            }
+            if (chunked) {
+                out.put(CRLF);
+            }
+            if (last) {
+                out.put(LAST_CHUNK);
+            }
+            count = 0;
+
+            connection.write(out.flip());
+        }
+    }
+}
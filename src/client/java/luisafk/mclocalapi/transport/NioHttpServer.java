@@ -0,0 +1,273 @@
+package luisafk.mclocalapi.transport;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import luisafk.mclocalapi.rest.RestApiProvider;
+
+/**
+ * Serves the REST routes over HTTP/1.1 on any {@link ServerSocketChannel},
+ * in practice a Unix domain socket: same-host clients skip the TCP stack,
+ * and the socket file's permissions decide who may connect.
+ *
+ * <p>One selector thread accepts connections, reads and parses requests, and
+ * finishes writes the socket couldn't take at once. Handlers run on the
+ * given executor, like the {@code HttpServer}'s, and write straight to the
+ * socket while it keeps up. Connections are kept alive and may pipeline
+ * requests: they're read ahead, but each one is only handled once the
+ * response to the previous one is complete, so responses go out in order.
+ */
+public class NioHttpServer {
+
+    private final RestApiProvider api;
+    private final Executor executor;
+    private final Set<NioConnection> connections =
+        ConcurrentHashMap.newKeySet();
+
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Path socketFile;
+
+    public NioHttpServer(RestApiProvider api, Executor executor) {
+        this.api = api;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts listening. A Unix domain socket's file is replaced if it's left
+     * over from an earlier run, but not if a server still answers on it, and
+     * is only accessible to its owner from the moment it appears.
+     * {@code backlog} is as for {@link ServerSocketChannel#bind}.
+     */
+    public synchronized void start(SocketAddress address, int backlog)
+        throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Server already running");
+        }
+
+        Path file = null;
+        ServerSocketChannel channel;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            file = unix.getPath();
+            removeStaleSocket(file);
+            channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            channel = ServerSocketChannel.open();
+        }
+
+        boolean bound = false;
+        try {
+            if (file != null) {
+                bindPrivately(channel, file, backlog);
+            } else {
+                channel.bind(address, backlog);
+            }
+            bound = true;
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            channel.close();
+            if (file != null && bound) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        socketFile = file;
+        serverChannel = channel;
+
+        Selector started = selector;
+        Thread.ofPlatform()
+            .daemon()
+            .name("mc-local-api-nio")
+            .start(() -> selectLoop(started));
+    }
+
+    public synchronized void stop() {
+        if (serverChannel == null) {
+            return;
+        }
+
+        try {
+            selector.close();
+            serverChannel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        serverChannel = null;
+        selector = null;
+
+        connections.forEach(NioConnection::close);
+        connections.clear();
+
+        if (socketFile != null) {
+            try {
+                Files.deleteIfExists(socketFile);
+            } catch (IOException e) {
+                // ignore
+            }
+            socketFile = null;
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    RestApiProvider getApi() {
+        return api;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    void remove(NioConnection connection) {
+        connections.remove(connection);
+    }
+
+    private void selectLoop(Selector selector) {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(selector, (ServerSocketChannel) key.channel());
+                        continue;
+                    }
+
+                    NioConnection connection = (NioConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        // Closed by another thread meanwhile, or failed
+                        logger.debug("NIO connection closed with error", e);
+                        connection.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (ClosedSelectorException e) {
+            // Stopped
+        } catch (IOException e) {
+            logger.error("NIO server selector failed", e);
+        }
+    }
+
+    private void accept(Selector selector, ServerSocketChannel channel) {
+        SocketChannel client;
+        try {
+            client = channel.accept();
+            if (client == null) {
+                return;
+            }
+            client.configureBlocking(false);
+        } catch (IOException e) {
+            logger.error("Error accepting NIO connection", e);
+            return;
+        }
+
+        try {
+            connections.add(new NioConnection(this, client, selector));
+        } catch (IOException e) {
+            logger.debug("Error registering NIO connection", e);
+            try {
+                client.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Deletes a socket file left at {@code path} by a run that didn't stop
+     * cleanly, since binding fails while it exists. A regular file or
+     * directory there is an error rather than removed, so a mistyped path
+     * can't delete anything else. The file is only stale if connecting to
+     * it is refused; if a server answers, it's in use and kept.
+     */
+    private static void removeStaleSocket(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        if (Files.isRegularFile(path) || Files.isDirectory(path)) {
+            throw new IOException(path + " exists and is not a socket");
+        }
+
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(path)).close();
+        } catch (ConnectException e) {
+            // Left over from a run that didn't stop cleanly
+            Files.delete(path);
+            return;
+        }
+        throw new IOException(path + " is in use by another server");
+    }
+
+    /**
+     * Binds {@code channel} to a socket at {@code path} that only its owner
+     * can connect to. Java can't set the umask, and a socket's permissions
+     * can only be changed once it exists, so it's bound in a new directory
+     * only the owner can enter, restricted there, then moved into place.
+     * Without POSIX permissions (Windows), it's bound in place and inherits
+     * the directory's ACL.
+     */
+    private static void bindPrivately(
+        ServerSocketChannel channel,
+        Path path,
+        int backlog
+    ) throws IOException {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory(
+                path.toAbsolutePath().getParent(),
+                ".sock",
+                PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rwx------")
+                )
+            );
+        } catch (UnsupportedOperationException e) {
+            channel.bind(UnixDomainSocketAddress.of(path), backlog);
+            return;
+        }
+
+        Path bound = directory.resolve("s");
+        try {
+            channel.bind(UnixDomainSocketAddress.of(bound), backlog);
+            Files.setPosixFilePermissions(
+                bound,
+                PosixFilePermissions.fromString("rw-------")
+            );
+            Files.move(bound, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(bound);
+            Files.delete(directory);
+        }
+    }
+}
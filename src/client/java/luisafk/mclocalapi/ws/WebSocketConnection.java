@@ -0,0 +1,574 @@
+package luisafk.mclocalapi.ws;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+import static luisafk.mclocalapi.MCLocalAPIClient.eventBus;
+import static luisafk.mclocalapi.MCLocalAPIClient.metrics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import luisafk.mclocalapi.encoding.Encoding;
+import luisafk.mclocalapi.events.Event;
+import luisafk.mclocalapi.events.EventFilter;
+import luisafk.mclocalapi.events.EventSubscription;
+import luisafk.mclocalapi.events.EventTopic;
+import luisafk.mclocalapi.rest.LocalExchange;
+
+/**
+ * One upgraded WebSocket. Clients send JSON messages (in text or binary
+ * frames):
+ *
+ * <ul>
+ *   <li>{@code {"op":"subscribe","topics":["position"],"binary":false}},
+ *       optionally with {@code "bbox"} and {@code "minIntervalMs"} as on
+ *       {@code /events}, and an {@code "encoding"} of {@code json},
+ *       {@code cbor} or {@code msgpack} for the events (the latter two are
+ *       always sent in binary frames)</li>
+ *   <li>{@code {"op":"unsubscribe","topics":["position"]}}</li>
+ *   <li>{@code {"op":"call","id":1,"method":"GET","path":"/player/world"}},
+ *       answered with {@code {"op":"response","id":1,"status":..,"body":..}}
+ *       (base64 with {@code "bodyEncoding":"base64"} for binary bodies)
+ *       in the same frame type. Each call runs on its own virtual thread.
+ *       Event streams can't be called (400); they're topics here.</li>
+ * </ul>
+ *
+ * Topic events arrive as
+ * {@code {"op":"event","topic":..,"tick":..,"data":..}}.
+ */
+class WebSocketConnection {
+
+    private static final int MAX_MESSAGE_BYTES = 1 << 20;
+    private static final long CALL_TIMEOUT_SECONDS = 30;
+
+    /** Tells the writer to flush what's queued and stop. */
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private static final LongAdder bytesWritten = metrics.streamBytes(
+        "websocket"
+    );
+
+    private final WebSocketServer server;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    /** Replies and control frames; never dropped, written first. */
+    private final BlockingQueue<byte[]> replies;
+    /** Topic events; the oldest is dropped when the client falls behind. */
+    private final BlockingQueue<byte[]> events;
+    /** One permit per queued frame, so the writer can wait on both queues. */
+    private final Semaphore queued = new Semaphore(0);
+    private final Object subscriptionLock = new Object();
+    private EventSubscription subscription;
+    private EventFilter filter = EventFilter.NONE;
+
+    private volatile boolean binaryEvents;
+    private volatile Encoding eventEncoding = Encoding.JSON;
+    private volatile boolean closed;
+
+    WebSocketConnection(
+        WebSocketServer server,
+        Socket socket,
+        InputStream in,
+        OutputStream out
+    ) {
+        this.server = server;
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+        int capacity = Math.max(1, config.playerPositionStreamQueueCapacity);
+        this.replies = new ArrayBlockingQueue<>(capacity);
+        this.events = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** Event bus sink; runs on the bus's dispatcher thread. */
+    private void deliver(Event event) {
+        sendEvent(event.webSocketFrame(eventEncoding, binaryEvents));
+    }
+
+    /**
+     * Queues a topic event. Never blocks: if the client has fallen behind,
+     * the oldest queued event is dropped. Replies are queued separately, so
+     * they never are.
+     */
+    private void sendEvent(byte[] frame) {
+        while (!closed) {
+            if (events.offer(frame)) {
+                queued.release();
+                return;
+            }
+            // Its permit stays behind; the writer skips the empty wakeup
+            events.poll();
+        }
+    }
+
+    /** Queues a reply, waiting a bounded time for room. */
+    private void sendReply(byte[] frame) {
+        try {
+            if (replies.offer(frame, CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                queued.release();
+            } else {
+                close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int getQueuedFrames() {
+        return replies.size() + events.size();
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        synchronized (subscriptionLock) {
+            if (subscription != null) {
+                eventBus.unsubscribe(subscription);
+                subscription = null;
+            }
+        }
+
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /** Reads frames until the connection closes. */
+    void run() throws IOException {
+        Thread writer = Thread.ofVirtual()
+            .name(Thread.currentThread().getName() + "-writer")
+            .start(this::writeLoop);
+
+        try {
+            readLoop();
+        } finally {
+            // Let the writer send any replies already queued (e.g. a close
+            // frame) before the socket goes away
+            if (replies.offer(END_OF_STREAM)) {
+                queued.release();
+            }
+            try {
+                writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            close();
+            writer.interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (!closed) {
+                queued.acquire();
+                byte[] frame = replies.poll();
+                if (frame == null) {
+                    frame = events.poll();
+                }
+                if (frame == null) {
+                    continue;
+                }
+                if (frame == END_OF_STREAM) {
+                    out.flush();
+                    return;
+                }
+                out.write(frame);
+                bytesWritten.add(frame.length);
+                if (replies.isEmpty() && events.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void readLoop() throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        int messageOpcode = -1;
+
+        while (!closed) {
+            int b0 = in.read();
+            if (b0 == -1) {
+                return;
+            }
+            int b1 = readByte();
+
+            boolean fin = (b0 & 0x80) != 0;
+            int opcode = b0 & 0x0f;
+            boolean masked = (b1 & 0x80) != 0;
+            long length = b1 & 0x7f;
+            if (length == 126) {
+                length = (readByte() << 8) | readByte();
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | readByte();
+                }
+            }
+
+            if (!masked) {
+                closeWith(1002);
+                return;
+            }
+            if (length < 0 || message.size() + length > MAX_MESSAGE_BYTES) {
+                closeWith(1009);
+                return;
+            }
+
+            byte[] mask = in.readNBytes(4);
+            byte[] payload = in.readNBytes((int) length);
+            if (mask.length < 4 || payload.length < length) {
+                throw new EOFException();
+            }
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+
+            switch (opcode) {
+                case WebSocketFrames.OPCODE_CLOSE -> {
+                    sendReply(
+                        WebSocketFrames.encode(
+                            WebSocketFrames.OPCODE_CLOSE,
+                            payload.length >= 2
+                                ? new byte[] { payload[0], payload[1] }
+                                : new byte[0]
+                        )
+                    );
+                    return;
+                }
+                case WebSocketFrames.OPCODE_PING -> sendReply(
+                    WebSocketFrames.encode(WebSocketFrames.OPCODE_PONG, payload)
+                );
+                case WebSocketFrames.OPCODE_PONG -> {}
+                case WebSocketFrames.OPCODE_TEXT,
+                    WebSocketFrames.OPCODE_BINARY,
+                    WebSocketFrames.OPCODE_CONTINUATION -> {
+                    if (opcode != WebSocketFrames.OPCODE_CONTINUATION) {
+                        if (messageOpcode != -1) {
+                            closeWith(1002);
+                            return;
+                        }
+                        messageOpcode = opcode;
+                    } else if (messageOpcode == -1) {
+                        closeWith(1002);
+                        return;
+                    }
+
+                    message.write(payload);
+                    if (fin) {
+                        handleMessage(
+                            messageOpcode == WebSocketFrames.OPCODE_BINARY,
+                            message.toByteArray()
+                        );
+                        message.reset();
+                        messageOpcode = -1;
+                    }
+                }
+                default -> {
+                    closeWith(1002);
+                    return;
+                }
+            }
+        }
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private void closeWith(int statusCode) {
+        sendReply(WebSocketFrames.close(statusCode));
+    }
+
+    private void handleMessage(boolean binary, byte[] payload) {
+        JsonObject request;
+        try {
+            request = JsonParser.parseString(
+                new String(payload, StandardCharsets.UTF_8)
+            ).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            sendError(binary, null, "Messages must be JSON objects");
+            return;
+        }
+
+        JsonElement id = request.has("id") ? request.get("id") : null;
+
+        try {
+            String op = request.has("op")
+                ? request.get("op").getAsString()
+                : "";
+
+            switch (op) {
+                case "subscribe", "unsubscribe" -> handleSubscription(
+                    binary,
+                    id,
+                    request,
+                    op.equals("subscribe")
+                );
+                case "call" -> Thread.ofVirtual()
+                    .name(Thread.currentThread().getName() + "-call")
+                    .start(() -> handleCall(binary, id, request));
+                default -> sendError(binary, id, "Unknown op: " + op);
+            }
+        } catch (IllegalStateException | UnsupportedOperationException e) {
+            // Wrong JSON type somewhere in the message
+            sendError(binary, id, "Malformed message");
+        }
+    }
+
+    private void handleSubscription(
+        boolean binary,
+        JsonElement id,
+        JsonObject request,
+        boolean subscribe
+    ) {
+        if (!request.has("topics") || !request.get("topics").isJsonArray()) {
+            sendError(binary, id, "topics must be an array");
+            return;
+        }
+
+        Set<EventTopic> requested = EnumSet.noneOf(EventTopic.class);
+        for (JsonElement element : request.getAsJsonArray("topics")) {
+            EventTopic topic = EventTopic.fromId(element.getAsString());
+            if (topic == null) {
+                sendError(binary, id, "Unknown topic: " + element);
+                return;
+            }
+            requested.add(topic);
+        }
+
+        EventFilter newFilter = null;
+        if (subscribe && (request.has("bbox") || request.has("minIntervalMs"))) {
+            try {
+                newFilter = EventFilter.parse(
+                    request.has("bbox")
+                        ? request.get("bbox").getAsString()
+                        : null,
+                    request.has("minIntervalMs")
+                        ? request.get("minIntervalMs").getAsString()
+                        : null
+                );
+            } catch (IllegalArgumentException e) {
+                sendError(binary, id, "Invalid filter: " + e.getMessage());
+                return;
+            }
+        }
+
+        Encoding encoding = null;
+        if (request.has("encoding")) {
+            encoding = Encoding.fromId(request.get("encoding").getAsString());
+            if (encoding == null || !encoding.isStructured()) {
+                sendError(
+                    binary,
+                    id,
+                    "encoding must be one of json, cbor, msgpack"
+                );
+                return;
+            }
+        }
+
+        if (request.has("binary")) {
+            binaryEvents = request.get("binary").getAsBoolean();
+        }
+        if (encoding != null) {
+            eventEncoding = encoding;
+        }
+
+        JsonArray current = new JsonArray();
+        synchronized (subscriptionLock) {
+            if (closed) {
+                return;
+            }
+
+            Set<EventTopic> topics = EnumSet.noneOf(EventTopic.class);
+            if (subscription != null) {
+                topics.addAll(subscription.getTopics());
+            }
+            if (subscribe) {
+                topics.addAll(requested);
+            } else {
+                topics.removeAll(requested);
+            }
+
+            // A subscription's filter is fixed, so a new one replaces it
+            if (newFilter != null || subscription == null) {
+                if (newFilter != null) {
+                    filter = newFilter;
+                }
+                if (subscription != null) {
+                    eventBus.unsubscribe(subscription);
+                }
+                subscription = eventBus.subscribe(topics, filter, this::deliver);
+            } else {
+                subscription.setTopics(topics);
+            }
+
+            topics.forEach(topic -> current.add(topic.id()));
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("op", "subscriptions");
+        response.add("id", id == null ? JsonNull.INSTANCE : id);
+        response.add("topics", current);
+        sendJson(binary, response);
+    }
+
+    private void handleCall(boolean binary, JsonElement id, JsonObject request) {
+        try {
+            call(binary, id, request);
+        } catch (IllegalStateException | UnsupportedOperationException e) {
+            sendError(binary, id, "Malformed message");
+        }
+    }
+
+    private void call(boolean binary, JsonElement id, JsonObject request) {
+        if (!request.has("path")) {
+            sendError(binary, id, "call requires a path");
+            return;
+        }
+
+        String method = request.has("method")
+            ? request.get("method").getAsString().toUpperCase()
+            : "GET";
+        String body = request.has("body")
+            ? request.get("body").getAsString()
+            : "";
+
+        Headers headers = new Headers();
+        if (request.has("headers") && request.get("headers").isJsonObject()) {
+            request
+                .getAsJsonObject("headers")
+                .entrySet()
+                .forEach(header ->
+                    headers.add(header.getKey(), header.getValue().getAsString())
+                );
+        }
+
+        URI uri;
+        try {
+            uri = new URI(request.get("path").getAsString());
+        } catch (URISyntaxException e) {
+            sendError(binary, id, "Invalid path");
+            return;
+        }
+
+        LocalExchange exchange = new LocalExchange(
+            method,
+            uri,
+            headers,
+            body.getBytes(StandardCharsets.UTF_8),
+            (InetSocketAddress) socket.getRemoteSocketAddress(),
+            (InetSocketAddress) socket.getLocalSocketAddress()
+        );
+
+        JsonObject response = new JsonObject();
+        response.addProperty("op", "response");
+        response.add("id", id == null ? JsonNull.INSTANCE : id);
+
+        try {
+            server
+                .getApi()
+                .dispatch(exchange)
+                .get(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            response.addProperty("status", exchange.getResponseCode());
+            String contentType = exchange
+                .getResponseHeaders()
+                .getFirst("Content-Type");
+            if (contentType != null) {
+                response.addProperty("contentType", contentType);
+            }
+            if (isTextual(contentType)) {
+                response.addProperty(
+                    "body",
+                    new String(
+                        exchange.getResponseBytes(),
+                        StandardCharsets.UTF_8
+                    )
+                );
+            } else {
+                // e.g. a call made with Accept: application/cbor
+                response.addProperty("bodyEncoding", "base64");
+                response.addProperty(
+                    "body",
+                    Base64.getEncoder().encodeToString(
+                        exchange.getResponseBytes()
+                    )
+                );
+            }
+        } catch (TimeoutException e) {
+            // Fails any further writes, e.g. from a long-poll, instead of
+            // buffering them for nobody
+            exchange.abort();
+            response.addProperty("status", 504);
+            response.addProperty("body", "Call timed out");
+        } catch (Exception e) {
+            response.addProperty("status", 500);
+            response.addProperty("body", "Internal Server Error");
+        }
+
+        sendJson(binary, response);
+    }
+
+    private static boolean isTextual(String contentType) {
+        return (
+            contentType == null ||
+            contentType.startsWith("text/") ||
+            contentType.startsWith("application/json")
+        );
+    }
+
+    private void sendError(boolean binary, JsonElement id, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("op", "error");
+        error.add("id", id == null ? JsonNull.INSTANCE : id);
+        error.addProperty("message", message);
+        sendJson(binary, error);
+    }
+
+    private void sendJson(boolean binary, JsonObject json) {
+        sendReply(
+            WebSocketFrames.encode(
+                binary
+                    ? WebSocketFrames.OPCODE_BINARY
+                    : WebSocketFrames.OPCODE_TEXT,
+                json.toString().getBytes(StandardCharsets.UTF_8)
+            )
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package luisafk.mclocalapi.ws;
+
+/** Encoding of server-to-client WebSocket frames (RFC 6455 section 5.2). */
+public final class WebSocketFrames {
+
+    static final int OPCODE_CONTINUATION = 0x0;
+    public static final int OPCODE_TEXT = 0x1;
+    public static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xa;
+
+    private WebSocketFrames() {}
+
+    /** A complete, unmasked, final frame. */
+    public static byte[] encode(int opcode, byte[] payload) {
+        int length = payload.length;
+        int headerLength = length < 126 ? 2 : length < 65536 ? 4 : 10;
+        byte[] frame = new byte[headerLength + length];
+
+        frame[0] = (byte) (0x80 | opcode);
+        if (length < 126) {
+            frame[1] = (byte) length;
+        } else if (length < 65536) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >>> (56 - 8 * i));
+            }
+        }
+
+        System.arraycopy(payload, 0, frame, headerLength, length);
+        return frame;
+    }
+
+    static byte[] close(int statusCode) {
+        return encode(
+            OPCODE_CLOSE,
+            new byte[] { (byte) (statusCode >>> 8), (byte) statusCode }
+        );
+    }
+}
@@ -0,0 +1,283 @@
+package luisafk.mclocalapi.ws;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+import static luisafk.mclocalapi.MCLocalAPIClient.logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import luisafk.mclocalapi.rest.RestApiProvider;
+
+/**
+ * Serves {@code /ws}: one WebSocket per client, multiplexing event bus
+ * subscriptions and request/response calls into the REST routes.
+ *
+ * <p>{@code com.sun.net.httpserver} can't hand a connection over after a
+ * {@code 101 Switching Protocols}, so the upgrade is done here by hand on a
+ * listener of its own ({@code webSocketPort}). Every connection gets a
+ * virtual thread for reading and one for writing.
+ */
+public class WebSocketServer {
+
+    private static final String ACCEPT_GUID =
+        "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_HEADER_BYTES = 8192;
+
+    private final Set<WebSocketConnection> connections =
+        ConcurrentHashMap.newKeySet();
+
+    private RestApiProvider api;
+    private ServerSocket serverSocket;
+
+    public synchronized void start(RestApiProvider api, int port)
+        throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("WebSocket server already running");
+        }
+
+        this.api = api;
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress(port));
+        serverSocket = socket;
+
+        Thread.ofPlatform()
+            .daemon()
+            .name("mc-local-api-ws-accept")
+            .start(() -> acceptLoop(socket));
+    }
+
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        serverSocket = null;
+
+        connections.forEach(WebSocketConnection::close);
+        connections.clear();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /** Frames waiting to be written, across connections. */
+    public int getQueuedFrames() {
+        int queued = 0;
+        for (WebSocketConnection connection : connections) {
+            queued += connection.getQueuedFrames();
+        }
+        return queued;
+    }
+
+    RestApiProvider getApi() {
+        return api;
+    }
+
+    private void acceptLoop(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                Socket client = socket.accept();
+                Thread.ofVirtual()
+                    .name("mc-local-api-ws-" + client.getPort())
+                    .start(() -> handle(client));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    logger.error("Error accepting WebSocket connection", e);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(
+                socket.getOutputStream()
+            );
+
+            if (!handshake(in, out)) {
+                return;
+            }
+
+            WebSocketConnection connection = new WebSocketConnection(
+                this,
+                socket,
+                in,
+                out
+            );
+            connections.add(connection);
+            try {
+                connection.run();
+            } finally {
+                connections.remove(connection);
+                connection.close();
+            }
+        } catch (IOException e) {
+            logger.debug("WebSocket connection closed with error", e);
+        }
+    }
+
+    /**
+     * Reads the HTTP upgrade request and answers it. Returns whether the
+     * connection was upgraded; otherwise an error response has been sent.
+     */
+    private boolean handshake(InputStream in, OutputStream out)
+        throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null) {
+            return false;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        int headerBytes = 0;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) {
+                return reject(out, 431, "Request Header Fields Too Large");
+            }
+
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(
+                    line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                    line.substring(colon + 1).trim()
+                );
+            }
+        }
+
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3 || !parts[0].equals("GET")) {
+            return reject(out, 405, "Method Not Allowed");
+        }
+
+        String path = parts[1];
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        if (!path.equals("/ws")) {
+            return reject(out, 404, "Not Found");
+        }
+
+        if (!config.enableEndpointWebSocket) {
+            return reject(
+                out,
+                403,
+                "This endpoint is disabled in the user's configuration"
+            );
+        }
+
+        if (!config.enableCors && headers.containsKey("origin")) {
+            return reject(out, 403, "Cross-origin requests are disabled");
+        }
+
+        String key = headers.get("sec-websocket-key");
+        if (
+            key == null ||
+            !"13".equals(headers.get("sec-websocket-version")) ||
+            !headerContains(headers.get("upgrade"), "websocket") ||
+            !headerContains(headers.get("connection"), "upgrade")
+        ) {
+            return reject(out, 400, "Expected a WebSocket upgrade request");
+        }
+
+        String response =
+            "HTTP/1.1 101 Switching Protocols\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Sec-WebSocket-Accept: " +
+            acceptKey(key) +
+            "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        return true;
+    }
+
+    private static boolean reject(OutputStream out, int status, String message)
+        throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        String head =
+            "HTTP/1.1 " +
+            status +
+            " " +
+            message +
+            "\r\n" +
+            "Content-Type: text/plain; charset=UTF-8\r\n" +
+            "Content-Length: " +
+            body.length +
+            "\r\n" +
+            "Connection: close\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+        out.flush();
+        return false;
+    }
+
+    private static boolean headerContains(String value, String token) {
+        if (value == null) {
+            return false;
+        }
+        for (String part : value.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+                (key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1)
+            );
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Reads a CRLF-terminated line, or {@code null} at end of stream. */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > MAX_HEADER_BYTES) {
+                throw new IOException("Header line too long");
+            }
+        }
+
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+}
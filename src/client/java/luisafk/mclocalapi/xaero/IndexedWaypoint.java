@@ -0,0 +1,55 @@
+package luisafk.mclocalapi.xaero;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import luisafk.mclocalapi.game.WaypointStore;
+
+/** An immutable copy of a waypoint, safe to read from any thread. */
+public record IndexedWaypoint(
+    String set,
+    String name,
+    String symbol,
+    int x,
+    int y,
+    int z,
+    int color,
+    boolean disabled
+) {
+    static IndexedWaypoint of(
+        WaypointStore.Set set,
+        WaypointStore.Waypoint waypoint
+    ) {
+        return new IndexedWaypoint(
+            set.name(),
+            waypoint.name(),
+            waypoint.symbol(),
+            waypoint.x(),
+            waypoint.y(),
+            waypoint.z(),
+            waypoint.color(),
+            waypoint.disabled()
+        );
+    }
+
+    public double distanceSquared(double px, double py, double pz) {
+        double dx = x - px;
+        double dy = y - py;
+        double dz = z - pz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /** Same fields as {@code /xaero/waypoints}, plus the distance. */
+    public void write(JsonWriter json, double distance) throws IOException {
+        json.beginObject();
+        json.name("set").value(set);
+        json.name("name").value(name);
+        json.name("symbol").value(symbol);
+        json.name("x").value(x);
+        json.name("y").value(y);
+        json.name("z").value(z);
+        json.name("color").value(color);
+        json.name("disabled").value(disabled);
+        json.name("distance").value(distance);
+        json.endObject();
+    }
+}
@@ -0,0 +1,230 @@
+package luisafk.mclocalapi.xaero;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Uniform grid over the X/Z plane, for radius and k-nearest queries in
+ * three dimensions. Immutable once built.
+ */
+public final class WaypointGrid {
+
+    /** Blocks per cell side. */
+    static final int CELL_SIZE = 64;
+
+    private final Map<Long, List<IndexedWaypoint>> cells = new HashMap<>();
+    private final int size;
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellZ = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellZ = Integer.MIN_VALUE;
+
+    public record Match(IndexedWaypoint waypoint, double distance) {}
+
+    WaypointGrid(List<IndexedWaypoint> waypoints) {
+        for (IndexedWaypoint waypoint : waypoints) {
+            int cx = Math.floorDiv(waypoint.x(), CELL_SIZE);
+            int cz = Math.floorDiv(waypoint.z(), CELL_SIZE);
+            cells.computeIfAbsent(key(cx, cz), k -> new ArrayList<>()).add(
+                waypoint
+            );
+            minCellX = Math.min(minCellX, cx);
+            minCellZ = Math.min(minCellZ, cz);
+            maxCellX = Math.max(maxCellX, cx);
+            maxCellZ = Math.max(maxCellZ, cz);
+        }
+        this.size = waypoints.size();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Everything within {@code radius}, nearest first, at most {@code limit}. */
+    public List<Match> within(
+        double x,
+        double y,
+        double z,
+        double radius,
+        int limit
+    ) {
+        List<Match> matches = new ArrayList<>();
+        if (size == 0) {
+            return matches;
+        }
+
+        double radiusSquared = radius * radius;
+        int fromX = Math.max(minCellX, cell(x - radius));
+        int toX = Math.min(maxCellX, cell(x + radius));
+        int fromZ = Math.max(minCellZ, cell(z - radius));
+        int toZ = Math.min(maxCellZ, cell(z + radius));
+
+        for (int cx = fromX; cx <= toX; cx++) {
+            for (int cz = fromZ; cz <= toZ; cz++) {
+                List<IndexedWaypoint> cell = cells.get(key(cx, cz));
+                if (cell == null) {
+                    continue;
+                }
+                for (IndexedWaypoint waypoint : cell) {
+                    double d = waypoint.distanceSquared(x, y, z);
+                    if (d <= radiusSquared) {
+                        matches.add(new Match(waypoint, Math.sqrt(d)));
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::distance));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * The {@code k} nearest, nearest first. Searches rings of cells outwards
+     * from the query point, starting at the first to reach an occupied cell,
+     * and stops once no unvisited cell can hold anything closer than the
+     * current k-th match. Only the part of each ring inside the occupied
+     * area is visited, and if that adds up to more cells than a scan of
+     * every waypoint would cost (a query far from sparse waypoints), it
+     * scans them all instead.
+     */
+    public List<Match> nearest(double x, double y, double z, int k) {
+        if (size == 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+
+        Search search = new Search(x, y, z, k);
+        if (k >= size) {
+            return search.scanAll();
+        }
+
+        long centerX = cell(x);
+        long centerZ = cell(z);
+        long firstRing = Math.max(
+            Math.max(minCellX - centerX, centerX - maxCellX),
+            Math.max(minCellZ - centerZ, centerZ - maxCellZ)
+        );
+        long maxRing = Math.max(
+            Math.max(centerX - minCellX, maxCellX - centerX),
+            Math.max(centerZ - minCellZ, maxCellZ - centerZ)
+        );
+        long budget = (long) size + cells.size();
+        long visited = 0;
+
+        for (long ring = Math.max(0, firstRing); ring <= maxRing; ring++) {
+            if (search.best.size() == k) {
+                // Closest any cell in this ring can be, horizontally
+                double reach = Math.min(
+                    Math.min(
+                        x - (double) (centerX - ring + 1) * CELL_SIZE,
+                        (double) (centerX + ring) * CELL_SIZE - x
+                    ),
+                    Math.min(
+                        z - (double) (centerZ - ring + 1) * CELL_SIZE,
+                        (double) (centerZ + ring) * CELL_SIZE - z
+                    )
+                );
+                if (reach > search.best.peek().distance()) {
+                    break;
+                }
+            }
+
+            // The rows at either end, then the columns between them
+            long fromX = Math.max(centerX - ring, minCellX);
+            long toX = Math.min(centerX + ring, maxCellX);
+            long fromZ = Math.max(centerZ - ring + 1, minCellZ);
+            long toZ = Math.min(centerZ + ring - 1, maxCellZ);
+            visited += search.row(centerZ - ring, fromX, toX);
+            visited += search.column(centerX - ring, fromZ, toZ);
+            if (ring > 0) {
+                visited += search.row(centerZ + ring, fromX, toX);
+                visited += search.column(centerX + ring, fromZ, toZ);
+            }
+
+            if (visited > budget) {
+                return new Search(x, y, z, k).scanAll();
+            }
+        }
+
+        return search.result();
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xffffffffL);
+    }
+
+    /** A nearest query's point, and the best {@code k} matches so far. */
+    private final class Search {
+
+        final double x;
+        final double y;
+        final double z;
+        final int k;
+        /** Farthest first, so the worst of the best k is on top. */
+        final PriorityQueue<Match> best = new PriorityQueue<>(
+            Comparator.comparingDouble(Match::distance).reversed()
+        );
+
+        Search(double x, double y, double z, int k) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.k = k;
+        }
+
+        /** Visits cells {@code fromX..toX} of row {@code cz}, if occupied. */
+        long row(long cz, long fromX, long toX) {
+            if (cz < minCellZ || cz > maxCellZ || fromX > toX) {
+                return 0;
+            }
+            for (long cx = fromX; cx <= toX; cx++) {
+                visit(cells.get(key((int) cx, (int) cz)));
+            }
+            return toX - fromX + 1;
+        }
+
+        /** Visits cells {@code fromZ..toZ} of column {@code cx}. */
+        long column(long cx, long fromZ, long toZ) {
+            if (cx < minCellX || cx > maxCellX || fromZ > toZ) {
+                return 0;
+            }
+            for (long cz = fromZ; cz <= toZ; cz++) {
+                visit(cells.get(key((int) cx, (int) cz)));
+            }
+            return toZ - fromZ + 1;
+        }
+
+        List<Match> scanAll() {
+            cells.values().forEach(this::visit);
+            return result();
+        }
+
+        void visit(List<IndexedWaypoint> cell) {
+            if (cell == null) {
+                return;
+            }
+            for (IndexedWaypoint waypoint : cell) {
+                double d = Math.sqrt(waypoint.distanceSquared(x, y, z));
+                if (best.size() < k) {
+                    best.add(new Match(waypoint, d));
+                } else if (d < best.peek().distance()) {
+                    best.poll();
+                    best.add(new Match(waypoint, d));
+                }
+            }
+        }
+
+        List<Match> result() {
+            List<Match> result = new ArrayList<>(best);
+            result.sort(Comparator.comparingDouble(Match::distance));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package luisafk.mclocalapi.xaero;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import luisafk.mclocalapi.game.WaypointStore;
+
+/**
+ * {@link WaypointGrid}s per dimension, rebuilt lazily when the waypoints
+ * change. Each lookup compares the store's
+ * {@linkplain WaypointStore#fingerprint() fingerprint} with the one the grid
+ * was built from. That catches waypoints being added to or removed from any
+ * set; edits that keep the counts the same are picked up once the grid is
+ * {@link #MAX_AGE_MILLIS} old. Changes made
+ * through this API call {@link #invalidate()}.
+ */
+public class WaypointIndex {
+
+    static final long MAX_AGE_MILLIS = 10_000;
+
+    private final Map<String, Built> byDimension = new ConcurrentHashMap<>();
+
+    private record Built(
+        WaypointGrid grid,
+        Object fingerprint,
+        long builtAt
+    ) {}
+
+    /**
+     * What {@link #get} needs from the store: the current grid if it's still
+     * fresh, otherwise a copy of every waypoint to build a new one from.
+     */
+    public record Contents(
+        String dimension,
+        Object fingerprint,
+        WaypointGrid grid,
+        List<IndexedWaypoint> waypoints
+    ) {}
+
+    /**
+     * Reads {@code store}, which is {@code dimension}'s waypoints. Client
+     * thread, since the store may be a live view of Xaero's lists; the
+     * waypoints are only copied if the grid is stale.
+     */
+    public Contents read(String dimension, WaypointStore store) {
+        Object fingerprint = store.fingerprint();
+
+        Built built = byDimension.get(dimension);
+        if (
+            built != null &&
+            built.fingerprint.equals(fingerprint) &&
+            System.currentTimeMillis() - built.builtAt < MAX_AGE_MILLIS
+        ) {
+            return new Contents(dimension, fingerprint, built.grid, null);
+        }
+
+        List<IndexedWaypoint> waypoints = new ArrayList<>();
+        for (WaypointStore.Set set : store.sets()) {
+            for (WaypointStore.Waypoint waypoint : set.waypoints()) {
+                waypoints.add(IndexedWaypoint.of(set, waypoint));
+            }
+        }
+        return new Contents(dimension, fingerprint, null, waypoints);
+    }
+
+    /** The grid for {@code contents}, building it if it was stale. */
+    public WaypointGrid get(Contents contents) {
+        if (contents.grid() != null) {
+            return contents.grid();
+        }
+
+        // Concurrent rebuilds are harmless; the last one wins
+        WaypointGrid grid = new WaypointGrid(contents.waypoints());
+        byDimension.put(
+            contents.dimension(),
+            new Built(grid, contents.fingerprint(), System.currentTimeMillis())
+        );
+        return grid;
+    }
+
+    public void invalidate() {
+        byDimension.clear();
+    }
+}
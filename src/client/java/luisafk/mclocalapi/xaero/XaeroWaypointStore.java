@@ -0,0 +1,119 @@
+package luisafk.mclocalapi.xaero;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import luisafk.mclocalapi.game.WaypointStore;
+import xaero.hud.minimap.BuiltInHudModules;
+import xaero.hud.minimap.module.MinimapSession;
+import xaero.hud.minimap.waypoint.set.WaypointSet;
+import xaero.hud.minimap.world.MinimapWorld;
+
+/** A live view of a Xaero's Minimap world's waypoints. */
+public final class XaeroWaypointStore implements WaypointStore {
+
+    private final MinimapWorld world;
+
+    private XaeroWaypointStore(MinimapWorld world) {
+        this.world = world;
+    }
+
+    /** The current world's, or {@code null} without a minimap session. */
+    public static XaeroWaypointStore current() {
+        MinimapSession session = BuiltInHudModules.MINIMAP.getCurrentSession();
+        if (session == null) {
+            return null;
+        }
+        return new XaeroWaypointStore(
+            session.getWorldManager().getCurrentWorld()
+        );
+    }
+
+    @Override
+    public Iterable<XaeroSet> sets() {
+        return map(world.getIterableWaypointSets(), XaeroSet::new);
+    }
+
+    @Override
+    public Object addSet(String name) {
+        world.addWaypointSet(name);
+        return world.getWaypointSet(name);
+    }
+
+    /** Xaero's own objects, so the output is whatever their fields are. */
+    @Override
+    public Object describeSets() {
+        List<WaypointSet> sets = new ArrayList<>();
+        for (WaypointSet set : world.getIterableWaypointSets()) {
+            sets.add(set);
+        }
+        return sets;
+    }
+
+    /**
+     * Xaero has no change notifications, so this is the identity of the
+     * world and of every set, and each set's size.
+     */
+    @Override
+    public Object fingerprint() {
+        List<Object> fingerprint = new ArrayList<>();
+        fingerprint.add(System.identityHashCode(world));
+        for (WaypointSet set : world.getIterableWaypointSets()) {
+            fingerprint.add(System.identityHashCode(set));
+            fingerprint.add(set.size());
+        }
+        return fingerprint;
+    }
+
+    record XaeroSet(WaypointSet set) implements WaypointStore.Set {
+        @Override
+        public String name() {
+            return set.getName();
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public Iterable<WaypointStore.Waypoint> waypoints() {
+            return map(set.getWaypoints(), XaeroWaypointStore::copy);
+        }
+    }
+
+    private static WaypointStore.Waypoint copy(
+        xaero.common.minimap.waypoints.Waypoint waypoint
+    ) {
+        return new WaypointStore.Waypoint(
+            waypoint.getName(),
+            waypoint.getSymbol(),
+            waypoint.getX(),
+            waypoint.getY(),
+            waypoint.getZ(),
+            waypoint.getWaypointColor(),
+            waypoint.isDisabled()
+        );
+    }
+
+    private static <A, B> Iterable<B> map(
+        Iterable<A> source,
+        Function<A, B> mapper
+    ) {
+        return () -> {
+            Iterator<A> iterator = source.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public B next() {
+                    return mapper.apply(iterator.next());
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package luisafk.mclocalapi.benchmark;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.encoding.CborWriter;
+import luisafk.mclocalapi.encoding.GameStateCodec;
+import luisafk.mclocalapi.encoding.JsonWriter;
+import luisafk.mclocalapi.encoding.MsgPackWriter;
+import luisafk.mclocalapi.rest.PlayerPositionEvents;
+import luisafk.mclocalapi.rest.SseFrame;
+import luisafk.mclocalapi.rest.SseFrameEncoder;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What {@code sendJson} does (Gson reflection into a String, then UTF-8)
+ * against the hand-written encoders, for a full state and a position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private record Position(double x, double y, double z) {}
+
+    private final Gson gson = new Gson();
+    private final GameStateSnapshot state = Snapshots.moving(1234);
+    private final Position position = new Position(
+        state.x(),
+        state.y(),
+        state.z()
+    );
+
+    private final JsonWriter json = new JsonWriter();
+    private final CborWriter cbor = new CborWriter();
+    private final MsgPackWriter msgPack = new MsgPackWriter();
+    private final SseFrameEncoder sse = new SseFrameEncoder();
+
+    @Benchmark
+    public byte[] stateGson() {
+        return gson.toJson(state).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] stateJson() {
+        return GameStateCodec.writeState(json.reset(), state).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] stateCbor() {
+        return GameStateCodec.writeState(cbor.reset(), state).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] stateMsgPack() {
+        return GameStateCodec.writeState(msgPack.reset(), state).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] stateBinary() {
+        return GameStateCodec.binaryState(state);
+    }
+
+    @Benchmark
+    public byte[] positionGson() {
+        return gson.toJson(position).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] positionJson() {
+        return GameStateCodec.writePosition(
+            json.reset(),
+            state.x(),
+            state.y(),
+            state.z()
+        ).toByteArray();
+    }
+
+    @Benchmark
+    public SseFrame positionSseFrame() {
+        return PlayerPositionEvents.position(
+            sse,
+            state.x(),
+            state.y(),
+            state.z()
+        );
+    }
+}
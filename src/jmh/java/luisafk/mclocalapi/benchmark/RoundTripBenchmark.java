@@ -0,0 +1,106 @@
+package luisafk.mclocalapi.benchmark;
+
+import static luisafk.mclocalapi.MCLocalAPIClient.config;
+import static luisafk.mclocalapi.MCLocalAPIClient.enableTcpNoDelay;
+import static luisafk.mclocalapi.MCLocalAPIClient.gameState;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.rest.RestApiProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full requests through {@link RestApiProvider}'s routes on a loopback
+ * {@link HttpServer}, the same way the mod starts it, with a JDK HTTP client
+ * on keep-alive connections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    @Param({ "/", "/player/position", "/player/state" })
+    public String path;
+
+    /** Sent as {@code Accept}; {@code *}{@code /*} gets each route's default. */
+    @Param({ "*/*", "application/cbor" })
+    public String accept;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        config.enableEndpointPlayerPosition = true;
+        config.enableEndpointPlayerState = true;
+        gameState.publish(Snapshots.moving(1));
+
+        enableTcpNoDelay();
+        server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            0
+        );
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        new RestApiProvider(server).defineRoutes();
+        server.start();
+
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+        request = HttpRequest.newBuilder(
+            URI.create(
+                "http://127.0.0.1:" + server.getAddress().getPort() + path
+            )
+        )
+            .header("Accept", accept)
+            .GET()
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+        client.close();
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(
+            request,
+            HttpResponse.BodyHandlers.ofByteArray()
+        );
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(
+                path + " returned " + response.statusCode()
+            );
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,79 @@
+package luisafk.mclocalapi.benchmark;
+
+import com.sun.net.httpserver.Headers;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import luisafk.mclocalapi.rest.LocalExchange;
+import luisafk.mclocalapi.rest.SseConnection;
+
+/** Where benchmarked streams write to. */
+final class Sinks {
+
+    private Sinks() {}
+
+    /** An SSE connection whose response body is {@code out}. */
+    static SseConnection sseConnection(OutputStream out) throws IOException {
+        LocalExchange exchange = new LocalExchange(
+            "GET",
+            URI.create("/player/position/stream"),
+            new Headers(),
+            new byte[0],
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+        );
+        exchange.setStreams(null, out);
+        return new SseConnection(exchange);
+    }
+
+    /**
+     * A TCP connection to a local reader that discards everything, so writes
+     * pay for the socket but not for a real client.
+     */
+    static final class Loopback implements Closeable {
+
+        private final ServerSocket server;
+        private final Socket client;
+
+        Loopback() throws IOException {
+            server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            Thread.ofPlatform()
+                .daemon()
+                .name("benchmark-loopback-reader")
+                .start(this::drain);
+            client = new Socket(
+                InetAddress.getLoopbackAddress(),
+                server.getLocalPort()
+            );
+            client.setTcpNoDelay(true);
+        }
+
+        OutputStream stream() throws IOException {
+            return client.getOutputStream();
+        }
+
+        private void drain() {
+            byte[] buffer = new byte[64 * 1024];
+            try (Socket socket = server.accept()) {
+                InputStream in = socket.getInputStream();
+                while (in.read(buffer) != -1) {
+                    // discard
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            client.close();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package luisafk.mclocalapi.benchmark;
+
+import luisafk.mclocalapi.state.GameStateSnapshot;
+
+/** Synthetic game state for the benchmarks. */
+final class Snapshots {
+
+    private Snapshots() {}
+
+    /** A player walking in a circle, one step per tick. */
+    static GameStateSnapshot moving(long tick) {
+        double angle = tick * 0.05;
+        return new GameStateSnapshot(
+            tick,
+            System.currentTimeMillis(),
+            true,
+            100 + Math.cos(angle) * 50,
+            64,
+            -200 + Math.sin(angle) * 50,
+            (float) Math.toDegrees(angle),
+            0,
+            -Math.sin(angle) * 2.5,
+            0,
+            Math.cos(angle) * 2.5,
+            true,
+            "minecraft:overworld",
+            null,
+            20,
+            20,
+            20,
+            30
+        );
+    }
+}
@@ -0,0 +1,85 @@
+package luisafk.mclocalapi.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.rest.PlayerPositionEvents;
+import luisafk.mclocalapi.rest.SseConnection;
+import luisafk.mclocalapi.rest.SseFrame;
+import luisafk.mclocalapi.rest.SseFrameEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of writing one position event to an SSE connection: the legacy
+ * string {@code sendEvent}, a pre-encoded frame, and encoding a frame then
+ * writing it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseConnectionBenchmark {
+
+    /** {@code null} discards in memory; {@code loopback} goes through TCP. */
+    @Param({ "null", "loopback" })
+    public String sink;
+
+    private Sinks.Loopback loopback;
+    private SseConnection connection;
+    private final SseFrameEncoder encoder = new SseFrameEncoder();
+    private SseFrame frame;
+    private String data;
+    private double x;
+
+    @Setup
+    public void setUp() throws IOException {
+        OutputStream out;
+        if (sink.equals("loopback")) {
+            loopback = new Sinks.Loopback();
+            out = loopback.stream();
+        } else {
+            out = OutputStream.nullOutputStream();
+        }
+
+        connection = Sinks.sseConnection(out);
+        frame = PlayerPositionEvents.position(encoder, 100.5, 64, -200.25);
+        data = "{\"x\":100.5,\"y\":64.0,\"z\":-200.25}";
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        connection.close();
+        if (loopback != null) {
+            loopback.close();
+        }
+    }
+
+    @Benchmark
+    public void sendEventString() {
+        connection.sendEvent(data);
+    }
+
+    @Benchmark
+    public void writePreEncodedFrame() {
+        connection.write(frame);
+    }
+
+    @Benchmark
+    public void encodeAndWriteFrame() {
+        x += 0.1;
+        connection.write(PlayerPositionEvents.position(encoder, x, 64, -200.25));
+    }
+}
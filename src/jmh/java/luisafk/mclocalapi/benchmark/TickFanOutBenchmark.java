@@ -0,0 +1,99 @@
+package luisafk.mclocalapi.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import luisafk.mclocalapi.MCLocalAPIConfig.StreamOverflowPolicy;
+import luisafk.mclocalapi.events.EventBus;
+import luisafk.mclocalapi.events.EventFilter;
+import luisafk.mclocalapi.events.EventTopic;
+import luisafk.mclocalapi.events.PositionEventProducer;
+import luisafk.mclocalapi.rest.PlayerPositionStreams;
+import luisafk.mclocalapi.rest.SseConnection;
+import luisafk.mclocalapi.rest.SseHub;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What a tick with a moving player costs the client thread with
+ * {@code subscribers} position streams or event bus subscriptions. Only the
+ * tick's own work is measured: delivery happens on the hubs' and bus's
+ * threads, into sinks that discard.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickFanOutBenchmark {
+
+    @Param({ "1", "10", "100" })
+    public int subscribers;
+
+    private final List<SseConnection> connections = new ArrayList<>();
+    private PlayerPositionStreams positionStreams;
+    private EventBus eventBus;
+    private final LongAdder delivered = new LongAdder();
+    private long tick;
+
+    @Setup
+    public void setUp() throws IOException {
+        GameStateSnapshot initial = Snapshots.moving(0);
+
+        positionStreams = new PlayerPositionStreams(new SseHub("benchmark"));
+        for (int i = 0; i < subscribers; i++) {
+            SseConnection connection = Sinks.sseConnection(
+                OutputStream.nullOutputStream()
+            );
+            connections.add(connection);
+            positionStreams.subscribe(
+                connection,
+                StreamOverflowPolicy.COALESCE_LATEST,
+                64,
+                PlayerPositionStreams.Params.DEFAULT,
+                initial
+            );
+        }
+
+        eventBus = new EventBus();
+        eventBus.register(new PositionEventProducer());
+        for (int i = 0; i < subscribers; i++) {
+            eventBus.subscribe(
+                EnumSet.of(EventTopic.POSITION),
+                EventFilter.NONE,
+                event -> delivered.increment()
+            );
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connections.forEach(SseConnection::close);
+    }
+
+    @Benchmark
+    public void positionStreams() {
+        positionStreams.tick(Snapshots.moving(++tick));
+    }
+
+    @Benchmark
+    public void eventBus() {
+        eventBus.tick(Snapshots.moving(++tick));
+    }
+}
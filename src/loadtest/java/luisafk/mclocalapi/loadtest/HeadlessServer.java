@@ -0,0 +1,102 @@
+package luisafk.mclocalapi.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.MCLocalAPIClient;
+import luisafk.mclocalapi.MCLocalAPIConfig;
+import luisafk.mclocalapi.rest.RestApiProvider;
+
+/**
+ * Serves the API against {@link luisafk.mclocalapi.game.HeadlessGameProvider}
+ * with every endpoint enabled, ticking at 20 Hz on a thread that stands in
+ * for the client thread. Runs until killed.
+ *
+ * <p>Usage: {@code HeadlessServer [port] [webSocketPort] [unixSocketPath]}
+ */
+public final class HeadlessServer {
+
+    private static final long TICK_MILLIS = 50;
+
+    private HeadlessServer() {}
+
+    public static void main(String[] args) throws Exception {
+        // Must be set before MCLocalAPIClient is initialized
+        System.setProperty("mc-local-api.headless", "true");
+
+        MCLocalAPIConfig config = MCLocalAPIClient.config;
+        if (args.length > 0) {
+            config.port = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            config.webSocketPort = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            config.enableUnixSocket = true;
+            config.unixSocketPath = args[2];
+        }
+        enableAllEndpoints(config);
+
+        start(config);
+
+        ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("mc-local-api-headless-tick").factory()
+            );
+        ticker.scheduleAtFixedRate(
+            HeadlessServer::tick,
+            0,
+            TICK_MILLIS,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    private static void tick() {
+        try {
+            MCLocalAPIClient.tick();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            MCLocalAPIClient.logger.error("Error in headless tick", e);
+        }
+    }
+
+    private static void start(MCLocalAPIConfig config) throws IOException {
+        MCLocalAPIClient.enableTcpNoDelay();
+        HttpServer server = HttpServer.create(
+            new InetSocketAddress(config.port),
+            config.serverBacklog
+        );
+        Executor executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("mc-local-api-request-", 0).factory()
+        );
+        server.setExecutor(executor);
+        RestApiProvider api = new RestApiProvider(server);
+        api.defineRoutes();
+        server.start();
+        MCLocalAPIClient.webSocketServer.start(api, config.webSocketPort);
+        MCLocalAPIClient.startUnixSocketServer(api, executor);
+
+        MCLocalAPIClient.logger.info(
+            "Headless MC Local API server started on port {} (WebSocket {})",
+            config.port,
+            config.webSocketPort
+        );
+    }
+
+    private static void enableAllEndpoints(MCLocalAPIConfig config)
+        throws IllegalAccessException {
+        for (Field field : MCLocalAPIConfig.class.getFields()) {
+            if (
+                field.getName().startsWith("enableEndpoint") &&
+                field.getType() == boolean.class
+            ) {
+                field.setBoolean(config, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package luisafk.mclocalapi.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a running server (e.g. {@link HeadlessServer}) with concurrent REST
+ * clients, each requesting the given paths round-robin as fast as it can,
+ * and SSE clients alternating between the position stream and
+ * {@code /events}. After a warm-up, it reports throughput and latency
+ * percentiles per path, and event rate and inter-event gaps for the streams
+ * (a long gap is a stall somewhere between the tick and the socket).
+ *
+ * <p>Options, all optional: {@code --url}, {@code --rest-clients},
+ * {@code --stream-clients}, {@code --duration} and {@code --warmup} (in
+ * seconds) and {@code --paths} (comma-separated).
+ */
+public final class LoadGenerator {
+
+    private static final String DEFAULT_PATHS = String.join(
+        ",",
+        "/player/position",
+        "/player/state",
+        "/player/world",
+        "/mods",
+        "/xaero/waypoints?limit=100",
+        "/xaero/waypoints/nearest?k=10",
+        "/player/position/history?maxPoints=100"
+    );
+    private static final String[] STREAM_PATHS = {
+        "/player/position/stream",
+        "/events?topics=position,world,health",
+    };
+
+    private final URI base;
+    private final int restClients;
+    private final int streamClients;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final List<String> paths;
+
+    private final HttpClient http;
+    private final Map<String, LongAdder> errors = new HashMap<>();
+    private final LongAdder streamEvents = new LongAdder();
+    private final LongAdder streamBytes = new LongAdder();
+
+    private LoadGenerator(Map<String, String> options) {
+        base = URI.create(
+            options.getOrDefault("url", "http://localhost:25566")
+        );
+        restClients = Integer.parseInt(
+            options.getOrDefault("rest-clients", "16")
+        );
+        streamClients = Integer.parseInt(
+            options.getOrDefault("stream-clients", "16")
+        );
+        warmupNanos = TimeUnit.SECONDS.toNanos(
+            Long.parseLong(options.getOrDefault("warmup", "5"))
+        );
+        durationNanos = TimeUnit.SECONDS.toNanos(
+            Long.parseLong(options.getOrDefault("duration", "30"))
+        );
+        paths = List.of(
+            options.getOrDefault("paths", DEFAULT_PATHS).split(",")
+        );
+        paths.forEach(path -> errors.put(path, new LongAdder()));
+
+        http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        new LoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        List<Map<String, Samples>> restSamples = new ArrayList<>();
+        List<Samples> gapSamples = new ArrayList<>();
+        List<InputStream[]> streams = new ArrayList<>();
+
+        try (
+            ExecutorService tasks = Executors.newVirtualThreadPerTaskExecutor()
+        ) {
+            for (int i = 0; i < restClients; i++) {
+                Map<String, Samples> samples = new LinkedHashMap<>();
+                paths.forEach(path -> samples.put(path, new Samples()));
+                restSamples.add(samples);
+                int offset = i;
+                tasks.execute(() ->
+                    restClient(offset, samples, measureFrom, end)
+                );
+            }
+
+            for (int i = 0; i < streamClients; i++) {
+                Samples gaps = new Samples();
+                gapSamples.add(gaps);
+                InputStream[] body = new InputStream[1];
+                streams.add(body);
+                String path = STREAM_PATHS[i % STREAM_PATHS.length];
+                tasks.execute(() ->
+                    streamClient(path, body, gaps, measureFrom, end)
+                );
+            }
+
+            // Stream reads only return when something arrives
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(end - start));
+            for (InputStream[] body : streams) {
+                closeQuietly(body);
+            }
+        }
+
+        report(restSamples, gapSamples);
+    }
+
+    private void restClient(
+        int offset,
+        Map<String, Samples> samples,
+        long measureFrom,
+        long end
+    ) {
+        for (int i = offset; ; i++) {
+            String path = paths.get(i % paths.size());
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(path))
+                .GET()
+                .build();
+
+            long sent = System.nanoTime();
+            if (sent - end >= 0) {
+                return;
+            }
+
+            boolean ok;
+            try {
+                HttpResponse<Void> response = http.send(
+                    request,
+                    HttpResponse.BodyHandlers.discarding()
+                );
+                ok = response.statusCode() < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long received = System.nanoTime();
+            if (sent - measureFrom < 0) {
+                continue;
+            }
+            if (ok) {
+                samples.get(path).add(received - sent);
+            } else {
+                errors.get(path).increment();
+            }
+        }
+    }
+
+    private void streamClient(
+        String path,
+        InputStream[] body,
+        Samples gaps,
+        long measureFrom,
+        long end
+    ) {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(path))
+            .GET()
+            .build();
+
+        try {
+            HttpResponse<InputStream> response = http.send(
+                request,
+                HttpResponse.BodyHandlers.ofInputStream()
+            );
+            synchronized (body) {
+                body[0] = response.body();
+            }
+            if (response.statusCode() != 200) {
+                System.err.println(path + ": HTTP " + response.statusCode());
+                return;
+            }
+
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8)
+            );
+            long lastEvent = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long now = System.nanoTime();
+                if (now - end >= 0) {
+                    return;
+                }
+                if (now - measureFrom < 0) {
+                    continue;
+                }
+
+                streamBytes.add(line.length() + 1);
+                if (line.startsWith("data:")) {
+                    streamEvents.increment();
+                    if (lastEvent != 0) {
+                        gaps.add(now - lastEvent);
+                    }
+                    lastEvent = now;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Closed at the end of the run, or the server went away
+        }
+    }
+
+    private void report(
+        List<Map<String, Samples>> restSamples,
+        List<Samples> gapSamples
+    ) {
+        double seconds = durationNanos / 1e9;
+
+        System.out.printf(
+            Locale.ROOT,
+            "%nREST: %d clients, %.0f s%n",
+            restClients,
+            seconds
+        );
+        System.out.printf(
+            Locale.ROOT,
+            "%-40s %9s %7s %9s %8s %8s %8s %8s %8s%n",
+            "path",
+            "requests",
+            "errors",
+            "req/s",
+            "p50 ms",
+            "p90 ms",
+            "p99 ms",
+            "p99.9 ms",
+            "max ms"
+        );
+
+        Samples all = new Samples();
+        long allErrors = 0;
+        for (String path : paths) {
+            Samples merged = new Samples();
+            for (Map<String, Samples> samples : restSamples) {
+                merged.addAll(samples.get(path));
+            }
+            long pathErrors = errors.get(path).sum();
+            printRow(path, merged, pathErrors, seconds);
+            all.addAll(merged);
+            allErrors += pathErrors;
+        }
+        printRow("(all)", all, allErrors, seconds);
+
+        Samples gaps = new Samples();
+        gapSamples.forEach(gaps::addAll);
+        long[] sorted = gaps.sorted();
+        System.out.printf(
+            Locale.ROOT,
+            "%nStreams: %d clients, %d events (%.0f/s), %.1f MB%n",
+            streamClients,
+            streamEvents.sum(),
+            streamEvents.sum() / seconds,
+            streamBytes.sum() / 1e6
+        );
+        System.out.printf(
+            Locale.ROOT,
+            "Gap between events: p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms," +
+                " max %.1f ms%n",
+            millis(percentile(sorted, 0.5)),
+            millis(percentile(sorted, 0.99)),
+            millis(percentile(sorted, 0.999)),
+            millis(percentile(sorted, 1))
+        );
+    }
+
+    private static void printRow(
+        String path,
+        Samples samples,
+        long errors,
+        double seconds
+    ) {
+        long[] sorted = samples.sorted();
+        System.out.printf(
+            Locale.ROOT,
+            "%-40s %9d %7d %9.0f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+            path,
+            sorted.length,
+            errors,
+            sorted.length / seconds,
+            millis(percentile(sorted, 0.5)),
+            millis(percentile(sorted, 0.9)),
+            millis(percentile(sorted, 0.99)),
+            millis(percentile(sorted, 0.999)),
+            millis(percentile(sorted, 1))
+        );
+    }
+
+    /** Nearest-rank percentile; 0 if there are no samples. */
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static void closeQuietly(InputStream[] body) {
+        synchronized (body) {
+            if (body[0] == null) {
+                return;
+            }
+            try {
+                body[0].close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /** A growable array of nanosecond samples, for one thread at a time. */
+    private static final class Samples {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
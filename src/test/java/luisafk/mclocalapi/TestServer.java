@@ -0,0 +1,101 @@
+package luisafk.mclocalapi;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.rest.RestApiProvider;
+
+/**
+ * The API on an ephemeral loopback port, with every endpoint enabled, against
+ * the headless game ticking at 20 Hz. Started once and shared by every test,
+ * since {@link MCLocalAPIClient}'s state is static.
+ *
+ * <p>Requests are handled by a fixed pool of {@link #REQUEST_THREADS}, so
+ * anything that holds a request thread for long shows up as a stall.
+ */
+public final class TestServer {
+
+    public static final int REQUEST_THREADS = 4;
+
+    private static final long TICK_MILLIS = 50;
+
+    private static TestServer instance;
+
+    private final HttpServer server;
+    private final RestApiProvider api;
+
+    private TestServer() throws IOException {
+        enableAllEndpoints(MCLocalAPIClient.config);
+
+        MCLocalAPIClient.enableTcpNoDelay();
+        server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            MCLocalAPIClient.config.serverBacklog
+        );
+        ExecutorService executor = Executors.newFixedThreadPool(
+            REQUEST_THREADS,
+            Thread.ofPlatform().daemon().name("test-request-", 0).factory()
+        );
+        server.setExecutor(executor);
+        api = new RestApiProvider(server);
+        api.defineRoutes();
+        server.start();
+
+        ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("test-tick").factory()
+            );
+        ticker.scheduleAtFixedRate(
+            MCLocalAPIClient::tick,
+            0,
+            TICK_MILLIS,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public static synchronized TestServer get() {
+        if (instance == null) {
+            try {
+                instance = new TestServer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return instance;
+    }
+
+    public RestApiProvider api() {
+        return api;
+    }
+
+    public URI uri(String pathAndQuery) {
+        return URI.create(
+            "http://127.0.0.1:" +
+                server.getAddress().getPort() +
+                pathAndQuery
+        );
+    }
+
+    private static void enableAllEndpoints(MCLocalAPIConfig config) {
+        try {
+            for (Field field : MCLocalAPIConfig.class.getFields()) {
+                if (
+                    field.getName().startsWith("enableEndpoint") &&
+                    field.getType() == boolean.class
+                ) {
+                    field.setBoolean(config, true);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package luisafk.mclocalapi.encoding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import org.junit.jupiter.api.Test;
+
+/** The binary layouts, at the offsets {@link GameStateCodec} documents. */
+class BinaryLayoutTest {
+
+    private static final GameStateSnapshot STATE = new GameStateSnapshot(
+        123_456,
+        1_700_000_000_000L,
+        true,
+        -1234.5678,
+        -59.9,
+        30_000_000.25,
+        -179.5f,
+        45.25f,
+        0.0784,
+        -0.5,
+        1e-9,
+        true,
+        "minecraft:the_nether",
+        "Inventory ☃",
+        19.5f,
+        20f,
+        -3,
+        1_000_000
+    );
+
+    @Test
+    void position() {
+        ByteBuffer buf = le(GameStateCodec.binaryPosition(1.5, -2.25, 3e7));
+
+        assertEquals(GameStateCodec.BINARY_POSITION_BYTES, buf.limit());
+        assertEquals(1.5, buf.getDouble(0));
+        assertEquals(-2.25, buf.getDouble(8));
+        assertEquals(3e7, buf.getDouble(16));
+    }
+
+    @Test
+    void world() {
+        ByteBuffer buf = le(GameStateCodec.binaryWorld("minecraft:the_end"));
+
+        assertEquals(17, buf.getShort(0));
+        assertEquals("minecraft:the_end", string(buf, 2, 17));
+        assertEquals(2 + 17, buf.limit());
+    }
+
+    @Test
+    void state() {
+        ByteBuffer buf = le(GameStateCodec.binaryState(STATE));
+
+        assertEquals(123_456, buf.getLong(0));
+        assertEquals(1_700_000_000_000L, buf.getLong(8));
+        assertEquals(1 | 2 | 4, buf.get(16));
+        assertEquals(-1234.5678, buf.getDouble(17));
+        assertEquals(-59.9, buf.getDouble(25));
+        assertEquals(30_000_000.25, buf.getDouble(33));
+        assertEquals(-179.5f, buf.getFloat(41));
+        assertEquals(45.25f, buf.getFloat(45));
+        assertEquals(0.0784, buf.getDouble(49));
+        assertEquals(-0.5, buf.getDouble(57));
+        assertEquals(1e-9, buf.getDouble(65));
+        assertEquals(19.5f, buf.getFloat(73));
+        assertEquals(20f, buf.getFloat(77));
+        assertEquals(-3, buf.getInt(81));
+        assertEquals(1_000_000, buf.getInt(85));
+
+        int offset = GameStateCodec.BINARY_STATE_FIXED_BYTES;
+        int dimensionLength = buf.getShort(offset);
+        assertEquals(
+            "minecraft:the_nether",
+            string(buf, offset + 2, dimensionLength)
+        );
+        offset += 2 + dimensionLength;
+        int titleLength = buf.getShort(offset);
+        assertEquals("Inventory ☃", string(buf, offset + 2, titleLength));
+        assertEquals(offset + 2 + titleLength, buf.limit());
+    }
+
+    @Test
+    void stateWithoutPlayerOrScreen() {
+        ByteBuffer buf = le(
+            GameStateCodec.binaryState(GameStateSnapshot.noPlayer(1, 2, null))
+        );
+
+        assertEquals(0, buf.get(16));
+        assertEquals(0, buf.getShort(GameStateCodec.BINARY_STATE_FIXED_BYTES));
+        assertEquals(
+            0,
+            buf.getShort(GameStateCodec.BINARY_STATE_FIXED_BYTES + 2)
+        );
+        assertEquals(GameStateCodec.BINARY_STATE_FIXED_BYTES + 4, buf.limit());
+    }
+
+    @Test
+    void fixedPartRoundTrips() {
+        ByteBuffer buf = ByteBuffer.allocate(
+            GameStateCodec.BINARY_STATE_FIXED_BYTES
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        GameStateCodec.putStateFixed(buf, STATE);
+        assertEquals(0, buf.remaining());
+
+        buf.flip();
+        GameStateSnapshot read = GameStateCodec.getStateFixed(
+            buf,
+            STATE.dimension()
+        );
+        // The screen title isn't part of the fixed layout
+        assertEquals(
+            new GameStateSnapshot(
+                STATE.tick(),
+                STATE.capturedAt(),
+                STATE.hasPlayer(),
+                STATE.x(),
+                STATE.y(),
+                STATE.z(),
+                STATE.yaw(),
+                STATE.pitch(),
+                STATE.velocityX(),
+                STATE.velocityY(),
+                STATE.velocityZ(),
+                STATE.onGround(),
+                STATE.dimension(),
+                "",
+                STATE.health(),
+                STATE.maxHealth(),
+                STATE.foodLevel(),
+                STATE.experienceLevel()
+            ),
+            read
+        );
+    }
+
+    private static ByteBuffer le(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String string(ByteBuffer buf, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package luisafk.mclocalapi.encoding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import luisafk.mclocalapi.game.BlockSection;
+import org.junit.jupiter.api.Test;
+
+/** Sections decode back to the blocks they were encoded from. */
+class BlockSectionCodecTest {
+
+    @Test
+    void singleStateHasNoIndices() {
+        byte[] encoded = roundTrip((x, y, z) -> 7, 1);
+        // tag, position, palette length, one name, bits, no words
+        assertEquals(1 + 12 + 2 + 2 + "state-7".length() + 1, encoded.length);
+    }
+
+    @Test
+    void twoStatesPackOneBitEach() {
+        byte[] encoded = roundTrip((x, y, z) -> (x + y + z) % 2, 2);
+        assertEquals(1, bits(encoded));
+    }
+
+    @Test
+    void fullPalettePacksTwelveBits() {
+        // Every block distinct: 4096 states, five 12-bit indices per word
+        byte[] encoded = roundTrip((x, y, z) -> (y * 16 + z) * 16 + x, 4096);
+        assertEquals(12, bits(encoded));
+    }
+
+    @FunctionalInterface
+    private interface Blocks {
+        int get(int x, int y, int z);
+    }
+
+    /** Encodes, decodes and compares every block; returns the encoding. */
+    private static byte[] roundTrip(Blocks blocks, int paletteSize) {
+        BlockSection<Integer> section = new BlockSection<>() {
+            @Override
+            public Integer get(int x, int y, int z) {
+                return blocks.get(x, y, z);
+            }
+
+            @Override
+            public String name(Integer state) {
+                return "state-" + state;
+            }
+        };
+        byte[] encoded = BlockSectionCodec.section(3, -4, 5, section);
+
+        ByteBuffer in = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(1, in.get());
+        assertEquals(3, in.getInt());
+        assertEquals(-4, in.getInt());
+        assertEquals(5, in.getInt());
+
+        String[] palette = new String[Short.toUnsignedInt(in.getShort())];
+        assertEquals(paletteSize, palette.length);
+        for (int i = 0; i < palette.length; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(in.getShort())];
+            in.get(name);
+            palette[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        int bits = in.get();
+        int perWord = bits == 0 ? 0 : 64 / bits;
+        long mask = (1L << bits) - 1;
+        long word = 0;
+        for (int i = 0; i < 4096; i++) {
+            int index = 0;
+            if (bits > 0) {
+                if (i % perWord == 0) {
+                    word = in.getLong();
+                }
+                index = (int) ((word >>> ((i % perWord) * bits)) & mask);
+            }
+            int x = i & 15;
+            int z = (i >> 4) & 15;
+            int y = i >> 8;
+            assertEquals(
+                "state-" + blocks.get(x, y, z),
+                palette[index],
+                "block " + x + "," + y + "," + z
+            );
+        }
+        assertEquals(0, in.remaining());
+        return encoded;
+    }
+
+    private static int bits(byte[] encoded) {
+        ByteBuffer in = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(13);
+        int paletteSize = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < paletteSize; i++) {
+            int length = Short.toUnsignedInt(in.getShort());
+            in.position(in.position() + length);
+        }
+        return in.get();
+    }
+}
@@ -0,0 +1,192 @@
+package luisafk.mclocalapi.encoding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import luisafk.mclocalapi.game.HeadlessGameProvider;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CBOR and MessagePack must carry the same data as the JSON endpoints: the
+ * same keys, and the same values, allowing for JSON's six fraction digits.
+ */
+class EncodingParityTest {
+
+    /** {@link JsonWriter} rounds to six fraction digits. */
+    private static final double JSON_TOLERANCE = 1e-6;
+
+    private static final Gson GSON = new Gson();
+
+    private static final List<GameStateSnapshot> STATES = List.of(
+        new GameStateSnapshot(
+            123_456,
+            1_700_000_000_000L,
+            true,
+            -1234.5678,
+            -59.9,
+            30_000_000.25,
+            -179.5f,
+            90f,
+            0.0784,
+            -0.5,
+            1e-9,
+            true,
+            "minecraft:the_nether",
+            "Inventory ☃ 😀",
+            19.5f,
+            20f,
+            -3,
+            1_000_000
+        ),
+        new GameStateSnapshot(
+            0,
+            0,
+            true,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0,
+            false,
+            "a-mod:a_dimension_with_a_name_longer_than_thirty_one_bytes",
+            null,
+            0,
+            0,
+            0,
+            0
+        ),
+        GameStateSnapshot.noPlayer(7, 1_700_000_000_000L, null),
+        GameStateSnapshot.noPlayer(8, 1_700_000_000_000L, "Title screen"),
+        new HeadlessGameProvider().capture(4321, 1_700_000_000_000L)
+    );
+
+    @Test
+    void positionMatchesJson() {
+        for (GameStateSnapshot state : STATES) {
+            JsonElement expected = GSON.toJsonTree(
+                Map.of("x", state.x(), "y", state.y(), "z", state.z())
+            );
+            assertParity(expected, (Encoding encoding) ->
+                GameStateCodec.writePosition(
+                    encoding.newWriter(),
+                    state.x(),
+                    state.y(),
+                    state.z()
+                ).toByteArray()
+            );
+        }
+    }
+
+    @Test
+    void worldMatchesJson() {
+        for (GameStateSnapshot state : STATES) {
+            JsonObject expected = new JsonObject();
+            expected.addProperty("dimension", state.dimension());
+            assertParity(expected, (Encoding encoding) ->
+                GameStateCodec.writeWorld(
+                    encoding.newWriter(),
+                    state.dimension()
+                ).toByteArray()
+            );
+        }
+    }
+
+    /** Against Gson, which {@code /player/state} uses for JSON. */
+    @Test
+    void stateMatchesJson() {
+        for (GameStateSnapshot state : STATES) {
+            JsonElement expected = GSON.toJsonTree(state);
+            assertParity(expected, (Encoding encoding) ->
+                GameStateCodec.writeState(
+                    encoding.newWriter(),
+                    state
+                ).toByteArray()
+            );
+        }
+    }
+
+    private interface Payload {
+        byte[] encode(Encoding encoding);
+    }
+
+    private static void assertParity(JsonElement expected, Payload payload) {
+        assertSameTree(
+            expected,
+            JsonParser.parseString(
+                new String(
+                    payload.encode(Encoding.JSON),
+                    StandardCharsets.UTF_8
+                )
+            ),
+            "json"
+        );
+        assertSameTree(
+            expected,
+            StructuredDecoder.cbor(payload.encode(Encoding.CBOR)),
+            "cbor"
+        );
+        assertSameTree(
+            expected,
+            StructuredDecoder.msgPack(payload.encode(Encoding.MSGPACK)),
+            "msgpack"
+        );
+    }
+
+    /** Gson leaves out nulls, so a missing key matches a null. */
+    private static void assertSameTree(
+        JsonElement expected,
+        JsonElement actual,
+        String path
+    ) {
+        if (expected.isJsonObject()) {
+            assertTrue(actual.isJsonObject(), path + " is not an object");
+            JsonObject expectedObject = expected.getAsJsonObject();
+            JsonObject actualObject = actual.getAsJsonObject();
+
+            Set<String> keys = new HashSet<>(expectedObject.keySet());
+            keys.addAll(actualObject.keySet());
+            for (String key : keys) {
+                assertSameTree(
+                    orNull(expectedObject.get(key)),
+                    orNull(actualObject.get(key)),
+                    path + "." + key
+                );
+            }
+        } else if (
+            expected.isJsonPrimitive() &&
+            expected.getAsJsonPrimitive().isNumber()
+        ) {
+            assertTrue(
+                actual.isJsonPrimitive() &&
+                    actual.getAsJsonPrimitive().isNumber(),
+                path + " is not a number"
+            );
+            assertEquals(
+                expected.getAsDouble(),
+                actual.getAsDouble(),
+                JSON_TOLERANCE,
+                path
+            );
+        } else {
+            assertEquals(expected, actual, path);
+        }
+    }
+
+    private static JsonElement orNull(JsonElement element) {
+        return element == null ? JsonNull.INSTANCE : element;
+    }
+}
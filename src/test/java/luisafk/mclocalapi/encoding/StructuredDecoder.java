@@ -0,0 +1,150 @@
+package luisafk.mclocalapi.encoding;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads CBOR and MessagePack back into Gson trees, for the subset the
+ * writers produce: maps, arrays, strings, integers, doubles, booleans and
+ * null. Anything else fails the test.
+ */
+final class StructuredDecoder {
+
+    private final ByteBuffer in;
+    private final boolean cbor;
+
+    private StructuredDecoder(byte[] bytes, boolean cbor) {
+        this.in = ByteBuffer.wrap(bytes);
+        this.cbor = cbor;
+    }
+
+    static JsonElement cbor(byte[] bytes) {
+        return new StructuredDecoder(bytes, true).readAll();
+    }
+
+    static JsonElement msgPack(byte[] bytes) {
+        return new StructuredDecoder(bytes, false).readAll();
+    }
+
+    private JsonElement readAll() {
+        JsonElement value = cbor ? readCbor() : readMsgPack();
+        if (in.hasRemaining()) {
+            throw new AssertionError(in.remaining() + " trailing bytes");
+        }
+        return value;
+    }
+
+    private JsonElement readCbor() {
+        int initial = in.get() & 0xff;
+        int major = initial >>> 5;
+        int info = initial & 0x1f;
+
+        if (major == 7) {
+            return switch (info) {
+                case 20 -> new JsonPrimitive(false);
+                case 21 -> new JsonPrimitive(true);
+                case 22 -> JsonNull.INSTANCE;
+                case 27 -> new JsonPrimitive(in.getDouble());
+                default -> throw new AssertionError("simple value " + info);
+            };
+        }
+
+        long argument = switch (info) {
+            case 24 -> in.get() & 0xffL;
+            case 25 -> in.getShort() & 0xffffL;
+            case 26 -> in.getInt() & 0xffffffffL;
+            case 27 -> in.getLong();
+            default -> {
+                if (info >= 24) {
+                    throw new AssertionError("indefinite length");
+                }
+                yield info;
+            }
+        };
+
+        return switch (major) {
+            case 0 -> new JsonPrimitive(argument);
+            case 1 -> new JsonPrimitive(-1 - argument);
+            case 3 -> new JsonPrimitive(string((int) argument));
+            case 4 -> {
+                JsonArray array = new JsonArray();
+                for (long i = 0; i < argument; i++) {
+                    array.add(readCbor());
+                }
+                yield array;
+            }
+            case 5 -> {
+                JsonObject map = new JsonObject();
+                for (long i = 0; i < argument; i++) {
+                    map.add(readCbor().getAsString(), readCbor());
+                }
+                yield map;
+            }
+            default -> throw new AssertionError("major type " + major);
+        };
+    }
+
+    private JsonElement readMsgPack() {
+        int b = in.get() & 0xff;
+
+        if (b <= 0x7f) {
+            return new JsonPrimitive(b);
+        } else if (b >= 0xe0) {
+            return new JsonPrimitive((byte) b);
+        } else if ((b & 0xf0) == 0x80) {
+            return msgPackMap(b & 0x0f);
+        } else if ((b & 0xf0) == 0x90) {
+            return msgPackArray(b & 0x0f);
+        } else if ((b & 0xe0) == 0xa0) {
+            return new JsonPrimitive(string(b & 0x1f));
+        }
+
+        return switch (b) {
+            case 0xc0 -> JsonNull.INSTANCE;
+            case 0xc2 -> new JsonPrimitive(false);
+            case 0xc3 -> new JsonPrimitive(true);
+            case 0xcb -> new JsonPrimitive(in.getDouble());
+            case 0xd0 -> new JsonPrimitive(in.get());
+            case 0xd1 -> new JsonPrimitive(in.getShort());
+            case 0xd2 -> new JsonPrimitive(in.getInt());
+            case 0xd3 -> new JsonPrimitive(in.getLong());
+            case 0xd9 -> new JsonPrimitive(string(in.get() & 0xff));
+            case 0xda -> new JsonPrimitive(string(in.getShort() & 0xffff));
+            case 0xdb -> new JsonPrimitive(string(in.getInt()));
+            case 0xdc -> msgPackArray(in.getShort() & 0xffff);
+            case 0xdd -> msgPackArray(in.getInt());
+            case 0xde -> msgPackMap(in.getShort() & 0xffff);
+            case 0xdf -> msgPackMap(in.getInt());
+            default -> throw new AssertionError(
+                "type byte 0x" + Integer.toHexString(b)
+            );
+        };
+    }
+
+    private JsonArray msgPackArray(int elements) {
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < elements; i++) {
+            array.add(readMsgPack());
+        }
+        return array;
+    }
+
+    private JsonObject msgPackMap(int entries) {
+        JsonObject map = new JsonObject();
+        for (int i = 0; i < entries; i++) {
+            map.add(readMsgPack().getAsString(), readMsgPack());
+        }
+        return map;
+    }
+
+    private String string(int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
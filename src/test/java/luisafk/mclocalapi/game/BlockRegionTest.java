@@ -0,0 +1,64 @@
+package luisafk.mclocalapi.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BlockRegionTest {
+
+    @Test
+    void countsTouchedSections() {
+        BlockRegion region = new BlockRegion(-1, 0, 15, 16, 31, 16);
+        // x: -1..1, y: 0..1, z: 0..1
+        assertEquals(12, region.sectionCount());
+
+        List<BlockRegion.SectionPos> sections = region.sections();
+        assertEquals(12, sections.size());
+        assertEquals(new BlockRegion.SectionPos(-1, 0, 0), sections.get(0));
+        assertEquals(new BlockRegion.SectionPos(-1, 1, 0), sections.get(1));
+        assertEquals(new BlockRegion.SectionPos(1, 1, 1), sections.get(11));
+    }
+
+    @Test
+    void hugeBoxesDoNotWrapAround() {
+        // Spans of 2^22, 2^21 and 2^21 used to multiply out to 0; y is
+        // now capped to sections 0 to 126
+        BlockRegion region = new BlockRegion(
+            0,
+            0,
+            0,
+            67108863,
+            33554431,
+            33554431
+        );
+        assertEquals((1L << 22) * 127 * (1L << 21), region.sectionCount());
+        assertThrows(IllegalStateException.class, region::sections);
+
+        BlockRegion widest = new BlockRegion(
+            Integer.MIN_VALUE,
+            Integer.MIN_VALUE,
+            Integer.MIN_VALUE,
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE
+        );
+        assertEquals(Long.MAX_VALUE, widest.sectionCount());
+    }
+
+    @Test
+    void ySpanIsCappedToTheWorldHeight() {
+        BlockRegion tall = new BlockRegion(0, -1_000_000, 0, 0, 1_000_000, 0);
+        assertEquals(
+            BlockRegion.MAX_WORLD_SECTION_Y -
+                BlockRegion.MIN_WORLD_SECTION_Y +
+                1,
+            tall.sectionCount()
+        );
+
+        BlockRegion above = new BlockRegion(0, 5000, 0, 100, 6000, 100);
+        assertEquals(0, above.sectionCount());
+        assertEquals(List.of(), above.sections());
+    }
+}
@@ -0,0 +1,209 @@
+package luisafk.mclocalapi.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import luisafk.mclocalapi.state.GameStateSnapshot;
+import org.junit.jupiter.api.Test;
+
+/** The stand-in must be deterministic and consistent with itself. */
+class HeadlessGameProviderTest {
+
+    @Test
+    void playerWalksTheCircleThroughEachDimension() {
+        HeadlessGameProvider game = new HeadlessGameProvider(10, 100);
+
+        GameStateSnapshot first = game.capture(0, 1000);
+        assertTrue(first.hasPlayer());
+        assertEquals(200, first.x(), 1e-9);
+        assertEquals(64, first.y());
+        assertEquals(0, first.z(), 1e-9);
+        assertEquals("minecraft:overworld", first.dimension());
+        assertEquals(1000, first.capturedAt());
+
+        GameStateSnapshot previous = first;
+        for (long tick = 1; tick < 300; tick++) {
+            GameStateSnapshot state = game.capture(tick, 1000 + tick);
+            assertEquals(
+                200,
+                Math.hypot(state.x(), state.z()),
+                1e-6,
+                "off the circle at tick " + tick
+            );
+            // Each step matches the reported velocity
+            assertEquals(previous.velocityX(), state.x() - previous.x(), 1e-3);
+            assertEquals(previous.velocityZ(), state.z() - previous.z(), 1e-3);
+            previous = state;
+        }
+
+        assertEquals(
+            "minecraft:the_nether",
+            game.capture(100, 0).dimension()
+        );
+        assertEquals("minecraft:the_end", game.capture(299, 0).dimension());
+        assertEquals("minecraft:overworld", game.capture(300, 0).dimension());
+    }
+
+    @Test
+    void yawFacesTheDirectionOfTravel() {
+        HeadlessGameProvider game = new HeadlessGameProvider(10, 100);
+        for (long tick : new long[] { 0, 250, 1000, 3000 }) {
+            GameStateSnapshot state = game.capture(tick, 0);
+            double yaw = Math.toRadians(state.yaw());
+            // Minecraft's yaw is 0 facing +Z and grows clockwise
+            assertEquals(-Math.sin(yaw) * 0.2, state.velocityX(), 1e-6);
+            assertEquals(Math.cos(yaw) * 0.2, state.velocityZ(), 1e-6);
+        }
+    }
+
+    @Test
+    void waypointsAreSeededPerDimension() {
+        HeadlessGameProvider game = new HeadlessGameProvider(50, 100);
+        game.capture(0, 0);
+        List<WaypointStore.Waypoint> overworld = waypoints(game.waypoints());
+        assertEquals(50, overworld.size());
+
+        game.capture(100, 0);
+        List<WaypointStore.Waypoint> nether = waypoints(game.waypoints());
+        assertEquals(50, nether.size());
+        assertNotEquals(overworld, nether);
+
+        HeadlessGameProvider other = new HeadlessGameProvider(50, 100);
+        other.capture(0, 0);
+        assertEquals(overworld, waypoints(other.waypoints()));
+    }
+
+    @Test
+    void addingASetChangesTheFingerprintOnce() {
+        HeadlessGameProvider game = new HeadlessGameProvider(5, 100);
+        game.capture(0, 0);
+        WaypointStore store = game.waypoints();
+        Object before = store.fingerprint();
+
+        Object set = store.addSet("extra");
+        Object after = store.fingerprint();
+        assertNotEquals(before, after);
+
+        assertSame(set, store.addSet("extra"));
+        assertEquals(after, store.fingerprint());
+
+        List<String> names = new ArrayList<>();
+        store.sets().forEach(s -> names.add(s.name()));
+        assertEquals(List.of("gui.xaero_default", "extra"), names);
+    }
+
+    @Test
+    void onlyChunksAroundThePlayerAreLoaded() {
+        HeadlessGameProvider game = new HeadlessGameProvider(0, 100);
+        game.capture(0, 0);
+        // The player starts at x = 200, z = 0: chunk 12, 0
+        assertNotNull(game.copySection(12, 4, 0));
+        assertNotNull(game.copySection(20, 4, 8));
+        assertNull(game.copySection(21, 4, 0));
+        assertNull(game.copySection(12, 4, -9));
+        assertNull(game.copySection(12, -5, 0));
+        assertNull(game.copySection(12, 20, 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void terrainIsLayered() {
+        HeadlessGameProvider game = new HeadlessGameProvider(0, 100);
+        game.capture(0, 0);
+
+        // Section y = 4 spans blocks 64 to 79
+        BlockSection<Object> top = (BlockSection<Object>) game.copySection(
+            12,
+            4,
+            0
+        );
+        assertEquals(
+            "minecraft:grass_block[snowy=false]",
+            top.name(top.get(3, 0, 5))
+        );
+        assertEquals("minecraft:air", top.name(top.get(3, 1, 5)));
+
+        BlockSection<Object> below = (BlockSection<Object>) game.copySection(
+            12,
+            3,
+            0
+        );
+        assertEquals("minecraft:dirt", below.name(below.get(0, 15, 0)));
+
+        BlockSection<Object> bottom = (BlockSection<Object>) game.copySection(
+            12,
+            -4,
+            0
+        );
+        assertEquals("minecraft:bedrock", bottom.name(bottom.get(7, 0, 7)));
+        assertTrue(bottom.name(bottom.get(7, 1, 7)).startsWith("minecraft:"));
+    }
+
+    @Test
+    void nearbyEntitiesAreWithinRadiusAndUnique() {
+        HeadlessGameProvider game = new HeadlessGameProvider(0, 100);
+        for (long tick : new long[] { 0, 500, 1200, 5000 }) {
+            GameStateSnapshot state = game.capture(tick, 0);
+            for (double radius : new double[] { 8, 16, 64 }) {
+                List<NearbyEntity> entities = game.nearbyEntities(radius);
+                Set<Integer> ids = new HashSet<>();
+                int players = 0;
+                for (NearbyEntity entity : entities) {
+                    assertTrue(ids.add(entity.id()), "duplicate ID");
+                    assertTrue(Math.abs(entity.x() - state.x()) <= radius);
+                    assertTrue(Math.abs(entity.z() - state.z()) <= radius);
+                    if (entity.type().equals("minecraft:player")) {
+                        players++;
+                    }
+                }
+                assertEquals(radius >= 16 ? 2 : 0, players);
+            }
+        }
+    }
+
+    @Test
+    void mobsRespawnWithNewIds() {
+        HeadlessGameProvider game = new HeadlessGameProvider(0, 100);
+        game.capture(0, 0);
+        Set<Integer> ids = new HashSet<>();
+        for (NearbyEntity entity : game.nearbyEntities(1000)) {
+            ids.add(entity.id());
+        }
+
+        game.capture(1600, 0);
+        Set<Integer> later = new HashSet<>();
+        for (NearbyEntity entity : game.nearbyEntities(1000)) {
+            later.add(entity.id());
+        }
+
+        // Mob 0 is the first after the two other players
+        assertTrue(ids.contains(3));
+        assertTrue(later.contains(3 + 256));
+        assertTrue(!later.contains(3));
+    }
+
+    @Test
+    void chatIsCounted() {
+        HeadlessGameProvider game = new HeadlessGameProvider(0, 100);
+        assertTrue(game.canSendChat());
+        game.sendChat("hello");
+        game.sendCommand("time set day");
+        assertEquals(2, game.getChatSent());
+    }
+
+    private static List<WaypointStore.Waypoint> waypoints(WaypointStore store) {
+        List<WaypointStore.Waypoint> waypoints = new ArrayList<>();
+        for (WaypointStore.Set set : store.sets()) {
+            set.waypoints().forEach(waypoints::add);
+        }
+        return waypoints;
+    }
+}
@@ -0,0 +1,159 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.MCLocalAPIClient;
+import luisafk.mclocalapi.MCLocalAPIConfig;
+import luisafk.mclocalapi.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Rejections are 429s with a usable Retry-After, and buckets refill. */
+class AdmissionControlTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final InetSocketAddress CLIENT = new InetSocketAddress(
+        "127.0.0.1",
+        1
+    );
+
+    private final MCLocalAPIConfig config = MCLocalAPIClient.config;
+    private int maxInFlight;
+    private double rate;
+    private int burst;
+
+    @BeforeEach
+    void saveConfig() {
+        maxInFlight = config.maxInFlightRequests;
+        rate = config.requestsPerSecondPerClient;
+        burst = config.requestBurstPerClient;
+    }
+
+    @AfterEach
+    void restoreConfig() {
+        config.maxInFlightRequests = maxInFlight;
+        config.requestsPerSecondPerClient = rate;
+        config.requestBurstPerClient = burst;
+    }
+
+    @Test
+    void bucketStartsFullAndRefillsAtTheRate() {
+        AdmissionControl.TokenBucket bucket = new AdmissionControl.TokenBucket(
+            0,
+            3
+        );
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.take(0, 2, 3));
+        }
+        assertEquals(1, bucket.take(0, 2, 3), 1e-9);
+
+        // 0.1 s at 2/s is 0.2 tokens, still 0.8 short
+        assertEquals(0.8, bucket.take(SECOND / 10, 2, 3), 1e-9);
+        // Another 0.4 s makes it a whole token
+        assertEquals(0, bucket.take(SECOND / 2, 2, 3), 1e-9);
+        assertEquals(1, bucket.take(SECOND / 2, 2, 3), 1e-9);
+    }
+
+    @Test
+    void bucketNeverHoldsMoreThanTheBurst() {
+        AdmissionControl.TokenBucket bucket = new AdmissionControl.TokenBucket(
+            0,
+            2
+        );
+        assertEquals(0, bucket.take(0, 1, 2));
+
+        long later = 3600 * SECOND;
+        assertEquals(0, bucket.take(later, 1, 2));
+        assertEquals(0, bucket.take(later, 1, 2));
+        assertEquals(1, bucket.take(later, 1, 2), 1e-9);
+    }
+
+    @Test
+    void rejectsPastMaxInFlight() {
+        config.maxInFlightRequests = 2;
+        config.requestsPerSecondPerClient = 0;
+        AdmissionControl admission = new AdmissionControl();
+
+        admission.admit(CLIENT);
+        admission.admit(CLIENT);
+        assertTooManyRequests("1", () -> admission.admit(CLIENT));
+        assertEquals(2, admission.getInFlight());
+        assertEquals(1, admission.getRejectedInFlight());
+
+        admission.release();
+        admission.admit(CLIENT);
+        assertEquals(2, admission.getInFlight());
+    }
+
+    @Test
+    void retryAfterIsWhenTheNextTokenArrives() {
+        config.maxInFlightRequests = 100;
+        config.requestsPerSecondPerClient = 0.25;
+        config.requestBurstPerClient = 2;
+        AdmissionControl admission = new AdmissionControl();
+        long now = System.nanoTime();
+
+        admission.admit(CLIENT, now);
+        admission.admit(CLIENT, now);
+        assertTooManyRequests("4", () -> admission.admit(CLIENT, now));
+        // Rejected requests don't hold a slot
+        assertEquals(2, admission.getInFlight());
+        assertEquals(1, admission.getRejectedRate());
+
+        // Half a token in, the other half takes 2 s
+        assertTooManyRequests("2", () ->
+            admission.admit(CLIENT, now + 2 * SECOND)
+        );
+        admission.admit(CLIENT, now + 4 * SECOND);
+
+        // Other addresses have their own bucket
+        admission.admit(new InetSocketAddress("127.0.0.2", 1), now);
+    }
+
+    @Test
+    void rejectsPastMaxStreams() {
+        AdmissionControl admission = new AdmissionControl();
+        admission.admitStream(2, 3);
+        assertTooManyRequests("5", () -> admission.admitStream(3, 3));
+        assertEquals(1, admission.getRejectedStreams());
+    }
+
+    @Test
+    void rejectionsReachTheClient() throws Exception {
+        config.requestsPerSecondPerClient = 0.001;
+        config.requestBurstPerClient = 1;
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(
+            TestServer.get().uri("/")
+        ).build();
+
+        // Uses up the burst
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<String> rejected = client.send(
+            request,
+            HttpResponse.BodyHandlers.ofString()
+        );
+        assertEquals(429, rejected.statusCode());
+        assertEquals(
+            "1000",
+            rejected.headers().firstValue("Retry-After").orElse(null)
+        );
+        assertEquals(0, MCLocalAPIClient.admission.getInFlight());
+    }
+
+    private static void assertTooManyRequests(
+        String retryAfter,
+        Runnable admit
+    ) {
+        ApiException e = assertThrows(ApiException.class, admit::run);
+        assertEquals(429, e.getStatusCode());
+        assertEquals(retryAfter, e.getHeaders().get("Retry-After"));
+    }
+}
@@ -0,0 +1,133 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import luisafk.mclocalapi.MCLocalAPIClient;
+import luisafk.mclocalapi.TestServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Streams must give their request thread back once they're set up, and
+ * requests to a route that has detached one must still be finished normally.
+ */
+class DetachedStreamTest {
+
+    private static final int STREAMS = TestServer.REQUEST_THREADS * 4;
+    private static final int SAMPLES = 40;
+
+    private static TestServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = TestServer.get();
+        client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        awaitPlayer();
+    }
+
+    @Test
+    void openStreamsDoNotSlowOtherRequests() throws Exception {
+        long baseline = medianWorldLatencyNanos();
+
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < STREAMS; i++) {
+                HttpResponse<InputStream> response = client.send(
+                    request("/player/position/stream"),
+                    HttpResponse.BodyHandlers.ofInputStream()
+                );
+                assertEquals(200, response.statusCode());
+                streams.add(response.body());
+            }
+
+            // With a thread per stream, this would never get one
+            long withStreams = medianWorldLatencyNanos();
+            assertTrue(
+                withStreams <= baseline * 3 + Duration.ofMillis(50).toNanos(),
+                "median /player/world went from " +
+                    baseline / 1000 +
+                    " µs to " +
+                    withStreams / 1000 +
+                    " µs with " +
+                    STREAMS +
+                    " streams open"
+            );
+        } finally {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+        }
+    }
+
+    @Test
+    void requestsAfterADetachedStreamAreStillFinished() throws Exception {
+        HttpResponse<InputStream> stream = client.send(
+            request("/player/position/stream"),
+            HttpResponse.BodyHandlers.ofInputStream()
+        );
+        try {
+            assertEquals(200, stream.statusCode());
+
+            // Same route, but answered and finished by the handler
+            for (int i = 0; i < 10; i++) {
+                HttpResponse<String> rejected = client.send(
+                    request("/player/position/stream?mode=sideways"),
+                    HttpResponse.BodyHandlers.ofString()
+                );
+                assertEquals(400, rejected.statusCode());
+            }
+            assertEquals(0, MCLocalAPIClient.admission.getInFlight());
+        } finally {
+            stream.body().close();
+        }
+    }
+
+    private static long medianWorldLatencyNanos() throws Exception {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(
+                request("/player/world"),
+                HttpResponse.BodyHandlers.ofString()
+            );
+            samples[i] = System.nanoTime() - start;
+            assertEquals(200, response.statusCode());
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+
+    private static void awaitPlayer() throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (
+            client
+                .send(
+                    request("/player/world"),
+                    HttpResponse.BodyHandlers.discarding()
+                )
+                .statusCode() !=
+            200
+        ) {
+            assertTrue(System.nanoTime() < deadline, "no player after 10 s");
+            Thread.sleep(50);
+        }
+    }
+
+    private static HttpRequest request(String path) {
+        return HttpRequest.newBuilder(server.uri(path))
+            .timeout(Duration.ofSeconds(5))
+            .build();
+    }
+}
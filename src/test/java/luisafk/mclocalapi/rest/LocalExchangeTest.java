@@ -0,0 +1,102 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.sun.net.httpserver.Headers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.MCLocalAPIClient;
+import luisafk.mclocalapi.TestServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Calls made through {@link RestApiProvider#dispatch}, as WebSockets do. */
+class LocalExchangeTest {
+
+    private static RestApiProvider api;
+
+    @BeforeAll
+    static void start() throws Exception {
+        api = TestServer.get().api();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (call("/player/world").getResponseCode() != 200) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("no player after 10 s");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void answersRegularRoutes() throws Exception {
+        LocalExchange exchange = call("/player/world");
+        assertEquals(200, exchange.getResponseCode());
+        assertEquals(
+            "minecraft:",
+            new String(
+                exchange.getResponseBytes(),
+                StandardCharsets.UTF_8
+            ).substring(0, 10)
+        );
+    }
+
+    @Test
+    void refusesStreamsWithoutSubscribing() throws Exception {
+        int positionClients = MCLocalAPIClient.posSseHub.getSubscriberCount();
+        int eventClients = MCLocalAPIClient.eventsSseHub.getSubscriberCount();
+        int entityClients =
+            MCLocalAPIClient.entitiesSseHub.getSubscriberCount();
+
+        for (String path : new String[] {
+            "/player/position/stream",
+            "/events?topics=position",
+            "/entities/stream",
+        }) {
+            assertEquals(400, call(path).getResponseCode(), path);
+        }
+
+        assertEquals(
+            positionClients,
+            MCLocalAPIClient.posSseHub.getSubscriberCount()
+        );
+        assertEquals(
+            eventClients,
+            MCLocalAPIClient.eventsSseHub.getSubscriberCount()
+        );
+        assertEquals(
+            entityClients,
+            MCLocalAPIClient.entitiesSseHub.getSubscriberCount()
+        );
+    }
+
+    @Test
+    void writesFailOnceAborted() throws Exception {
+        LocalExchange exchange = exchange("/player/world");
+        OutputStream body = exchange.getResponseBody();
+        body.write(1);
+        exchange.abort();
+
+        assertThrows(IOException.class, () -> body.write(2));
+        assertEquals(0, exchange.getResponseBytes().length);
+    }
+
+    private static LocalExchange call(String path) throws Exception {
+        return api.dispatch(exchange(path)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static LocalExchange exchange(String path) {
+        return new LocalExchange(
+            "GET",
+            URI.create(path),
+            new Headers(),
+            new byte[0],
+            new InetSocketAddress("127.0.0.1", 1),
+            new InetSocketAddress("127.0.0.1", 2)
+        );
+    }
+}
@@ -0,0 +1,81 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.sun.net.httpserver.Headers;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+
+/** Conditional requests against both variants of a cached response. */
+class ResponseCacheTest {
+
+    private static final CachedResponse RESPONSE = CachedResponse.text(
+        "compressible ".repeat(1000)
+    );
+
+    @Test
+    void variantsHaveTheirOwnTags() throws Exception {
+        LocalExchange plain = send(null, null);
+        LocalExchange gzip = send("gzip", null);
+
+        assertEquals(200, plain.getResponseCode());
+        assertEquals(200, gzip.getResponseCode());
+        assertNull(plain.getResponseHeaders().getFirst("Content-Encoding"));
+        assertEquals(
+            "gzip",
+            gzip.getResponseHeaders().getFirst("Content-Encoding")
+        );
+        assertNotEquals(etag(plain), etag(gzip));
+    }
+
+    @Test
+    void notModifiedOnlyForTheVariantBeingSent() throws Exception {
+        String plainTag = RESPONSE.getETag(false);
+        String gzipTag = RESPONSE.getETag(true);
+
+        assertEquals(304, send(null, plainTag).getResponseCode());
+        assertEquals(304, send("gzip", gzipTag).getResponseCode());
+
+        // A tag for the other variant mustn't stand in for this one
+        LocalExchange plain = send(null, gzipTag);
+        assertEquals(200, plain.getResponseCode());
+        assertEquals(plainTag, etag(plain));
+
+        LocalExchange gzip = send("gzip", plainTag);
+        assertEquals(200, gzip.getResponseCode());
+        assertEquals(gzipTag, etag(gzip));
+
+        assertEquals(
+            304,
+            send("gzip", plainTag + ", " + gzipTag).getResponseCode()
+        );
+    }
+
+    private static LocalExchange send(String acceptEncoding, String ifNoneMatch)
+        throws Exception {
+        Headers headers = new Headers();
+        if (acceptEncoding != null) {
+            headers.set("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            headers.set("If-None-Match", ifNoneMatch);
+        }
+        LocalExchange exchange = new LocalExchange(
+            "GET",
+            URI.create("/"),
+            headers,
+            new byte[0],
+            new InetSocketAddress("127.0.0.1", 1),
+            new InetSocketAddress("127.0.0.1", 2)
+        );
+        ResponseCache.send(exchange, RESPONSE);
+        return exchange;
+    }
+
+    private static String etag(LocalExchange exchange) {
+        return exchange.getResponseHeaders().getFirst("ETag");
+    }
+}
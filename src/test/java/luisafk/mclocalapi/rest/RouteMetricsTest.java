@@ -0,0 +1,71 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.sun.net.httpserver.Headers;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.MCLocalAPIClient;
+import luisafk.mclocalapi.TestServer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Routes that respond after their handler returns are recorded once the
+ * response is complete, with its status.
+ */
+class RouteMetricsTest {
+
+    @Test
+    void recordsAsyncResponsesWithTheirStatus() throws Exception {
+        assertRecorded("/xaero/waypoint-sets", "/xaero/waypoint-sets");
+        assertRecorded("/world/blocks", "/world/blocks?min=0,0,0&max=15,15,15");
+    }
+
+    private static void assertRecorded(String route, String path)
+        throws Exception {
+        RestApiProvider api = TestServer.get().api();
+        long ok = count(route, 200);
+        long none = count(route, -1);
+
+        for (int i = 0; i < 3; i++) {
+            LocalExchange exchange = api
+                .dispatch(
+                    new LocalExchange(
+                        "GET",
+                        URI.create(path),
+                        new Headers(),
+                        new byte[0],
+                        new InetSocketAddress("127.0.0.1", 1),
+                        new InetSocketAddress("127.0.0.1", 2)
+                    )
+                )
+                .get(5, TimeUnit.SECONDS);
+            assertEquals(200, exchange.getResponseCode(), path);
+        }
+
+        // Recorded just after the exchange is closed, on another thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(route, 200) < ok + 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(ok + 3, count(route, 200), route);
+        assertEquals(none, count(route, -1), route);
+    }
+
+    private static long count(String route, int status) {
+        String prefix =
+            "mc_local_api_http_requests_total{route=\"" +
+            route +
+            "\",status=\"" +
+            status +
+            "\"} ";
+        return MCLocalAPIClient.metrics
+            .scrape()
+            .lines()
+            .filter(line -> line.startsWith(prefix))
+            .mapToLong(line -> Long.parseLong(line.substring(prefix.length())))
+            .findFirst()
+            .orElse(0);
+    }
+}
@@ -0,0 +1,63 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.JsonParser;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SseFrameEncoderTest {
+
+    /** The JDK's encoder also writes {@code ?} for lone surrogates. */
+    private static final String[] TEXTS = {
+        "plain",
+        "café ☃",
+        "pair 😀 done",
+        "lone high \ud83dx",
+        "lone high at end \ud83d",
+        "lone low \ude00x",
+        "two highs \ud83d😀",
+    };
+
+    @Test
+    void textMatchesTheJdkEncoder() {
+        for (String text : TEXTS) {
+            byte[] encoded = new SseFrameEncoder()
+                .reset()
+                .text(text)
+                .toByteArray();
+            assertEquals(
+                new String(text.getBytes(StandardCharsets.UTF_8)),
+                new String(encoded, StandardCharsets.UTF_8),
+                text
+            );
+        }
+    }
+
+    @Test
+    void stringIsValidJsonForTheSameText() {
+        for (String text : TEXTS) {
+            String json = new String(
+                new SseFrameEncoder().reset().string(text).toByteArray(),
+                StandardCharsets.UTF_8
+            );
+            assertEquals(
+                new String(text.getBytes(StandardCharsets.UTF_8)),
+                JsonParser.parseString(json).getAsString(),
+                text
+            );
+        }
+    }
+
+    @Test
+    void stringEscapesControlCharacters() {
+        String json = new String(
+            new SseFrameEncoder()
+                .reset()
+                .string("a\"b\\c\nd\te\u0001")
+                .toByteArray(),
+            StandardCharsets.UTF_8
+        );
+        assertEquals("\"a\\\"b\\\\c\\nd\\te\\u0001\"", json);
+    }
+}
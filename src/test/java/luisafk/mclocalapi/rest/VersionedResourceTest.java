@@ -0,0 +1,102 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import luisafk.mclocalapi.TestServer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Versions restart at 0 each launch, so tags and {@code waitFor} versions
+ * from an earlier launch must never be taken for current ones.
+ */
+class VersionedResourceTest {
+
+    private static final String OTHER_EPOCH = "earlier";
+
+    private static TestServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = TestServer.get();
+        client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        awaitPlayer();
+    }
+
+    @Test
+    void tagsCarryTheEpoch() throws Exception {
+        HttpResponse<String> response = get("/player/world", null);
+        String epoch = header(response, "X-Resource-Epoch");
+        String etag = header(response, "ETag");
+        assertTrue(etag.startsWith("\"" + epoch + "-world-"), etag);
+
+        assertEquals(304, get("/player/world", etag).statusCode());
+        assertEquals(
+            200,
+            get("/player/world", etag.replace(epoch, OTHER_EPOCH)).statusCode()
+        );
+    }
+
+    @Test
+    void waitForFromAnotherEpochAnswersAtOnce() throws Exception {
+        HttpResponse<String> current = get("/player/world", null);
+        String version = header(current, "X-Resource-Version");
+
+        assertAnsweredAtOnce(
+            "/player/world?timeoutMs=10000&waitFor=" +
+                version +
+                "&epoch=" +
+                OTHER_EPOCH
+        );
+        // Without an epoch, a version we haven't reached yet gives it away
+        assertAnsweredAtOnce(
+            "/player/world?timeoutMs=10000&waitFor=" +
+                (Long.parseLong(version) + 1000)
+        );
+    }
+
+    private static void assertAnsweredAtOnce(String path) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = get(path, null);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(200, response.statusCode());
+        assertTrue(millis < 5000, path + " was held for " + millis + " ms");
+    }
+
+    private static String header(HttpResponse<?> response, String name) {
+        String value = response.headers().firstValue(name).orElse(null);
+        assertNotNull(value, name);
+        return value;
+    }
+
+    private static HttpResponse<String> get(String path, String ifNoneMatch)
+        throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(server.uri(path))
+            .timeout(Duration.ofSeconds(15));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(
+            request.build(),
+            HttpResponse.BodyHandlers.ofString()
+        );
+    }
+
+    private static void awaitPlayer() throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (get("/player/world", null).statusCode() != 200) {
+            assertTrue(System.nanoTime() < deadline, "no player after 10 s");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package luisafk.mclocalapi.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.sun.net.httpserver.Headers;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import luisafk.mclocalapi.TestServer;
+import luisafk.mclocalapi.events.EventFilter;
+import luisafk.mclocalapi.game.WaypointStore;
+import luisafk.mclocalapi.game.WaypointStore.Waypoint;
+import org.junit.jupiter.api.Test;
+
+/** Pages are copied out of the store, so they outlive changes to it. */
+class XaeroWaypointExportTest {
+
+    @Test
+    void pagesFollowTheirCursors() {
+        ListStore store = new ListStore();
+        store.add("a", 3);
+        store.add("b", 2);
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            XaeroWaypointExport.Page page = XaeroWaypointExport.collect(
+                store,
+                XaeroWaypointExport.Query.of(null, EventFilter.NONE, cursor, 2)
+            );
+            page.waypoints().forEach(entry ->
+                names.add(entry.set() + "/" + entry.waypoint().name())
+            );
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("a/0", "a/1", "a/2", "b/0", "b/1"), names);
+    }
+
+    @Test
+    void pageIsACopy() {
+        ListStore store = new ListStore();
+        store.add("a", 3);
+
+        XaeroWaypointExport.Page page = XaeroWaypointExport.collect(
+            store,
+            XaeroWaypointExport.Query.of(null, EventFilter.NONE, null, 10)
+        );
+        store.add("a", 5);
+        store.sets.get(0).waypoints.clear();
+
+        assertEquals(3, page.waypoints().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void rejectsBadCursors() {
+        for (String cursor : new String[] { "", "1", "x.1", "1.y" }) {
+            ApiException e = assertThrows(ApiException.class, () ->
+                XaeroWaypointExport.Query.of(null, EventFilter.NONE, cursor, 1)
+            );
+            assertEquals(400, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void routesAnswerFromTheClientThread() throws Exception {
+        RestApiProvider api = TestServer.get().api();
+        for (String path : new String[] {
+            "/xaero/waypoint-sets",
+            "/xaero/waypoints?limit=5",
+            "/xaero/waypoints/nearest?x=0&y=64&z=0&k=3",
+            "/xaero/waypoints/within?x=0&y=64&z=0&radius=1000&limit=5",
+        }) {
+            LocalExchange exchange = api
+                .dispatch(
+                    new LocalExchange(
+                        "GET",
+                        URI.create(path),
+                        new Headers(),
+                        new byte[0],
+                        new InetSocketAddress("127.0.0.1", 1),
+                        new InetSocketAddress("127.0.0.1", 2)
+                    )
+                )
+                .get(5, TimeUnit.SECONDS);
+            assertEquals(200, exchange.getResponseCode(), path);
+        }
+    }
+
+    private static final class ListStore implements WaypointStore {
+
+        final List<ListSet> sets = new ArrayList<>();
+
+        void add(String set, int count) {
+            ListSet target = sets
+                .stream()
+                .filter(s -> s.name.equals(set))
+                .findFirst()
+                .orElseGet(() -> {
+                    ListSet created = new ListSet(set);
+                    sets.add(created);
+                    return created;
+                });
+            int start = target.waypoints.size();
+            for (int i = start; i < start + count; i++) {
+                target.waypoints.add(
+                    new Waypoint(Integer.toString(i), "W", i, 64, i, 0, false)
+                );
+            }
+        }
+
+        @Override
+        public Iterable<ListSet> sets() {
+            return sets;
+        }
+
+        @Override
+        public Object addSet(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object describeSets() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object fingerprint() {
+            return sets.stream().map(ListSet::size).toList();
+        }
+    }
+
+    private static final class ListSet implements WaypointStore.Set {
+
+        final String name;
+        final List<Waypoint> waypoints = new ArrayList<>();
+
+        ListSet(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public int size() {
+            return waypoints.size();
+        }
+
+        @Override
+        public Iterable<Waypoint> waypoints() {
+            return waypoints;
+        }
+    }
+}
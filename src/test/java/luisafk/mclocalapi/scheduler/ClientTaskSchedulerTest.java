@@ -0,0 +1,77 @@
+package luisafk.mclocalapi.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class ClientTaskSchedulerTest {
+
+    @Test
+    void runsQueuedTasksOnDrain() throws Exception {
+        ClientTaskScheduler scheduler = new ClientTaskScheduler();
+        CompletableFuture<String> future = scheduler.submit(() -> "ran", 5000);
+
+        assertFalse(future.isDone());
+        scheduler.drain(1);
+        assertEquals("ran", future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    void taskThatTimedOutNeverRuns() throws Exception {
+        ClientTaskScheduler scheduler = new ClientTaskScheduler();
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Boolean> future = scheduler.submit(
+            () -> ran.getAndSet(true),
+            10
+        );
+
+        ExecutionException e = assertThrows(ExecutionException.class, () ->
+            future.get(5, TimeUnit.SECONDS)
+        );
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        scheduler.drain(1);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void taskThatStartedIsNotTimedOut() throws Exception {
+        ClientTaskScheduler scheduler = new ClientTaskScheduler();
+        CompletableFuture<String> future = scheduler.submit(
+            () -> {
+                // Outlives its deadline while running
+                Thread.sleep(200);
+                return "ran";
+            },
+            50
+        );
+
+        scheduler.drain(1);
+        assertEquals("ran", future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void timedOutTasksDoNotCountTowardTheLimit() throws Exception {
+        ClientTaskScheduler scheduler = new ClientTaskScheduler();
+        CompletableFuture<String> stale = scheduler.submit(() -> "stale", 10);
+        assertThrows(ExecutionException.class, () ->
+            stale.get(5, TimeUnit.SECONDS)
+        );
+        CompletableFuture<String> fresh = scheduler.submit(
+            () -> "fresh",
+            5000
+        );
+
+        scheduler.drain(1);
+        assertEquals("fresh", fresh.get(1, TimeUnit.SECONDS));
+    }
+}
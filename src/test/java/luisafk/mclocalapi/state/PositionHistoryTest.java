@@ -0,0 +1,101 @@
+package luisafk.mclocalapi.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Readers copy without locking, so every sample they get must still be
+ * whole, and in order, while the writer laps the ring.
+ */
+class PositionHistoryTest {
+
+    private static final int CAPACITY = 8;
+
+    @Test
+    void keepsTheLastCapacitySamples() {
+        PositionHistory history = new PositionHistory();
+        for (long tick = 0; tick < 20; tick++) {
+            history.record(sample(tick), CAPACITY);
+        }
+
+        PositionHistory.Samples samples = history.query(0, Long.MAX_VALUE - 1);
+        assertEquals(CAPACITY, samples.size());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(12 + i, samples.ticks()[i]);
+        }
+
+        samples = history.query(15, 16);
+        assertEquals(2, samples.size());
+        assertEquals(15, samples.ticks()[0]);
+    }
+
+    @Test
+    void concurrentReadsSeeWholeSamples() throws Exception {
+        PositionHistory history = new PositionHistory();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (long tick = 0; tick < 2_000_000; tick++) {
+                history.record(sample(tick), CAPACITY);
+            }
+            done.set(true);
+        });
+
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = Thread.ofPlatform().start(() -> {
+                while (!done.get() && failure.get() == null) {
+                    PositionHistory.Samples samples = history.query(
+                        0,
+                        Long.MAX_VALUE - 1
+                    );
+                    for (int i = 0; i < samples.size(); i++) {
+                        long tick = samples.ticks()[i];
+                        if (
+                            samples.times()[i] != tick ||
+                            samples.xs()[i] != tick ||
+                            samples.ys()[i] != -tick ||
+                            samples.zs()[i] != tick * 2 ||
+                            (i > 0 && samples.ticks()[i - 1] != tick - 1)
+                        ) {
+                            failure.set("torn or out of order at tick " + tick);
+                        }
+                    }
+                }
+            });
+        }
+
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(null, failure.get());
+    }
+
+    private static GameStateSnapshot sample(long tick) {
+        return new GameStateSnapshot(
+            tick,
+            tick,
+            true,
+            tick,
+            -tick,
+            tick * 2,
+            0,
+            0,
+            0,
+            0,
+            0,
+            true,
+            "minecraft:overworld",
+            null,
+            20,
+            20,
+            20,
+            0
+        );
+    }
+}
@@ -0,0 +1,149 @@
+package luisafk.mclocalapi.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import luisafk.mclocalapi.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** The Unix socket's file: who may connect, and when it's replaced. */
+class NioHttpServerTest {
+
+    private Path directory;
+    private Path socket;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("nio");
+        socket = directory.resolve("api.sock");
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void socketIsOwnerOnlyAndServes() throws Exception {
+        NioHttpServer server = start();
+        try {
+            assertEquals(
+                "rw-------",
+                PosixFilePermissions.toString(
+                    Files.getPosixFilePermissions(socket)
+                )
+            );
+            // Bound elsewhere and moved into place, without leftovers
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+            assertTrue(get().startsWith("HTTP/1.1 200"));
+        } finally {
+            server.stop();
+        }
+        assertTrue(Files.notExists(socket));
+    }
+
+    @Test
+    void doesNotReplaceALiveSocket() throws Exception {
+        NioHttpServer first = start();
+        try {
+            NioHttpServer second = server();
+            IOException e = assertThrows(IOException.class, () ->
+                second.start(UnixDomainSocketAddress.of(socket), 0)
+            );
+            assertTrue(e.getMessage().contains("in use"), e.getMessage());
+            assertTrue(get().startsWith("HTTP/1.1 200"));
+        } finally {
+            first.stop();
+        }
+    }
+
+    @Test
+    void replacesAStaleSocket() throws Exception {
+        // Closing a bound channel leaves its file behind, as a crash would
+        try (
+            ServerSocketChannel stale = ServerSocketChannel.open(
+                StandardProtocolFamily.UNIX
+            )
+        ) {
+            stale.bind(UnixDomainSocketAddress.of(socket));
+        }
+        assertTrue(Files.exists(socket));
+
+        NioHttpServer server = start();
+        try {
+            assertTrue(get().startsWith("HTTP/1.1 200"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void refusesToReplaceOtherFiles() throws Exception {
+        Files.writeString(socket, "not a socket");
+        assertThrows(IOException.class, () ->
+            server().start(UnixDomainSocketAddress.of(socket), 0)
+        );
+        assertEquals("not a socket", Files.readString(socket));
+    }
+
+    private NioHttpServer server() {
+        return new NioHttpServer(TestServer.get().api(), executor);
+    }
+
+    private NioHttpServer start() throws IOException {
+        NioHttpServer server = server();
+        server.start(UnixDomainSocketAddress.of(socket), 0);
+        return server;
+    }
+
+    /** The status line of {@code GET /} over the socket. */
+    private String get() throws IOException {
+        try (
+            SocketChannel channel = SocketChannel.open(
+                UnixDomainSocketAddress.of(socket)
+            )
+        ) {
+            channel.write(
+                ByteBuffer.wrap(
+                    "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(
+                        StandardCharsets.US_ASCII
+                    )
+                )
+            );
+            ByteBuffer response = ByteBuffer.allocate(64);
+            while (response.position() < 12 && channel.read(response) >= 0) {}
+            return new String(
+                response.array(),
+                0,
+                response.position(),
+                StandardCharsets.US_ASCII
+            );
+        }
+    }
+}
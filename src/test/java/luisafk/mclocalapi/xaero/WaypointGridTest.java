@@ -0,0 +1,135 @@
+package luisafk.mclocalapi.xaero;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Grid searches agree with a brute-force scan, and stay fast. */
+class WaypointGridTest {
+
+    private static final Duration QUICKLY = Duration.ofSeconds(1);
+
+    @Test
+    void nearestMatchesBruteForce() {
+        List<IndexedWaypoint> waypoints = scatter(500, 2000, 1);
+        WaypointGrid grid = new WaypointGrid(waypoints);
+        Random random = new Random(2);
+
+        for (int i = 0; i < 200; i++) {
+            double x = random.nextInt(-3000, 3000);
+            double y = random.nextInt(-64, 320);
+            double z = random.nextInt(-3000, 3000);
+            int k = 1 + random.nextInt(20);
+            assertEquals(
+                bruteForce(waypoints, x, y, z, k),
+                distances(grid.nearest(x, y, z, k))
+            );
+        }
+    }
+
+    @Test
+    void moreThanThereAreReturnsAll() {
+        List<IndexedWaypoint> waypoints = scatter(30, 500, 3);
+        WaypointGrid grid = new WaypointGrid(waypoints);
+
+        List<WaypointGrid.Match> matches = assertTimeoutPreemptively(
+            QUICKLY,
+            () -> grid.nearest(1_000_000, 0, 0, 100)
+        );
+        assertEquals(30, matches.size());
+        assertEquals(
+            bruteForce(waypoints, 1_000_000, 0, 0, 100),
+            distances(matches)
+        );
+    }
+
+    @Test
+    void farQueriesDoNotScanEveryRing() {
+        List<IndexedWaypoint> waypoints = scatter(200, 500, 4);
+        WaypointGrid grid = new WaypointGrid(waypoints);
+
+        for (double[] at : new double[][] {
+            { 1_000_000, 0, 0 },
+            { -29_999_999, 0, 29_999_999 },
+            { 1e300, 0, -1e300 },
+        }) {
+            List<WaypointGrid.Match> matches = assertTimeoutPreemptively(
+                QUICKLY,
+                () -> grid.nearest(at[0], at[1], at[2], 5)
+            );
+            assertEquals(
+                bruteForce(waypoints, at[0], at[1], at[2], 5),
+                distances(matches)
+            );
+        }
+    }
+
+    @Test
+    void sparseWaypointsAtTheBorderStayFast() {
+        // Two far corners and nothing between: rings would cover the world
+        List<IndexedWaypoint> waypoints = new ArrayList<>();
+        waypoints.add(waypoint(-29_999_000, -29_999_000));
+        waypoints.add(waypoint(29_999_000, 29_999_000));
+        waypoints.add(waypoint(29_999_000, -29_999_000));
+        WaypointGrid grid = new WaypointGrid(waypoints);
+
+        List<WaypointGrid.Match> matches = assertTimeoutPreemptively(
+            QUICKLY,
+            () -> grid.nearest(0, 64, 0, 2)
+        );
+        assertEquals(bruteForce(waypoints, 0, 64, 0, 2), distances(matches));
+    }
+
+    private static List<IndexedWaypoint> scatter(
+        int count,
+        int spread,
+        long seed
+    ) {
+        Random random = new Random(seed);
+        List<IndexedWaypoint> waypoints = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            waypoints.add(
+                new IndexedWaypoint(
+                    "set",
+                    "W" + i,
+                    "W",
+                    random.nextInt(-spread, spread),
+                    random.nextInt(-64, 320),
+                    random.nextInt(-spread, spread),
+                    0,
+                    false
+                )
+            );
+        }
+        return waypoints;
+    }
+
+    private static IndexedWaypoint waypoint(int x, int z) {
+        return new IndexedWaypoint("set", "W", "W", x, 64, z, 0, false);
+    }
+
+    private static List<Double> bruteForce(
+        List<IndexedWaypoint> waypoints,
+        double x,
+        double y,
+        double z,
+        int k
+    ) {
+        return waypoints
+            .stream()
+            .map(waypoint -> Math.sqrt(waypoint.distanceSquared(x, y, z)))
+            .sorted(Comparator.naturalOrder())
+            .limit(k)
+            .toList();
+    }
+
+    private static List<Double> distances(List<WaypointGrid.Match> matches) {
+        return matches.stream().map(WaypointGrid.Match::distance).toList();
+    }
+}